@@ -42,6 +42,8 @@ android {
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
+        // java.time (updated_at do servidor) abaixo da API 26
+        isCoreLibraryDesugaringEnabled = true
     }
     kotlinOptions {
         jvmTarget = "11"
@@ -49,6 +51,19 @@ android {
     buildFeatures {
         buildConfig = true
     }
+    sourceSets {
+        // Microbenchmarks ficam fora da suíte de testes; para rodar:
+        // ./gradlew testDebugUnitTest -Pbenchmarks --tests "*Benchmark"
+        getByName("test") {
+            if (project.hasProperty("benchmarks")) {
+                java.srcDir("src/benchmark/java")
+            }
+        }
+    }
+    testOptions {
+        // Testes na JVM: chamadas a android.util.Log etc. retornam o valor padrão em vez de lançar exceção
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
@@ -73,7 +88,11 @@ dependencies {
     // JSON parsing
     implementation(libs.gson)
 
+    coreLibraryDesugaring(libs.desugar.jdk.libs)
+
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    testImplementation(libs.okhttp.mockwebserver)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
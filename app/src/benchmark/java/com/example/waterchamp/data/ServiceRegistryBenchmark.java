@@ -0,0 +1,115 @@
+package com.example.waterchamp.data;
+
+import com.example.waterchamp.FakeContext;
+import com.example.waterchamp.data.local.HistoryCache;
+import com.example.waterchamp.data.local.PreferencesManager;
+import com.example.waterchamp.data.remote.ConsumoService;
+import com.example.waterchamp.data.remote.GrupoService;
+import com.example.waterchamp.data.remote.RankingService;
+import com.example.waterchamp.data.remote.UserService;
+import com.example.waterchamp.data.repository.ConsumoRepository;
+import com.example.waterchamp.data.repository.GrupoRepository;
+import com.example.waterchamp.data.repository.RankingRepository;
+import com.example.waterchamp.data.repository.UserRepository;
+import com.example.waterchamp.data.sync.SyncOutbox;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Microbenchmark: abrir as cinco telas principais (Home, Ranking, Grupo, Histórico, Perfil)
+ * criando os repositories de cada controller, como antes do ServiceRegistry, x pegando-os do registro
+ * Imprime tempo e bytes alocados por rodada na JVM; os números dependem da máquina e não são verificados
+ *
+ * O tempo até o primeiro frame só pode ser medido no aparelho (FrameTimer no logcat)
+ */
+public class ServiceRegistryBenchmark {
+
+    private static final int ROUNDS = 20_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void perControllerGraphVersusRegistry() throws Exception {
+        FakeContext context = new FakeContext(folder.newFolder());
+        // Registro próprio: não substitui a instância global do processo
+        ServiceRegistry registry = new ServiceRegistry(context);
+        com.sun.management.ThreadMXBean threads = threadBean();
+        long thread = Thread.currentThread().getId();
+
+        // Aquecimento (JIT e a carga única do HistoryStore, igual nos dois casos)
+        Object sink = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            sink = openScreensWithoutRegistry(context);
+            sink = openScreensWithRegistry(registry);
+        }
+
+        long allocBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink = openScreensWithoutRegistry(context);
+        }
+        long withoutNs = System.nanoTime() - start;
+        long withoutBytes = threads.getThreadAllocatedBytes(thread) - allocBefore;
+
+        allocBefore = threads.getThreadAllocatedBytes(thread);
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink = openScreensWithRegistry(registry);
+        }
+        long withNs = System.nanoTime() - start;
+        long withBytes = threads.getThreadAllocatedBytes(thread) - allocBefore;
+
+        assertNotNull(sink);
+        System.out.println("ServiceRegistryBenchmark - por abertura das 5 telas: sem registro="
+            + (withoutNs / ROUNDS) + "ns/" + (withoutBytes / ROUNDS) + " bytes, com registro="
+            + (withNs / ROUNDS) + "ns/" + (withBytes / ROUNDS) + " bytes");
+    }
+
+    /**
+     * O que cada controller montava no construtor antes do registro
+     */
+    private static Object[] openScreensWithoutRegistry(FakeContext context) {
+        // Home: ConsumoRepository + UserRepository
+        ConsumoRepository homeConsumo = newConsumoRepository(context);
+        UserRepository homeUser = new UserRepository(new UserService(), new PreferencesManager(context), homeConsumo);
+        // Ranking: RankingRepository, com um GrupoRepository próprio
+        RankingRepository ranking = new RankingRepository(new RankingService(), new PreferencesManager(context),
+            new GrupoRepository(new GrupoService(), new PreferencesManager(context)), new HistoryCache(context));
+        // Grupo
+        GrupoRepository grupo = new GrupoRepository(new GrupoService(), new PreferencesManager(context));
+        // Histórico
+        ConsumoRepository history = newConsumoRepository(context);
+        // Perfil
+        UserRepository profile = new UserRepository(new UserService(), new PreferencesManager(context), newConsumoRepository(context));
+        return new Object[] {homeConsumo, homeUser, ranking, grupo, history, profile};
+    }
+
+    private static Object[] openScreensWithRegistry(ServiceRegistry registry) {
+        return new Object[] {
+            registry.getConsumoRepository(), registry.getUserRepository(), registry.getRankingRepository(),
+            registry.getGrupoRepository(), registry.getConsumoRepository(), registry.getUserRepository()
+        };
+    }
+
+    private static ConsumoRepository newConsumoRepository(FakeContext context) {
+        return new ConsumoRepository(new ConsumoService(), new HistoryCache(context),
+            new PreferencesManager(context), new SyncOutbox(context));
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.waterchamp.data.local;
+
+import com.example.waterchamp.FakeSharedPreferences;
+import com.example.waterchamp.model.User;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Microbenchmark: ler o snapshot de um ranking com 10 e 100 linhas (100 é o tamanho do ranking na tela)
+ * A primeira leitura inclui montar os adapters do Gson, como na abertura a frio do app
+ * Não inclui carregar o arquivo de preferências do disco (feito em background desde a criação do store)
+ * Imprime os tempos; os números dependem da máquina e não são verificados
+ */
+public class ScreenSnapshotStoreBenchmark {
+
+    private static final int USER_ID = 1;
+    private static final int READS = 20_000;
+
+    @Test
+    public void getRanking() {
+        FakeSharedPreferences prefs = new FakeSharedPreferences();
+        ScreenSnapshotStore store = new ScreenSnapshotStore(prefs);
+        store.saveRanking(USER_ID, ScreenSnapshotStore.TAB_GLOBAL, users(100));
+        store.saveRanking(USER_ID, ScreenSnapshotStore.TAB_GROUP, users(10));
+
+        // Primeira leitura no processo: sem JIT e com os adapters do Gson ainda por criar
+        long start = System.nanoTime();
+        List<User> first = store.getRanking(USER_ID, ScreenSnapshotStore.TAB_GLOBAL, false);
+        long firstNs = System.nanoTime() - start;
+        assertEquals(100, first.size());
+
+        System.out.println("ScreenSnapshotStoreBenchmark - primeira leitura (100 linhas): " + format(firstNs));
+        run(store, prefs, ScreenSnapshotStore.TAB_GROUP, 10);
+        run(store, prefs, ScreenSnapshotStore.TAB_GLOBAL, 100);
+    }
+
+    private static void run(ScreenSnapshotStore store, FakeSharedPreferences prefs, String tab, int rows) {
+        for (int i = 0; i < READS; i++) {
+            store.getRanking(USER_ID, tab, false);
+        }
+
+        long start = System.nanoTime();
+        List<User> users = null;
+        for (int i = 0; i < READS; i++) {
+            users = store.getRanking(USER_ID, tab, false);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(rows, users.size());
+        assertEquals(1, users.get(0).getRank());
+        int jsonBytes = prefs.getString("ranking_" + tab, "").length();
+        System.out.println("ScreenSnapshotStoreBenchmark - " + rows + " linhas (" + jsonBytes + " caracteres de JSON): "
+            + format(elapsed / READS) + " por leitura");
+    }
+
+    private static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User("Usuário " + (i + 1), i == 0 ? "usuario1@example.com" : "", 4_000 - i * 25);
+            user.setId(i + 1);
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static String format(long nanos) {
+        return nanos >= 1_000_000 ? String.format("%.2fms", nanos / 1e6) : String.format("%.1fµs", nanos / 1e3);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.waterchamp.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Microbenchmark: RankingModel.update() x reordenar e renumerar a lista inteira a cada mudança
+ * (o que a tela fazia antes) com 10, 1 mil e 100 mil entradas
+ * Imprime o tempo médio por mudança; os números dependem da máquina e não são verificados
+ */
+public class RankingModelBenchmark {
+
+    @Test
+    public void updateVersusFullSort() {
+        run(10, 20_000);
+        run(1_000, 5_000);
+        run(100_000, 200);
+    }
+
+    private static void run(int size, int updates) {
+        Random random = new Random(size);
+        int[] ids = new int[updates];
+        int[] intakes = new int[updates];
+        for (int i = 0; i < updates; i++) {
+            ids[i] = random.nextInt(size);
+            intakes[i] = random.nextInt(5_000);
+        }
+
+        // Aquecimento (JIT) e medição, com as mesmas mudanças nos dois casos
+        incremental(size, ids, intakes);
+        fullSort(size, ids, intakes);
+        long incrementalNs = incremental(size, ids, intakes);
+        long fullSortNs = fullSort(size, ids, intakes);
+
+        System.out.println("RankingModelBenchmark - " + size + " entradas: update()="
+            + format(incrementalNs / updates) + ", ordenar tudo=" + format(fullSortNs / updates) + " por mudança");
+    }
+
+    private static long incremental(int size, int[] ids, int[] intakes) {
+        RankingModel model = new RankingModel();
+        model.replaceAll(users(size));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ids.length; i++) {
+            model.update(ids[i], intakes[i]);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(size, model.size());
+        return elapsed;
+    }
+
+    private static long fullSort(int size, int[] ids, int[] intakes) {
+        List<User> users = users(size);
+        List<User> byId = new ArrayList<>(users);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ids.length; i++) {
+            byId.get(ids[i]).setWaterIntake(intakes[i]);
+            Collections.sort(users, (u1, u2) -> {
+                int byIntake = Integer.compare(u2.getWaterIntake(), u1.getWaterIntake());
+                return byIntake != 0 ? byIntake : Integer.compare(u1.getId(), u2.getId());
+            });
+            for (int rank = 0; rank < users.size(); rank++) {
+                users.get(rank).setRank(rank + 1);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<User> users(int size) {
+        Random random = new Random(42);
+        List<User> users = new ArrayList<>(size);
+        for (int id = 0; id < size; id++) {
+            users.add(RankingModelTest.user(id, "U" + id, random.nextInt(5_000)));
+        }
+        return users;
+    }
+
+    private static String format(long nanos) {
+        return nanos >= 10_000 ? (nanos / 1_000) + "µs" : nanos + "ns";
+    }
+}
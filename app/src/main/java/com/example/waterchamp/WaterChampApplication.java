@@ -1,23 +1,78 @@
 package com.example.waterchamp;
 
+import android.app.Activity;
 import android.app.Application;
+import android.os.Bundle;
+import com.example.waterchamp.data.ServiceRegistry;
+import com.example.waterchamp.data.local.HistoryCache;
 import com.example.waterchamp.data.remote.SupabaseClient;
+import com.example.waterchamp.data.sync.ConnectivityMonitor;
+import com.example.waterchamp.utils.StartupTrace;
 
 /**
  * Classe Application do WaterChamp
  * Inicializa componentes globais como o cliente Supabase
+ * Só o indispensável roda aqui, na thread principal: o cliente Supabase é criado em background
  */
 public class WaterChampApplication extends Application {
 
+    // Quantidade de activities visíveis; 0 significa que o app foi para background
+    private int startedActivities = 0;
+
     @Override
     public void onCreate() {
         super.onCreate();
+        StartupTrace.mark("processo até Application.onCreate");
+
+        // Registro de serviços compartilhados (instâncias criadas sob demanda)
+        ServiceRegistry.init(this);
+
+        // Começar a carregar do disco a última tela exibida (ranking e início) antes da primeira tela pedir
+        ServiceRegistry.get(this).getSnapshotStore();
+        StartupTrace.mark("ServiceRegistry e snapshots");
+
+        // Criar o cliente Supabase em background; a primeira requisição espera por ele se ainda não estiver pronto
+        SupabaseClient.INSTANCE.warmUp();
+
+        // Em builds de debug, conferir o total incremental do histórico a cada escrita
+        HistoryCache.setVerifyTotals(BuildConfig.DEBUG);
+
+        // Reenviar totais pendentes (inclusive de sessões anteriores) sempre que houver rede
+        new ConnectivityMonitor(this, () ->
+            ServiceRegistry.get(this).getConsumoRepository().drainOutbox()
+        ).start();
+        StartupTrace.mark("histórico e ConnectivityMonitor");
+
+        // Enviar sincronização pendente assim que o app for para background
+        registerActivityLifecycleCallbacks(new ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityStarted(Activity activity) {
+                startedActivities++;
+            }
+
+            @Override
+            public void onActivityStopped(Activity activity) {
+                startedActivities--;
+                if (startedActivities == 0) {
+                    ServiceRegistry.get(WaterChampApplication.this).getConsumoRepository().flushPendingSync();
+                }
+            }
+
+            @Override
+            public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+
+            @Override
+            public void onActivityResumed(Activity activity) {}
+
+            @Override
+            public void onActivityPaused(Activity activity) {}
+
+            @Override
+            public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
 
-        // Inicializar Supabase Client
-        try {
-            SupabaseClient.INSTANCE.initialize(this);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+            @Override
+            public void onActivityDestroyed(Activity activity) {}
+        });
+        StartupTrace.mark("Application.onCreate (restante)");
     }
 }
@@ -2,6 +2,7 @@ package com.example.waterchamp.controller;
 
 import android.content.Context;
 import android.text.TextUtils;
+import com.example.waterchamp.data.ServiceRegistry;
 import com.example.waterchamp.data.repository.UserRepository;
 import com.example.waterchamp.model.User;
 
@@ -11,7 +12,7 @@ public class CadastroController {
 
     public CadastroController(CadastroView view, Context context) {
         this.view = view;
-        this.userRepository = new UserRepository(context);
+        this.userRepository = ServiceRegistry.get(context).getUserRepository();
     }
 
     public void validarCadastro(String nome, String userEmail, String userSenha, String userConfirmarSenha) {
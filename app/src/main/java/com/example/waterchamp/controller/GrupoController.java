@@ -2,8 +2,10 @@ package com.example.waterchamp.controller;
 
 import android.content.Context;
 
+import com.example.waterchamp.data.ServiceRegistry;
 import com.example.waterchamp.data.repository.GrupoRepository;
 import com.example.waterchamp.model.Group;
+import com.example.waterchamp.utils.RequestScope;
 
 import java.util.List;
 
@@ -15,6 +17,7 @@ public class GrupoController {
 
     private GrupoView view;
     private GrupoRepository grupoRepository;
+    private final RequestScope requestScope = new RequestScope("GrupoController");
 
     public interface GrupoView {
         void showGroups(List<Group> groups);
@@ -26,7 +29,7 @@ public class GrupoController {
 
     public GrupoController(GrupoView view, Context context) {
         this.view = view;
-        this.grupoRepository = new GrupoRepository(context);
+        this.grupoRepository = ServiceRegistry.get(context).getGrupoRepository();
     }
 
     /**
@@ -34,21 +37,31 @@ public class GrupoController {
      */
     public void loadUserGroups() {
         view.showLoading();
-        grupoRepository.getUserGroups(new GrupoRepository.GruposCallback() {
-            @Override
-            public void onSuccess(List<Group> groups) {
-                view.hideLoading();
-                view.showGroups(groups);
-            }
+        requestScope.run(() ->
+            grupoRepository.getUserGroups(new GrupoRepository.GruposCallback() {
+                @Override
+                public void onSuccess(List<Group> groups) {
+                    view.hideLoading();
+                    view.showGroups(groups);
+                }
+
+                @Override
+                public void onError(String message) {
+                    view.hideLoading();
+                    view.showError(message);
+                    // Mostrar lista vazia em caso de erro
+                    view.showGroups(null);
+                }
+            })
+        );
+    }
 
-            @Override
-            public void onError(String message) {
-                view.hideLoading();
-                view.showError(message);
-                // Mostrar lista vazia em caso de erro
-                view.showGroups(null);
-            }
-        });
+    /**
+     * Cancelar o carregamento de grupos em andamento (view destruída)
+     * Operações iniciadas pelo usuário (criar, entrar, sair) não são canceladas
+     */
+    public void cancelRequests() {
+        requestScope.cancel();
     }
 
     /**
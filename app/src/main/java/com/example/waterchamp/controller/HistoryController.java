@@ -1,10 +1,10 @@
 package com.example.waterchamp.controller;
 
 import android.content.Context;
+import com.example.waterchamp.data.ServiceRegistry;
 import com.example.waterchamp.data.repository.ConsumoRepository;
+import com.example.waterchamp.event.HistoryUpdateEvent;
 import com.example.waterchamp.model.HistoryRecord;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class HistoryController {
@@ -12,15 +12,40 @@ public class HistoryController {
     private ConsumoRepository consumoRepository;
 
     public HistoryController(HistoryView view, Context context) {
+        this(view, ServiceRegistry.get(context).getConsumoRepository());
+    }
+
+    HistoryController(HistoryView view, ConsumoRepository consumoRepository) {
         this.view = view;
-        this.consumoRepository = new ConsumoRepository(context);
+        this.consumoRepository = consumoRepository;
     }
 
     public void updateHistory() {
-        // Carregar histórico de hoje do cache local
-        List<HistoryRecord> historyList = new ArrayList<>(consumoRepository.getTodayHistory());
-        Collections.reverse(historyList); // Show newest first
-        view.displayHistory(historyList);
+        // Carregar histórico de hoje do cache local (em ordem cronológica; a tela mostra o mais novo primeiro)
+        view.displayHistory(consumoRepository.getTodayHistory());
+    }
+
+    /**
+     * Aplicar só a mudança descrita pelo evento (O(1), independente de quantos registros o dia tem)
+     * Se a tela não conseguir aplicar (ex.: recarga em andamento), recarrega o histórico
+     */
+    public void applyHistoryChange(HistoryUpdateEvent event) {
+        if (!event.isIncremental()) {
+            updateHistory();
+            return;
+        }
+
+        boolean applied = true;
+        if (event.removed != null) {
+            applied = view.removeFromTop(event.removed);
+        }
+        if (applied && event.added != null) {
+            applied = view.addToTop(event.added);
+        }
+
+        if (!applied) {
+            updateHistory();
+        }
     }
 
     /**
@@ -33,5 +58,7 @@ public class HistoryController {
 
     public interface HistoryView {
         void displayHistory(List<HistoryRecord> historyList);
+        boolean addToTop(HistoryRecord record);
+        boolean removeFromTop(HistoryRecord record);
     }
 }
@@ -1,23 +1,33 @@
 package com.example.waterchamp.controller;
 
 import android.content.Context;
-import android.util.Log;
+import com.example.waterchamp.data.ServiceRegistry;
+import com.example.waterchamp.data.local.PreferencesManager;
+import com.example.waterchamp.data.local.ScreenSnapshotStore;
 import com.example.waterchamp.data.repository.ConsumoRepository;
 import com.example.waterchamp.data.repository.UserRepository;
 import com.example.waterchamp.event.HistoryUpdateEvent;
 import com.example.waterchamp.model.HistoryRecord;
 import com.example.waterchamp.model.UserDatabase;
+import com.example.waterchamp.utils.Logger;
+import com.example.waterchamp.utils.RequestScope;
 import org.greenrobot.eventbus.EventBus;
 
 public class HomeController {
     private HomeView view;
     private ConsumoRepository consumoRepository;
     private UserRepository userRepository;
+    private PreferencesManager preferencesManager;
+    private ScreenSnapshotStore snapshotStore;
+    private final RequestScope requestScope = new RequestScope("HomeController");
 
     public HomeController(HomeView view, Context context) {
         this.view = view;
-        this.consumoRepository = new ConsumoRepository(context);
-        this.userRepository = new UserRepository(context);
+        ServiceRegistry registry = ServiceRegistry.get(context);
+        this.consumoRepository = registry.getConsumoRepository();
+        this.userRepository = registry.getUserRepository();
+        this.preferencesManager = registry.getPreferencesManager();
+        this.snapshotStore = registry.getSnapshotStore();
     }
 
     public void addWater(int amount) {
@@ -25,10 +35,10 @@ public class HomeController {
             int currentWaterIntake = UserDatabase.currentUser.getWaterIntake();
             int newIntake = currentWaterIntake + amount;
 
-            Log.d("HomeController", "addWater() - Antes: " + currentWaterIntake + "ml, Adicionando: " + amount + "ml, Depois: " + newIntake + "ml");
+            Logger.d("HomeController", "addWater() - Antes: {}ml, Adicionando: {}ml, Depois: {}ml", currentWaterIntake, amount, newIntake);
 
             // Adicionar água usando o repository (salva local + sincroniza com servidor)
-            consumoRepository.addWater(amount);
+            HistoryRecord record = consumoRepository.addWater(amount);
 
             // Atualizar UserDatabase para compatibilidade
             UserDatabase.currentUser.setWaterIntake(newIntake);
@@ -37,10 +47,10 @@ public class HomeController {
             view.animateProgress(currentWaterIntake, newIntake);
             view.updateUI();
 
-            Log.d("HomeController", "addWater() - Valor final no UserDatabase: " + UserDatabase.currentUser.getWaterIntake() + "ml");
+            Logger.d("HomeController", "addWater() - Valor final no UserDatabase: {}ml", UserDatabase.currentUser.getWaterIntake());
 
             // Disparar evento para atualizar histórico em tempo real
-            EventBus.getDefault().post(new HistoryUpdateEvent(amount));
+            EventBus.getDefault().post(new HistoryUpdateEvent(amount, null, record));
         }
     }
 
@@ -66,7 +76,8 @@ public class HomeController {
                 view.updateUI();
 
                 // Disparar evento para atualizar histórico em tempo real
-                EventBus.getDefault().post(new HistoryUpdateEvent(-removed.getAmount()));
+                // O desfazer tira o último registro e grava o registro inverso no topo
+                EventBus.getDefault().post(new HistoryUpdateEvent(-removed.getAmount(), removed, consumoRepository.getLastRecord()));
             }
         } else {
             view.showToast("Nada para desfazer!");
@@ -78,12 +89,57 @@ public class HomeController {
         if (UserDatabase.currentUser != null) {
             int todayTotal = consumoRepository.getTodayTotal();
             UserDatabase.currentUser.setWaterIntake(todayTotal);
+
+            // Guardar para a próxima abertura
+            snapshotStore.saveHome(preferencesManager.getUserId(), todayTotal,
+                UserDatabase.currentUser.getDailyGoal(), UserDatabase.currentUser.getDefaultCupSize());
         }
         view.updateUI();
     }
 
+    // ============ Snapshot ============
+
+    /**
+     * Mostrar na hora o último estado gravado da tela inicial (mesmo usuário, hoje)
+     * Chamado na criação da tela; updateUI() e refresh() depois conferem com o cache local e o servidor
+     */
+    public void showSnapshot() {
+        ScreenSnapshotStore.HomeSnapshot snapshot = snapshotStore.getHome(preferencesManager.getUserId());
+        if (snapshot != null) {
+            view.showHomeState(snapshot.getWaterIntake(), snapshot.getDailyGoal(), snapshot.getDefaultCupSize());
+        }
+    }
+
+    /**
+     * Buscar em background o consumo alterado no servidor (ex.: registrado em outro aparelho)
+     * e atualizar a tela se algo mudou
+     */
+    public void refresh() {
+        requestScope.run(() ->
+            consumoRepository.pullConsumptionChanges(new ConsumoRepository.SyncCallback() {
+                @Override
+                public void onSuccess() {
+                    updateUI();
+                }
+
+                @Override
+                public void onError(String message) {
+                    Logger.d("HomeController", "refresh() - Mantendo dados locais: {}", message);
+                }
+            })
+        );
+    }
+
+    /**
+     * Cancelar a sincronização em andamento (view destruída)
+     */
+    public void cancelRequests() {
+        requestScope.cancel();
+    }
+
     public interface HomeView {
         void updateUI();
+        void showHomeState(int waterIntake, int dailyGoal, int defaultCupSize);
         void animateProgress(int from, int to);
         void showToast(String message);
         void showCustomAmountDialog();
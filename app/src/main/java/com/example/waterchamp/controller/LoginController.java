@@ -1,6 +1,7 @@
 package com.example.waterchamp.controller;
 
 import android.content.Context;
+import com.example.waterchamp.data.ServiceRegistry;
 import com.example.waterchamp.data.repository.UserRepository;
 import com.example.waterchamp.model.User;
 import com.example.waterchamp.model.UserDatabase;
@@ -11,7 +12,7 @@ public class LoginController {
 
     public LoginController(LoginView view, Context context) {
         this.view = view;
-        this.userRepository = new UserRepository(context);
+        this.userRepository = ServiceRegistry.get(context).getUserRepository();
     }
 
     public void validateLogin(String email, String senha) {
@@ -3,23 +3,35 @@ package com.example.waterchamp.controller;
 import android.content.Context;
 import android.net.Uri;
 import android.text.TextUtils;
+import com.example.waterchamp.data.ServiceRegistry;
 import com.example.waterchamp.data.local.PreferencesManager;
+import com.example.waterchamp.data.local.ScreenSnapshotStore;
+import com.example.waterchamp.data.repository.ConsumoRepository;
 import com.example.waterchamp.model.User;
 import com.example.waterchamp.model.UserDatabase;
+import com.example.waterchamp.utils.Logger;
+import com.example.waterchamp.utils.RequestScope;
 
 public class ProfileController {
     private ProfileView view;
     private PreferencesManager preferencesManager;
+    private ConsumoRepository consumoRepository;
+    private ScreenSnapshotStore snapshotStore;
+    private final RequestScope requestScope = new RequestScope("ProfileController");
 
     public ProfileController(ProfileView view, Context context) {
         this.view = view;
-        this.preferencesManager = new PreferencesManager(context);
+        this.preferencesManager = ServiceRegistry.get(context).getPreferencesManager();
+        this.consumoRepository = ServiceRegistry.get(context).getConsumoRepository();
+        this.snapshotStore = ServiceRegistry.get(context).getSnapshotStore();
     }
 
     // Constructor antigo para compatibilidade
     public ProfileController(ProfileView view) {
         this.view = view;
         this.preferencesManager = null;
+        this.consumoRepository = null;
+        this.snapshotStore = null;
     }
 
     public void loadUserData() {
@@ -57,8 +69,47 @@ public class ProfileController {
             long average = total / daysSinceCreation;
             view.setAverage(average + " ml");
 
+            loadStreak(user);
+        }
+    }
+
+    /**
+     * Sequência calculada localmente (O(1)), sem baixar o histórico
+     * Antes da primeira sincronização o histórico local está vazio (instalação nova, logout):
+     * mostra carregando e espera as alterações do servidor em vez de exibir 0
+     */
+    private void loadStreak(User user) {
+        if (consumoRepository == null) {
             view.setStreak(user.getStreak() + " 🔥");
+            return;
+        }
+        if (consumoRepository.hasPulledChanges()) {
+            view.setStreak(consumoRepository.getCurrentStreak() + " 🔥");
+            return;
         }
+
+        view.setStreak("…");
+        requestScope.run(() ->
+            consumoRepository.calculateStreak(new ConsumoRepository.StreakCallback() {
+                @Override
+                public void onSuccess(int streak) {
+                    view.setStreak(streak + " 🔥");
+                }
+
+                @Override
+                public void onError(String message) {
+                    Logger.d("ProfileController", "loadStreak() - Usando sequência local: {}", message);
+                    view.setStreak(consumoRepository.getCurrentStreak() + " 🔥");
+                }
+            })
+        );
+    }
+
+    /**
+     * Cancelar a sincronização em andamento (view destruída)
+     */
+    public void cancelRequests() {
+        requestScope.cancel();
     }
 
     public void saveUserData(String newName, String newPass, String newGoalStr, String newCupStr, boolean notificationsEnabled, Uri selectedImageUri) {
@@ -125,6 +176,19 @@ public class ProfileController {
     }
 
     public void logout() {
+        // Enviar consumo pendente antes de sair
+        if (consumoRepository != null) {
+            consumoRepository.flushPendingSync();
+        }
+
+        // A próxima abertura não deve mostrar as telas nem o histórico deste usuário
+        if (snapshotStore != null) {
+            snapshotStore.clear();
+        }
+        if (consumoRepository != null) {
+            consumoRepository.clearLocalData();
+        }
+
         UserDatabase.currentUser = null;
         view.navigateToLogin();
     }
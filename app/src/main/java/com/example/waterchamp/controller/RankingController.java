@@ -1,136 +1,351 @@
 package com.example.waterchamp.controller;
 
 import android.content.Context;
+import com.example.waterchamp.data.ServiceRegistry;
+import com.example.waterchamp.data.local.ScreenSnapshotStore;
 import com.example.waterchamp.data.repository.RankingRepository;
+import com.example.waterchamp.model.RankingModel;
 import com.example.waterchamp.model.User;
 import com.example.waterchamp.model.UserDatabase;
+import com.example.waterchamp.utils.Logger;
+import com.example.waterchamp.utils.RequestScope;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 public class RankingController {
+    private static final int MODE_DAILY = 0;
+    private static final int MODE_GROUP = 1;
+    private static final int MODE_GLOBAL = 2;
+
+    private static final int RANKING_LIMIT = 100;
+
     private RankingView view;
     private RankingRepository rankingRepository;
+    private ScreenSnapshotStore snapshotStore;
+    private final RequestScope requestScope = new RequestScope("RankingController");
+
+    // Ranking exibido, atualizado de forma incremental (polling e tempo real)
+    private final RankingModel rankingModel = new RankingModel();
+    private boolean rankingLive = false; // false: tela mostra fallback local, nada a atualizar
+    private int displayedMode = MODE_DAILY;
+    private boolean showingSnapshot = false; // Tela mostra o último ranking gravado, aguardando o servidor
 
     public RankingController(RankingView view, Context context) {
         this.view = view;
-        this.rankingRepository = new RankingRepository(context);
+        ServiceRegistry registry = ServiceRegistry.get(context);
+        this.rankingRepository = registry.getRankingRepository();
+        this.snapshotStore = registry.getSnapshotStore();
     }
 
     public void updateRanking() {
+        showSnapshot(MODE_DAILY);
+
         // Buscar ranking diário do servidor
-        rankingRepository.getDailyRanking(100, new RankingRepository.RankingCallback() {
-            @Override
-            public void onSuccess(List<User> users) {
-                // Atribuir ranks
-                for (int i = 0; i < users.size(); i++) {
-                    users.get(i).setRank(i + 1);
-                }
+        requestScope.run(() ->
+            rankingRepository.getDailyRanking(RANKING_LIMIT, new RankingRepository.RankingCallback() {
+                @Override
+                public void onSuccess(List<User> users) {
+                    // Atualizar UserDatabase para compatibilidade (cache local)
+                    UserDatabase.usersList.clear();
+                    UserDatabase.usersList.addAll(users);
 
-                // Atualizar UserDatabase para compatibilidade (cache local)
-                UserDatabase.usersList.clear();
-                UserDatabase.usersList.addAll(users);
-
-                // Ensure current user is in the list
-                if (UserDatabase.currentUser != null) {
-                    boolean found = false;
-                    for (int i = 0; i < users.size(); i++) {
-                        if (users.get(i).getEmail().equals(UserDatabase.currentUser.getEmail())) {
-                            found = true;
-                            break;
+                    // Ensure current user is in the list
+                    if (UserDatabase.currentUser != null) {
+                        boolean found = false;
+                        for (int i = 0; i < users.size(); i++) {
+                            if (users.get(i).getId() == UserDatabase.currentUser.getId()
+                                || users.get(i).getEmail().equals(UserDatabase.currentUser.getEmail())) {
+                                found = true;
+                                break;
+                            }
+                        }
+                        if (!found) {
+                            users.add(UserDatabase.currentUser);
                         }
                     }
-                    if (!found) {
-                        users.add(UserDatabase.currentUser);
-                    }
+
+                    showRanking(MODE_DAILY, users);
                 }
 
-                view.displayRanking(users);
-            }
+                @Override
+                public void onError(String message) {
+                    if (keepSnapshot(MODE_DAILY)) {
+                        view.showError("Erro ao atualizar ranking: " + message);
+                        return;
+                    }
 
-            @Override
-            public void onError(String message) {
-                // Em caso de erro, usar dados locais (fallback)
-                List<User> rankingList = new ArrayList<>(UserDatabase.usersList);
+                    // Em caso de erro, usar dados locais (fallback)
+                    List<User> rankingList = new ArrayList<>(UserDatabase.usersList);
 
-                if (UserDatabase.currentUser != null) {
-                    boolean found = false;
-                    for (int i = 0; i < rankingList.size(); i++) {
-                        if (rankingList.get(i).getEmail().equals(UserDatabase.currentUser.getEmail())) {
-                            rankingList.set(i, UserDatabase.currentUser);
-                            found = true;
-                            break;
+                    if (UserDatabase.currentUser != null) {
+                        boolean found = false;
+                        for (int i = 0; i < rankingList.size(); i++) {
+                            if (rankingList.get(i).getEmail().equals(UserDatabase.currentUser.getEmail())) {
+                                rankingList.set(i, UserDatabase.currentUser);
+                                found = true;
+                                break;
+                            }
+                        }
+                        if (!found) {
+                            rankingList.add(UserDatabase.currentUser);
                         }
                     }
-                    if (!found) {
-                        rankingList.add(UserDatabase.currentUser);
+
+                    Collections.sort(rankingList);
+                    for (int i = 0; i < rankingList.size(); i++) {
+                        rankingList.get(i).setRank(i + 1);
                     }
-                }
 
-                Collections.sort(rankingList);
-                for (int i = 0; i < rankingList.size(); i++) {
-                    rankingList.get(i).setRank(i + 1);
+                    rankingLive = false;
+                    showingSnapshot = false;
+                    view.displayRanking(rankingList);
+                    view.showError("Erro ao carregar ranking: " + message);
                 }
-
-                view.displayRanking(rankingList);
-                view.showError("Erro ao carregar ranking: " + message);
-            }
-        });
+            })
+        );
     }
 
     /**
      * Carregar ranking do grupo do usuário logado
      */
     public void updateGroupRanking() {
-        rankingRepository.getUserGroupRanking(new RankingRepository.RankingCallback() {
-            @Override
-            public void onSuccess(List<User> users) {
-                if (users == null || users.isEmpty()) {
-                    view.displayRanking(new ArrayList<>());
-                    return;
+        showSnapshot(MODE_GROUP);
+
+        requestScope.run(() ->
+            rankingRepository.getUserGroupRanking(new RankingRepository.RankingCallback() {
+                @Override
+                public void onSuccess(List<User> users) {
+                    if (users == null || users.isEmpty()) {
+                        showRanking(MODE_GROUP, new ArrayList<>());
+                        return;
+                    }
+
+                    showRanking(MODE_GROUP, users);
                 }
 
-                view.displayRanking(users);
-            }
+                @Override
+                public void onError(String message) {
+                    if (keepSnapshot(MODE_GROUP)) {
+                        view.showError("Erro ao atualizar ranking do grupo: " + message);
+                        return;
+                    }
 
-            @Override
-            public void onError(String message) {
-                view.displayRanking(new ArrayList<>());
-                view.showError("Erro ao carregar ranking do grupo: " + message);
-            }
-        });
+                    rankingLive = false;
+                    showingSnapshot = false;
+                    view.displayRanking(new ArrayList<>());
+                    view.showError("Erro ao carregar ranking do grupo: " + message);
+                }
+            })
+        );
     }
 
     /**
      * Carregar ranking global (últimos 30 dias)
      */
     public void updateGlobalRanking() {
-        rankingRepository.getGlobalRanking(100, new RankingRepository.RankingCallback() {
-            @Override
-            public void onSuccess(List<User> users) {
-                if (users == null || users.isEmpty()) {
-                    view.displayRanking(new ArrayList<>());
-                    return;
+        showSnapshot(MODE_GLOBAL);
+
+        requestScope.run(() ->
+            rankingRepository.getGlobalRanking(RANKING_LIMIT, new RankingRepository.RankingCallback() {
+                @Override
+                public void onSuccess(List<User> users) {
+                    if (users == null || users.isEmpty()) {
+                        showRanking(MODE_GLOBAL, new ArrayList<>());
+                        return;
+                    }
+
+                    showRanking(MODE_GLOBAL, users);
                 }
 
-                // Atribuir ranks
-                for (int i = 0; i < users.size(); i++) {
-                    users.get(i).setRank(i + 1);
+                @Override
+                public void onError(String message) {
+                    if (keepSnapshot(MODE_GLOBAL)) {
+                        view.showError("Erro ao atualizar ranking global: " + message);
+                        return;
+                    }
+
+                    rankingLive = false;
+                    showingSnapshot = false;
+                    view.displayRanking(new ArrayList<>());
+                    view.showError("Erro ao carregar ranking global: " + message);
                 }
+            })
+        );
+    }
+
+    // ============ Snapshot ============
 
-                view.displayRanking(users);
+    /**
+     * Mostrar na hora o último ranking gravado da aba, se a tela ainda não tem nada dela
+     * O ranking do servidor chega depois e é aplicado por diferença sobre o snapshot
+     */
+    private void showSnapshot(int mode) {
+        if (mode == displayedMode && (rankingLive || showingSnapshot)) {
+            return; // A aba já está na tela
+        }
+
+        // Rankings do consumo de hoje não valem no dia seguinte; o global (30 dias) ainda é uma boa aproximação
+        List<User> users = snapshotStore.getRanking(rankingRepository.getCurrentUserId(), tabKey(mode), mode != MODE_GLOBAL);
+        if (users == null || users.isEmpty()) {
+            return;
+        }
+
+        rankingModel.clear();
+        displayedMode = mode;
+        rankingLive = false;
+        showingSnapshot = true;
+        view.applyRankingChanges(rankingModel.getEntries(), rankingModel.replaceAll(users));
+    }
+
+    /**
+     * Em erro na aba que mostra o snapshot, manter o snapshot em vez de trocar por lista vazia
+     */
+    private boolean keepSnapshot(int mode) {
+        return showingSnapshot && displayedMode == mode;
+    }
+
+    /**
+     * true enquanto a tela mostra o snapshot (dados do servidor ainda não chegaram)
+     */
+    public boolean isShowingSnapshot() {
+        return showingSnapshot;
+    }
+
+    private static String tabKey(int mode) {
+        switch (mode) {
+            case MODE_GROUP:
+                return ScreenSnapshotStore.TAB_GROUP;
+            case MODE_GLOBAL:
+                return ScreenSnapshotStore.TAB_GLOBAL;
+            default:
+                return ScreenSnapshotStore.TAB_DAILY;
+        }
+    }
+
+    // ============ Realtime ============
+
+    /**
+     * Aplicar no ranking exibido a mudança de consumo de um usuário (recebida em tempo real)
+     * Só a linha do usuário muda; o ranking só é buscado de novo quando não dá para calcular localmente
+     * @param previousMl total anterior do dia, ou null se o servidor não enviou a linha antiga
+     */
+    public void applyConsumptionChange(int usuarioId, String data, int totalMl, Integer previousMl) {
+        if (!rankingLive || usuarioId == rankingRepository.getCurrentUserId()) {
+            return; // Nada exibido ainda, ou é o usuário atual (que usa o cache local)
+        }
+
+        boolean isToday = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date()).equals(data);
+        if (displayedMode != MODE_GLOBAL && !isToday) {
+            return; // Rankings diários só dependem de hoje
+        }
+
+        User changed = rankingModel.findById(usuarioId);
+        if (changed == null) {
+            // Fora da lista: no grupo, não é membro; nos demais, só recarrega se o usuário puder entrar na lista
+            if (displayedMode != MODE_GROUP && canEnterRanking(totalMl)) {
+                refresh();
             }
+            return;
+        }
 
-            @Override
-            public void onError(String message) {
-                view.displayRanking(new ArrayList<>());
-                view.showError("Erro ao carregar ranking global: " + message);
+        int newIntake;
+        if (displayedMode == MODE_GLOBAL) {
+            if (previousMl == null) {
+                refresh(); // Sem o total antigo não dá para calcular a diferença
+                return;
             }
-        });
+            newIntake = changed.getWaterIntake() + totalMl - previousMl;
+        } else {
+            newIntake = totalMl;
+        }
+
+        Logger.d("RankingController", "applyConsumptionChange() - Usuário {}: {}ml -> {}ml", usuarioId, changed.getWaterIntake(), newIntake);
+        RankingModel.ChangeSet changes = rankingModel.update(usuarioId, newIntake);
+        if (!changes.isEmpty()) {
+            view.applyRankingChanges(rankingModel.getEntries(), changes);
+        }
+    }
+
+    /**
+     * Usuários cujas mudanças interessam à lista exibida (filtro do Realtime)
+     * O usuário atual fica de fora: o consumo dele vem do cache local
+     */
+    public List<Integer> getWatchedUserIds() {
+        if (!rankingLive) {
+            return Collections.emptyList();
+        }
+
+        int currentUserId = rankingRepository.getCurrentUserId();
+        List<Integer> ids = new ArrayList<>(rankingModel.size());
+        for (User user : rankingModel.getEntries()) {
+            if (user.getId() != currentUserId) {
+                ids.add(user.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Buscar de novo o ranking exibido
+     */
+    public void refresh() {
+        switch (displayedMode) {
+            case MODE_GROUP:
+                updateGroupRanking();
+                break;
+            case MODE_GLOBAL:
+                updateGlobalRanking();
+                break;
+            default:
+                updateRanking();
+                break;
+        }
+    }
+
+    private boolean canEnterRanking(int totalMl) {
+        if (rankingModel.size() < RANKING_LIMIT) {
+            return true;
+        }
+        // No global, o total de 30 dias de quem está fora da lista é desconhecido
+        return displayedMode == MODE_DAILY
+            && totalMl > rankingModel.get(rankingModel.size() - 1).getWaterIntake();
+    }
+
+    /**
+     * Aplicar o ranking recebido no modelo; a tela recebe só o que mudou
+     */
+    private void showRanking(int mode, List<User> users) {
+        if (mode != displayedMode || !(rankingLive || showingSnapshot)) {
+            // Outra aba (ou saindo do fallback): começa do zero
+            // Sobre o snapshot da mesma aba, só as linhas que mudaram desde a última abertura são atualizadas
+            rankingModel.clear();
+        }
+        displayedMode = mode;
+        rankingLive = true;
+        showingSnapshot = false;
+
+        // Mesmo sem mudanças a tela é avisada (ex.: encerrar o pull-to-refresh)
+        view.applyRankingChanges(rankingModel.getEntries(), rankingModel.replaceAll(users));
+
+        // Guardar para a próxima abertura
+        snapshotStore.saveRanking(rankingRepository.getCurrentUserId(), tabKey(mode), rankingModel.getEntries());
+    }
+
+    /**
+     * Cancelar as requisições de ranking em andamento (tela saiu de vista)
+     */
+    public void cancelRequests() {
+        requestScope.cancel();
+        Logger.d("RankingController", "cancelRequests() - leituras compartilhadas: {}", rankingRepository.getSharedRequestRate());
     }
 
     public interface RankingView {
         void displayRanking(List<User> rankingList);
+        void applyRankingChanges(List<User> rankingList, RankingModel.ChangeSet changes);
         void showError(String message);
     }
 }
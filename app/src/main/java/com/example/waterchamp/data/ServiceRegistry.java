@@ -0,0 +1,178 @@
+package com.example.waterchamp.data;
+
+import android.content.Context;
+
+import com.example.waterchamp.data.local.HistoryCache;
+import com.example.waterchamp.data.local.PreferencesManager;
+import com.example.waterchamp.data.local.ScreenSnapshotStore;
+import com.example.waterchamp.data.remote.ConsumoService;
+import com.example.waterchamp.data.remote.GrupoService;
+import com.example.waterchamp.data.remote.RankingService;
+import com.example.waterchamp.data.remote.UserService;
+import com.example.waterchamp.data.repository.ConsumoRepository;
+import com.example.waterchamp.data.repository.GrupoRepository;
+import com.example.waterchamp.data.repository.RankingRepository;
+import com.example.waterchamp.data.repository.UserRepository;
+import com.example.waterchamp.data.sync.SyncOutbox;
+
+/**
+ * Registro de serviços com escopo de aplicação
+ * Entrega instâncias únicas (criadas sob demanda) de serviços remotos, caches locais e repositories,
+ * para que recriar fragments/controllers não aloque nem reabra nada
+ *
+ * Uso:
+ * ServiceRegistry.get(context).getConsumoRepository();
+ */
+public final class ServiceRegistry {
+
+    private static volatile ServiceRegistry instance;
+
+    private final Context appContext;
+
+    // Local
+    private PreferencesManager preferencesManager;
+    private HistoryCache historyCache;
+    private SyncOutbox syncOutbox;
+    private ScreenSnapshotStore snapshotStore;
+
+    // Remote
+    private ConsumoService consumoService;
+    private GrupoService grupoService;
+    private RankingService rankingService;
+    private UserService userService;
+
+    // Repositories
+    private ConsumoRepository consumoRepository;
+    private GrupoRepository grupoRepository;
+    private RankingRepository rankingRepository;
+    private UserRepository userRepository;
+
+    /**
+     * Fora do singleton (benchmarks); no app use {@link #get(Context)}
+     */
+    ServiceRegistry(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    /**
+     * Inicializa o registro (chamado em WaterChampApplication.onCreate)
+     */
+    public static void init(Context context) {
+        get(context);
+    }
+
+    public static ServiceRegistry get(Context context) {
+        if (instance == null) {
+            synchronized (ServiceRegistry.class) {
+                if (instance == null) {
+                    instance = new ServiceRegistry(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    // ============ Local ============
+
+    public synchronized PreferencesManager getPreferencesManager() {
+        if (preferencesManager == null) {
+            preferencesManager = new PreferencesManager(appContext);
+        }
+        return preferencesManager;
+    }
+
+    public synchronized HistoryCache getHistoryCache() {
+        if (historyCache == null) {
+            historyCache = new HistoryCache(appContext);
+        }
+        return historyCache;
+    }
+
+    public synchronized SyncOutbox getSyncOutbox() {
+        if (syncOutbox == null) {
+            syncOutbox = new SyncOutbox(appContext);
+        }
+        return syncOutbox;
+    }
+
+    public synchronized ScreenSnapshotStore getSnapshotStore() {
+        if (snapshotStore == null) {
+            snapshotStore = new ScreenSnapshotStore(appContext);
+        }
+        return snapshotStore;
+    }
+
+    // ============ Remote ============
+
+    public synchronized ConsumoService getConsumoService() {
+        if (consumoService == null) {
+            consumoService = new ConsumoService();
+        }
+        return consumoService;
+    }
+
+    public synchronized GrupoService getGrupoService() {
+        if (grupoService == null) {
+            grupoService = new GrupoService();
+        }
+        return grupoService;
+    }
+
+    public synchronized RankingService getRankingService() {
+        if (rankingService == null) {
+            rankingService = new RankingService();
+        }
+        return rankingService;
+    }
+
+    public synchronized UserService getUserService() {
+        if (userService == null) {
+            userService = new UserService();
+        }
+        return userService;
+    }
+
+    // ============ Repositories ============
+
+    public synchronized ConsumoRepository getConsumoRepository() {
+        if (consumoRepository == null) {
+            consumoRepository = new ConsumoRepository(
+                getConsumoService(),
+                getHistoryCache(),
+                getPreferencesManager(),
+                getSyncOutbox()
+            );
+        }
+        return consumoRepository;
+    }
+
+    public synchronized GrupoRepository getGrupoRepository() {
+        if (grupoRepository == null) {
+            grupoRepository = new GrupoRepository(getGrupoService(), getPreferencesManager());
+        }
+        return grupoRepository;
+    }
+
+    public synchronized RankingRepository getRankingRepository() {
+        if (rankingRepository == null) {
+            rankingRepository = new RankingRepository(
+                getRankingService(),
+                getPreferencesManager(),
+                getGrupoRepository(),
+                getHistoryCache()
+            );
+        }
+        return rankingRepository;
+    }
+
+    public synchronized UserRepository getUserRepository() {
+        if (userRepository == null) {
+            userRepository = new UserRepository(
+                getUserService(),
+                getPreferencesManager(),
+                getConsumoRepository()
+            );
+        }
+        return userRepository;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.waterchamp.data.local;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Índice dia (epoch-day) -> total consumido, limitado a uma janela de retenção
+ * Implementado como buffer circular: cada dia ocupa o slot (dia % retenção), então consultas
+ * e atualizações são O(1) e dias fora da janela são descartados automaticamente
+ */
+class DailyTotalsIndex {
+    private static final int MAGIC = 0x57434454; // "WCDT"
+    private static final long NO_DAY = Long.MIN_VALUE;
+
+    private final File file;
+    private final int retentionDays;
+    private final long[] days;
+    private final int[] totals;
+
+    DailyTotalsIndex(File file, int retentionDays) {
+        this.file = file;
+        this.retentionDays = retentionDays;
+        this.days = new long[retentionDays];
+        this.totals = new int[retentionDays];
+        Arrays.fill(days, NO_DAY);
+    }
+
+    int getRetentionDays() {
+        return retentionDays;
+    }
+
+    void put(long day, int total) {
+        int slot = slot(day);
+        // Nunca sobrescrever um dia mais recente com um mais antigo
+        if (days[slot] != NO_DAY && days[slot] > day) {
+            return;
+        }
+        days[slot] = day;
+        totals[slot] = total;
+    }
+
+    /**
+     * Remover todos os dias (troca de usuário)
+     */
+    void clear() {
+        Arrays.fill(days, NO_DAY);
+        Arrays.fill(totals, 0);
+    }
+
+    boolean contains(long day) {
+        return days[slot(day)] == day;
+    }
+
+    /**
+     * Total de um dia ou 0 se o dia não estiver no índice
+     */
+    int get(long day) {
+        int slot = slot(day);
+        return days[slot] == day ? totals[slot] : 0;
+    }
+
+    /**
+     * Remover dias que saíram da janela de retenção em relação a {@code today}
+     */
+    void prune(long today) {
+        long oldest = today - retentionDays + 1;
+        for (int i = 0; i < days.length; i++) {
+            if (days[i] != NO_DAY && (days[i] < oldest || days[i] > today)) {
+                days[i] = NO_DAY;
+                totals[i] = 0;
+            }
+        }
+    }
+
+    void load() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long day = in.readLong();
+                int total = in.readInt();
+                put(day, total);
+            }
+        }
+    }
+
+    /**
+     * Serializar o índice em memória (chamado sob o lock do dono)
+     */
+    byte[] serialize() {
+        int count = 0;
+        for (long day : days) {
+            if (day != NO_DAY) {
+                count++;
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 + count * 12);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(count);
+            for (int i = 0; i < days.length; i++) {
+                if (days[i] != NO_DAY) {
+                    out.writeLong(days[i]);
+                    out.writeInt(totals[i]);
+                }
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream não lança IOException
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Persistir um índice serializado (escreve em arquivo temporário e renomeia)
+     */
+    void write(byte[] data) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Não foi possível criar " + parent);
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+        }
+
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Não foi possível substituir " + file);
+        }
+    }
+
+    private int slot(long day) {
+        return (int) Math.floorMod(day, (long) retentionDays);
+    }
+}
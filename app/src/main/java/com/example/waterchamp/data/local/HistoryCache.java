@@ -1,36 +1,44 @@
 package com.example.waterchamp.data.local;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import com.example.waterchamp.model.HistoryRecord;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 
 /**
  * Cache local para histórico detalhado de consumo de água
  * Mantém registros individuais (timestamp, quantidade, ação) para funcionalidade de undo
+ * Os registros ficam em um journal binário por dia (ver {@link HistoryJournal})
+ * Dias anteriores são compactados em totais diários (ver {@link DailyTotalsIndex})
+ *
+ * Todas as instâncias compartilham o mesmo modelo em memória do processo (ver {@link HistoryStore}),
+ * então criar várias instâncias é barato e elas enxergam sempre o mesmo estado
  */
 public class HistoryCache {
-    private static final String PREF_NAME = "WaterChampHistoryCache";
-    private static final String KEY_HISTORY_RECORDS = "history_records";
-    private static final String KEY_TODAY_TOTAL = "today_total";
-    private static final String KEY_TODAY_DATE = "today_date";
+    public static final int DEFAULT_RETENTION_DAYS = 400;
 
-    private final SharedPreferences prefs;
-    private final Gson gson;
-    private final SimpleDateFormat dateFormat;
+    // Quando ativo, cada escrita recalcula o total a partir dos registros e reporta divergências
+    private static volatile boolean verifyTotals = false;
+
+    private final HistoryStore store;
 
     public HistoryCache(Context context) {
-        this.prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        this.gson = new Gson();
-        this.dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        this(context, DEFAULT_RETENTION_DAYS);
+    }
+
+    /**
+     * @param retentionDays quantidade de dias mantidos localmente (incluindo hoje)
+     *                      Só tem efeito na primeira instância criada no processo
+     */
+    public HistoryCache(Context context, int retentionDays) {
+        this.store = HistoryStore.getInstance(context, retentionDays);
+    }
+
+    /**
+     * Ativar/desativar o modo de verificação do total incremental
+     */
+    public static void setVerifyTotals(boolean enabled) {
+        verifyTotals = enabled;
     }
 
     // ============ History Records ============
@@ -39,118 +47,134 @@ public class HistoryCache {
      * Adicionar registro ao histórico
      */
     public void addRecord(HistoryRecord record) {
-        List<HistoryRecord> records = getTodayRecords();
-        records.add(record);
-        saveRecords(records);
+        store.add(record);
 
-        // Atualizar total do dia
-        updateTodayTotal();
+        if (verifyTotals) {
+            store.verifyTodayTotal();
+        }
     }
 
     /**
      * Remover último registro (para undo)
      */
     public HistoryRecord removeLastRecord() {
-        List<HistoryRecord> records = getTodayRecords();
-        if (records.isEmpty()) {
-            return null;
-        }
+        HistoryRecord last = store.removeLast();
 
-        HistoryRecord last = records.remove(records.size() - 1);
-        saveRecords(records);
-
-        // Atualizar total do dia
-        updateTodayTotal();
+        if (last != null && verifyTotals) {
+            store.verifyTodayTotal();
+        }
 
         return last;
     }
 
     /**
      * Obter todos os registros de hoje
+     * A lista retornada é um snapshot imutável: não reflete escritas posteriores
      */
     public List<HistoryRecord> getTodayRecords() {
-        String today = dateFormat.format(new Date());
-        String savedDate = prefs.getString(KEY_TODAY_DATE, "");
-
-        // Se mudou de dia, limpar registros antigos
-        if (!today.equals(savedDate)) {
-            clearTodayRecords();
-            prefs.edit().putString(KEY_TODAY_DATE, today).apply();
-            return new ArrayList<>();
-        }
-
-        String json = prefs.getString(KEY_HISTORY_RECORDS, "[]");
-        Type listType = new TypeToken<ArrayList<HistoryRecord>>(){}.getType();
-        List<HistoryRecord> records = gson.fromJson(json, listType);
-
-        return records != null ? records : new ArrayList<>();
+        return store.getTodayRecords();
     }
 
     /**
-     * Salvar lista de registros
+     * Obter o último registro de hoje, ou null se não houver
      */
-    private void saveRecords(List<HistoryRecord> records) {
-        String json = gson.toJson(records);
-        prefs.edit().putString(KEY_HISTORY_RECORDS, json).apply();
+    public HistoryRecord getLastRecord() {
+        return store.getLastRecord();
     }
 
     /**
      * Limpar registros de hoje
      */
     public void clearTodayRecords() {
-        prefs.edit()
-            .putString(KEY_HISTORY_RECORDS, "[]")
-            .putInt(KEY_TODAY_TOTAL, 0)
-            .apply();
+        store.clearToday();
+    }
+
+    /**
+     * Apagar todo o histórico local (hoje, totais diários e sequência)
+     * O store é compartilhado pelo processo e não separa usuários: chamar ao sair ou ao trocar de conta
+     */
+    public void clear() {
+        store.clearAll();
     }
 
     // ============ Today's Total ============
 
     /**
-     * Atualizar total do dia baseado nos registros
+     * Recalcular o total a partir dos registros e comparar com o total incremental
+     * O total vindo de setTodayTotal() entra como base do dia, somada aos registros
+     * Divergências só são registradas no log: o total não é alterado
+     * @return divergência encontrada (total incremental - total recalculado)
      */
-    private void updateTodayTotal() {
-        List<HistoryRecord> records = getTodayRecords();
-        int total = 0;
+    public int verifyTodayTotal() {
+        return store.verifyTodayTotal();
+    }
 
-        for (HistoryRecord record : records) {
-            if ("Adicionado".equals(record.getAction())) {
-                total += record.getAmount();
-            } else if ("Removido".equals(record.getAction())) {
-                total -= record.getAmount();
-            }
-        }
+    /**
+     * Obter total consumido hoje
+     */
+    public int getTodayTotal() {
+        return store.getTodayTotal();
+    }
 
-        // Garantir que o total nunca seja negativo
-        total = Math.max(0, total);
+    /**
+     * Definir total do dia (usado ao sincronizar com servidor)
+     */
+    public void setTodayTotal(int total) {
+        store.setTodayTotal(total);
+    }
+
+    // ============ Daily Totals ============
 
-        prefs.edit().putInt(KEY_TODAY_TOTAL, total).apply();
+    /**
+     * Obter total consumido em um dia (epoch-day local)
+     * Hoje vem do journal; dias anteriores vêm do índice compactado
+     */
+    public int getDayTotal(long epochDay) {
+        return store.getDayTotal(epochDay);
     }
 
     /**
-     * Obter total consumido hoje
+     * Obter totais dos últimos N dias sem acessar a rede
+     * @return array onde a posição i contém o total de i dias atrás (0 = hoje)
      */
-    public int getTodayTotal() {
-        String today = dateFormat.format(new Date());
-        String savedDate = prefs.getString(KEY_TODAY_DATE, "");
+    public int[] getLastDaysTotals(int days) {
+        return store.getLastDaysTotals(days);
+    }
 
-        // Se mudou de dia, retornar 0
-        if (!today.equals(savedDate)) {
-            return 0;
-        }
+    /**
+     * Mesclar totais diários vindos do servidor (data yyyy-MM-dd -> total em ml)
+     * O dia de hoje é ignorado: o journal local é a fonte da verdade para ele
+     */
+    public void mergeDayTotals(Map<String, Integer> totalsByDate) {
+        store.mergeDayTotals(totalsByDate);
+    }
 
-        return prefs.getInt(KEY_TODAY_TOTAL, 0);
+    /**
+     * Dia de hoje como epoch-day local
+     */
+    public long getTodayEpochDay() {
+        return store.getTodayEpochDay();
     }
 
+    public int getRetentionDays() {
+        return store.getRetentionDays();
+    }
+
+    // ============ Streak ============
+
     /**
-     * Definir total do dia (usado ao sincronizar com servidor)
+     * Dias consecutivos atingindo a meta, até hoje: O(1)
+     * Mudanças de meta são detectadas na consulta e provocam uma reconstrução
      */
-    public void setTodayTotal(int total) {
-        String today = dateFormat.format(new Date());
-        prefs.edit()
-            .putInt(KEY_TODAY_TOTAL, total)
-            .putString(KEY_TODAY_DATE, today)
-            .apply();
+    public int getCurrentStreak(int dailyGoal) {
+        return store.getCurrentStreak(dailyGoal);
+    }
+
+    /**
+     * Maior sequência dentro do período mantido localmente: O(1)
+     */
+    public int getBestStreak(int dailyGoal) {
+        return store.getBestStreak(dailyGoal);
     }
 
     // ============ Utility ============
@@ -159,22 +183,21 @@ public class HistoryCache {
      * Verificar se há registros para desfazer
      */
     public boolean hasRecordsToUndo() {
-        return !getTodayRecords().isEmpty();
+        return store.getRecordCount() > 0;
     }
 
     /**
      * Obter número de registros hoje
      */
     public int getRecordCount() {
-        return getTodayRecords().size();
+        return store.getRecordCount();
     }
 
     /**
      * Verificar se já sincronizou hoje
+     * O store sempre mantém o dia atual em memória, então é verdadeiro após qualquer acesso
      */
     public boolean isTodaySynced() {
-        String today = dateFormat.format(new Date());
-        String savedDate = prefs.getString(KEY_TODAY_DATE, "");
-        return today.equals(savedDate);
+        return store.isTodaySynced();
     }
 }
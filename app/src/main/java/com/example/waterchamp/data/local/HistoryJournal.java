@@ -0,0 +1,204 @@
+package com.example.waterchamp.data.local;
+
+import com.example.waterchamp.model.HistoryRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Journal binário append-only dos registros de consumo, um arquivo por dia
+ * Cada registro ocupa RECORD_SIZE bytes: timestamp (long), quantidade (int) e ação (byte),
+ * de forma que adicionar ou desfazer custa O(1) independente do tamanho do dia
+ */
+class HistoryJournal {
+    static final int RECORD_SIZE = 13;
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final String FILE_PREFIX = "day-";
+    private static final String FILE_SUFFIX = ".bin";
+
+    private static final byte ACTION_UNKNOWN = 0;
+    private static final byte ACTION_ADDED = 1;
+    private static final byte ACTION_REMOVED = 2;
+
+    private final File dir;
+
+    HistoryJournal(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Dia (epoch-day no fuso local) de um instante
+     */
+    static long epochDay(long timeMillis) {
+        return Math.floorDiv(timeMillis + TimeZone.getDefault().getOffset(timeMillis), DAY_MILLIS);
+    }
+
+    /**
+     * Acrescentar um registro ao final do journal do dia
+     */
+    void append(long day, HistoryRecord record) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Não foi possível criar " + dir);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.putLong(record.getTimestamp());
+        buffer.putInt(record.getAmount());
+        buffer.put(encodeAction(record.getAction()));
+
+        try (RandomAccessFile file = new RandomAccessFile(fileFor(day), "rw")) {
+            // Descartar um registro parcial deixado por uma escrita interrompida
+            long length = validLength(file.length());
+            file.setLength(length);
+            file.seek(length);
+            file.write(buffer.array());
+        }
+    }
+
+    /**
+     * Remover o último registro do dia truncando o arquivo
+     * @return registro removido ou null se o dia estiver vazio
+     */
+    HistoryRecord removeLast(long day) throws IOException {
+        File journalFile = fileFor(day);
+        if (!journalFile.exists()) {
+            return null;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            long length = validLength(file.length());
+            if (length == 0) {
+                file.setLength(0);
+                return null;
+            }
+
+            byte[] bytes = new byte[RECORD_SIZE];
+            file.seek(length - RECORD_SIZE);
+            file.readFully(bytes);
+            file.setLength(length - RECORD_SIZE);
+            return decode(ByteBuffer.wrap(bytes));
+        }
+    }
+
+    /**
+     * Ler todos os registros do dia, na ordem em que foram adicionados
+     */
+    List<HistoryRecord> readAll(long day) throws IOException {
+        File journalFile = fileFor(day);
+        if (!journalFile.exists()) {
+            return new ArrayList<>();
+        }
+
+        byte[] bytes;
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "r")) {
+            bytes = new byte[(int) validLength(file.length())];
+            file.readFully(bytes);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        List<HistoryRecord> records = new ArrayList<>(bytes.length / RECORD_SIZE);
+        while (buffer.remaining() >= RECORD_SIZE) {
+            records.add(decode(buffer));
+        }
+        return records;
+    }
+
+    /**
+     * Apagar o journal de um dia
+     */
+    void clear(long day) {
+        File journalFile = fileFor(day);
+        if (journalFile.exists() && !journalFile.delete()) {
+            journalFile.deleteOnExit();
+        }
+    }
+
+    /**
+     * Apagar os journals de todos os dias (troca de usuário)
+     */
+    void clearAll() {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            if (parseDay(file.getName()) != null && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Listar os dias anteriores a {@code day} que ainda possuem journal
+     */
+    List<Long> daysBefore(long day) {
+        List<Long> result = new ArrayList<>();
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return result;
+        }
+
+        for (File file : files) {
+            Long fileDay = parseDay(file.getName());
+            if (fileDay != null && fileDay < day) {
+                result.add(fileDay);
+            }
+        }
+        return result;
+    }
+
+    boolean exists(long day) {
+        return fileFor(day).exists();
+    }
+
+    private File fileFor(long day) {
+        return new File(dir, FILE_PREFIX + day + FILE_SUFFIX);
+    }
+
+    private static Long parseDay(String name) {
+        if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long validLength(long length) {
+        return length - (length % RECORD_SIZE);
+    }
+
+    private static HistoryRecord decode(ByteBuffer buffer) {
+        long timestamp = buffer.getLong();
+        int amount = buffer.getInt();
+        byte action = buffer.get();
+        return new HistoryRecord(timestamp, amount, decodeAction(action));
+    }
+
+    private static byte encodeAction(String action) {
+        if ("Adicionado".equals(action)) {
+            return ACTION_ADDED;
+        } else if ("Removido".equals(action)) {
+            return ACTION_REMOVED;
+        }
+        return ACTION_UNKNOWN;
+    }
+
+    private static String decodeAction(byte action) {
+        if (action == ACTION_ADDED) {
+            return "Adicionado";
+        } else if (action == ACTION_REMOVED) {
+            return "Removido";
+        }
+        return "";
+    }
+}
@@ -0,0 +1,602 @@
+package com.example.waterchamp.data.local;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import com.example.waterchamp.model.HistoryRecord;
+import com.example.waterchamp.utils.Logger;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Modelo em memória do histórico de hoje, único por processo
+ * Todas as instâncias de {@link HistoryCache} compartilham este store, então continuam coerentes
+ * entre si. Leituras devolvem um snapshot imutável já pronto (sem alocar) e escritas atualizam a
+ * memória imediatamente e são persistidas em background, na ordem, por uma única thread de disco
+ */
+final class HistoryStore {
+    private static final String PREF_NAME = "WaterChampHistoryCache";
+    private static final String KEY_HISTORY_RECORDS = "history_records"; // Formato antigo (JSON), migrado para o journal
+    private static final String KEY_TODAY_TOTAL = "today_total";
+    private static final String KEY_TODAY_RAW_TOTAL = "today_raw_total"; // Soma com sinal, sem o limite em 0
+    private static final String KEY_TODAY_BASE_TOTAL = "today_base_total"; // Parte do total que não está nos registros
+    private static final String KEY_TODAY_DATE = "today_date";
+    private static final String JOURNAL_DIR = "history_journal";
+    private static final String DAY_INDEX_FILE = "daily_totals.bin";
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static volatile HistoryStore instance;
+
+    /**
+     * Relógio usado para saber o dia atual (substituível em testes)
+     */
+    interface Clock {
+        long now();
+    }
+
+    private final SharedPreferences prefs;
+    private final HistoryJournal journal;
+    private final DailyTotalsIndex dayIndex;
+    private final StreakEngine streak = new StreakEngine();
+    private final SimpleDateFormat dateFormat;
+    private final Clock clock;
+    private final Executor diskExecutor;
+
+    // Estado de hoje, protegido por "this"
+    private long today;
+    private HistoryRecord[] records = new HistoryRecord[INITIAL_CAPACITY];
+    private int size;
+    private boolean tailShared; // Um snapshot publicado ainda enxerga posições após "size"
+    private int rawTotal;
+    private int baseTotal; // Total do servidor sem registros locais (setTodayTotal); zerado na virada do dia
+    private int driftCount;
+
+    // Limites do dia atual, lidos sem lock no caminho rápido
+    private volatile long dayStartMillis;
+    private volatile long nextDayStartMillis;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile int todayTotal;
+
+    static HistoryStore getInstance(Context context, int retentionDays) {
+        if (instance == null) {
+            synchronized (HistoryStore.class) {
+                if (instance == null) {
+                    instance = new HistoryStore(context.getApplicationContext(), retentionDays);
+                }
+            }
+        }
+        return instance;
+    }
+
+    private HistoryStore(Context context, int retentionDays) {
+        this(context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE),
+            new File(context.getFilesDir(), JOURNAL_DIR), retentionDays,
+            System::currentTimeMillis, Executors.newSingleThreadExecutor());
+    }
+
+    /**
+     * Store independente do singleton (testes): disco e relógio injetados
+     */
+    HistoryStore(SharedPreferences prefs, File journalDir, int retentionDays, Clock clock, Executor diskExecutor) {
+        this.prefs = prefs;
+        this.journal = new HistoryJournal(journalDir);
+        this.dayIndex = new DailyTotalsIndex(new File(journalDir, DAY_INDEX_FILE), retentionDays);
+        this.dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        this.clock = clock;
+        this.diskExecutor = diskExecutor;
+
+        try {
+            dayIndex.load();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        migrateLegacyRecords();
+        load(clock.now());
+    }
+
+    // ============ Carga inicial ============
+
+    /**
+     * Carregar o dia atual do disco (executado uma vez, na criação do store)
+     */
+    private synchronized void load(long now) {
+        updateDayBounds(now);
+
+        String todayStr = dateFormat.format(new Date(now));
+        String savedDate = prefs.getString(KEY_TODAY_DATE, "");
+        boolean sameDay = todayStr.equals(savedDate);
+
+        if (!sameDay) {
+            compactJournalsBefore(today);
+            prefs.edit()
+                .putInt(KEY_TODAY_TOTAL, 0)
+                .putInt(KEY_TODAY_RAW_TOTAL, 0)
+                .putInt(KEY_TODAY_BASE_TOTAL, 0)
+                .putString(KEY_TODAY_DATE, todayStr)
+                .apply();
+        }
+
+        try {
+            List<HistoryRecord> loaded = journal.readAll(today);
+            records = loaded.toArray(new HistoryRecord[Math.max(INITIAL_CAPACITY, loaded.size() * 2)]);
+            size = loaded.size();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        if (sameDay && prefs.contains(KEY_TODAY_RAW_TOTAL)) {
+            rawTotal = prefs.getInt(KEY_TODAY_RAW_TOTAL, 0);
+            baseTotal = prefs.getInt(KEY_TODAY_BASE_TOTAL, 0);
+        } else {
+            rawTotal = rawSum(new Snapshot(records, size));
+            baseTotal = 0;
+            persistTotal(rawTotal, baseTotal);
+        }
+
+        publish();
+    }
+
+    /**
+     * Compactar os journals de dias anteriores em totais diários
+     */
+    private void compactJournalsBefore(long day) {
+        for (long journalDay : journal.daysBefore(day)) {
+            try {
+                List<HistoryRecord> dayRecords = journal.readAll(journalDay);
+                dayIndex.put(journalDay, Math.max(0, rawSum(dayRecords)));
+                journal.clear(journalDay);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        dayIndex.prune(day);
+        writeDayIndex(dayIndex.serialize());
+    }
+
+    /**
+     * Migrar registros do formato antigo (JSON em SharedPreferences) para o journal
+     * Executado uma única vez: a chave antiga é removida após a migração
+     */
+    private void migrateLegacyRecords() {
+        if (!prefs.contains(KEY_HISTORY_RECORDS)) {
+            return;
+        }
+
+        long now = clock.now();
+        long day = HistoryJournal.epochDay(now);
+        String todayStr = dateFormat.format(new Date(now));
+        String savedDate = prefs.getString(KEY_TODAY_DATE, "");
+
+        // Registros de outro dia seriam descartados de qualquer forma
+        if (todayStr.equals(savedDate) && !journal.exists(day)) {
+            String json = prefs.getString(KEY_HISTORY_RECORDS, "[]");
+            Type listType = new TypeToken<ArrayList<HistoryRecord>>(){}.getType();
+            List<HistoryRecord> legacy = new Gson().fromJson(json, listType);
+
+            if (legacy != null) {
+                try {
+                    for (HistoryRecord record : legacy) {
+                        journal.append(day, record);
+                    }
+                } catch (IOException e) {
+                    // Manter a chave antiga para tentar novamente na próxima vez
+                    e.printStackTrace();
+                    journal.clear(day);
+                    return;
+                }
+            }
+        }
+
+        prefs.edit().remove(KEY_HISTORY_RECORDS).apply();
+    }
+
+    // ============ Leituras (sem lock, sem alocação) ============
+
+    List<HistoryRecord> getTodayRecords() {
+        ensureToday();
+        return snapshot;
+    }
+
+    int getTodayTotal() {
+        ensureToday();
+        return todayTotal;
+    }
+
+    int getRecordCount() {
+        ensureToday();
+        return snapshot.size();
+    }
+
+    HistoryRecord getLastRecord() {
+        ensureToday();
+        Snapshot current = snapshot;
+        return current.isEmpty() ? null : current.get(current.size() - 1);
+    }
+
+    // ============ Escritas (memória imediata, disco em background) ============
+
+    void add(HistoryRecord record) {
+        ensureToday();
+        synchronized (this) {
+            if (size == records.length || tailShared) {
+                records = Arrays.copyOf(records, Math.max(INITIAL_CAPACITY, size * 2));
+                tailShared = false;
+            }
+            records[size++] = record;
+            rawTotal += signedAmount(record);
+            publish();
+
+            long day = today;
+            int raw = rawTotal;
+            int base = baseTotal;
+            diskExecutor.execute(() -> {
+                try {
+                    journal.append(day, record);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                persistTotal(raw, base);
+            });
+        }
+    }
+
+    HistoryRecord removeLast() {
+        ensureToday();
+        synchronized (this) {
+            if (size == 0) {
+                return null;
+            }
+
+            HistoryRecord last = records[--size];
+            // O slot continua visível para snapshots antigos: o próximo add deve copiar o array
+            tailShared = true;
+            rawTotal -= signedAmount(last);
+            publish();
+
+            long day = today;
+            int raw = rawTotal;
+            int base = baseTotal;
+            diskExecutor.execute(() -> {
+                try {
+                    journal.removeLast(day);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                persistTotal(raw, base);
+            });
+            return last;
+        }
+    }
+
+    void clearToday() {
+        ensureToday();
+        synchronized (this) {
+            records = new HistoryRecord[INITIAL_CAPACITY];
+            size = 0;
+            tailShared = false;
+            rawTotal = 0;
+            baseTotal = 0;
+            publish();
+
+            long day = today;
+            diskExecutor.execute(() -> {
+                journal.clear(day);
+                persistTotal(0, 0);
+            });
+        }
+    }
+
+    /**
+     * Apagar tudo o que está guardado localmente: registros de hoje, totais diários e sequência
+     * Usado quando o usuário sai ou outro usuário entra, já que o store é único por processo
+     * O disco é limpo depois das escritas pendentes (mesma thread de disco)
+     */
+    void clearAll() {
+        ensureToday();
+        synchronized (this) {
+            records = new HistoryRecord[INITIAL_CAPACITY];
+            size = 0;
+            tailShared = false;
+            rawTotal = 0;
+            baseTotal = 0;
+            dayIndex.clear();
+            streak.invalidate();
+            publish();
+
+            byte[] indexData = dayIndex.serialize();
+            diskExecutor.execute(() -> {
+                journal.clearAll();
+                writeDayIndex(indexData);
+                persistTotal(0, 0);
+            });
+        }
+    }
+
+    /**
+     * Definir o total do dia vindo do servidor
+     * A parte que não está nos registros locais vira a base do dia, somada aos registros na verificação
+     */
+    void setTodayTotal(int total) {
+        ensureToday();
+        synchronized (this) {
+            rawTotal = total;
+            baseTotal = total - rawSum(new Snapshot(records, size));
+            publish();
+
+            int base = baseTotal;
+            diskExecutor.execute(() -> persistTotal(total, base));
+        }
+    }
+
+    /**
+     * Recalcular o total (base do servidor + registros) e comparar com o total incremental
+     * Só reporta: o total incremental nunca é alterado aqui
+     * @return divergência encontrada (total incremental - total recalculado)
+     */
+    synchronized int verifyTodayTotal() {
+        int expected = baseTotal + rawSum(snapshot);
+        int drift = rawTotal - expected;
+
+        if (drift != 0) {
+            driftCount++;
+            Logger.w("HistoryCache", "verifyTodayTotal() - Divergência de {}ml (incremental={}, recalculado={})", drift, rawTotal, expected);
+        }
+
+        return drift;
+    }
+
+    /**
+     * Quantidade de verificações que encontraram divergência desde o início do processo
+     */
+    synchronized int getDriftCount() {
+        return driftCount;
+    }
+
+    boolean isTodaySynced() {
+        ensureToday();
+        return true;
+    }
+
+    // ============ Totais diários ============
+
+    synchronized int getDayTotal(long day) {
+        ensureToday();
+        return day == today ? todayTotal : dayIndex.get(day);
+    }
+
+    synchronized int[] getLastDaysTotals(int days) {
+        ensureToday();
+        int count = Math.max(0, Math.min(days, dayIndex.getRetentionDays()));
+        int[] totals = new int[count];
+
+        if (count > 0) {
+            totals[0] = todayTotal;
+        }
+        for (int i = 1; i < count; i++) {
+            totals[i] = dayIndex.get(today - i);
+        }
+        return totals;
+    }
+
+    synchronized void mergeDayTotals(Map<String, Integer> totalsByDate) {
+        ensureToday();
+
+        for (Map.Entry<String, Integer> entry : totalsByDate.entrySet()) {
+            long day = toEpochDay(entry.getKey());
+            // O dia de hoje é ignorado: o journal local é a fonte da verdade para ele
+            if (day == Long.MIN_VALUE || day >= today || entry.getValue() == null) {
+                continue;
+            }
+            dayIndex.put(day, entry.getValue());
+        }
+
+        dayIndex.prune(today);
+        streak.invalidate();
+        byte[] data = dayIndex.serialize();
+        diskExecutor.execute(() -> writeDayIndex(data));
+    }
+
+    // ============ Sequência ============
+
+    synchronized int getCurrentStreak(int dailyGoal) {
+        ensureStreak(dailyGoal);
+        return streak.getCurrent();
+    }
+
+    synchronized int getBestStreak(int dailyGoal) {
+        ensureStreak(dailyGoal);
+        return streak.getBest();
+    }
+
+    /**
+     * Reconstruir a sequência se a meta mudou ou se o estado foi invalidado
+     */
+    private void ensureStreak(int dailyGoal) {
+        ensureToday();
+        if (!streak.isValidFor(dailyGoal, today)) {
+            streak.rebuild(dailyGoal, today, todayTotal, dayIndex);
+        }
+    }
+
+    synchronized long getTodayEpochDay() {
+        ensureToday();
+        return today;
+    }
+
+    int getRetentionDays() {
+        return dayIndex.getRetentionDays();
+    }
+
+    // ============ Virada de dia ============
+
+    /**
+     * Garantir que o estado em memória é do dia atual
+     * Caminho rápido: duas leituras voláteis, sem lock nem alocação
+     */
+    private void ensureToday() {
+        long now = clock.now();
+        if (now >= dayStartMillis && now < nextDayStartMillis) {
+            return;
+        }
+        synchronized (this) {
+            now = clock.now();
+            if (now >= dayStartMillis && now < nextDayStartMillis) {
+                return;
+            }
+            rollOver(now);
+        }
+    }
+
+    /**
+     * Fechar o dia em memória: guarda o total no índice e começa um dia vazio
+     * O journal do dia fechado é apagado em background, depois das escritas pendentes
+     */
+    private void rollOver(long now) {
+        long previousDay = today;
+        updateDayBounds(now);
+        if (today == previousDay) {
+            return; // Mudança de fuso/relógio sem troca de dia
+        }
+
+        dayIndex.put(previousDay, Math.max(0, rawTotal));
+        dayIndex.prune(today);
+        streak.onRollOver(previousDay, today, Math.max(0, rawTotal));
+        byte[] indexData = dayIndex.serialize();
+
+        records = new HistoryRecord[INITIAL_CAPACITY];
+        size = 0;
+        tailShared = false;
+        rawTotal = 0;
+        baseTotal = 0;
+        publish();
+
+        String todayStr = dateFormat.format(new Date(now));
+        diskExecutor.execute(() -> {
+            writeDayIndex(indexData);
+            journal.clear(previousDay);
+            prefs.edit()
+                .putInt(KEY_TODAY_TOTAL, 0)
+                .putInt(KEY_TODAY_RAW_TOTAL, 0)
+                .putInt(KEY_TODAY_BASE_TOTAL, 0)
+                .putString(KEY_TODAY_DATE, todayStr)
+                .apply();
+        });
+    }
+
+    private void updateDayBounds(long now) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        long start = calendar.getTimeInMillis();
+        calendar.add(Calendar.DAY_OF_YEAR, 1);
+
+        today = HistoryJournal.epochDay(start);
+        dayStartMillis = start;
+        nextDayStartMillis = calendar.getTimeInMillis();
+    }
+
+    // ============ Helpers ============
+
+    private void publish() {
+        snapshot = new Snapshot(records, size);
+        todayTotal = Math.max(0, rawTotal);
+        streak.onTodayTotal(todayTotal);
+    }
+
+    private void persistTotal(int raw, int base) {
+        prefs.edit()
+            .putInt(KEY_TODAY_RAW_TOTAL, raw)
+            .putInt(KEY_TODAY_BASE_TOTAL, base)
+            .putInt(KEY_TODAY_TOTAL, Math.max(0, raw))
+            .apply();
+    }
+
+    private void writeDayIndex(byte[] data) {
+        try {
+            dayIndex.write(data);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Converter data yyyy-MM-dd para epoch-day local
+     * @return Long.MIN_VALUE se a data for inválida
+     */
+    private long toEpochDay(String date) {
+        try {
+            Date parsed = dateFormat.parse(date);
+            return parsed != null ? HistoryJournal.epochDay(parsed.getTime()) : Long.MIN_VALUE;
+        } catch (ParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    static int signedAmount(HistoryRecord record) {
+        if ("Adicionado".equals(record.getAction())) {
+            return record.getAmount();
+        } else if ("Removido".equals(record.getAction())) {
+            return -record.getAmount();
+        }
+        return 0;
+    }
+
+    private static int rawSum(List<HistoryRecord> records) {
+        int total = 0;
+        for (int i = 0; i < records.size(); i++) {
+            total += signedAmount(records.get(i));
+        }
+        return total;
+    }
+
+    /**
+     * Visão imutável dos primeiros "size" registros de um array
+     * O store nunca sobrescreve posições visíveis a um snapshot publicado
+     */
+    static final class Snapshot extends AbstractList<HistoryRecord> implements RandomAccess {
+        static final Snapshot EMPTY = new Snapshot(new HistoryRecord[0], 0);
+
+        private final HistoryRecord[] records;
+        private final int size;
+
+        Snapshot(HistoryRecord[] records, int size) {
+            this.records = records;
+            this.size = size;
+        }
+
+        @Override
+        public HistoryRecord get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return records[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -20,6 +20,7 @@ public class PreferencesManager {
     private static final String KEY_PROFILE_PICTURE_URI = "profile_picture_uri";
     private static final String KEY_TOTAL_CONSUMED_ALL_TIME = "total_consumed_all_time";
     private static final String KEY_LAST_SYNC_TIMESTAMP = "last_sync_timestamp";
+    private static final String KEY_CONSUMO_WATERMARK = "consumo_watermark";
     private static final String KEY_REMEMBER_LOGIN = "remember_login";
     private static final String KEY_SAVED_EMAIL = "saved_email";
     private static final String KEY_SAVED_PASSWORD = "saved_password";
@@ -115,6 +116,18 @@ public class PreferencesManager {
         return prefs.getLong(KEY_LAST_SYNC_TIMESTAMP, 0);
     }
 
+    /**
+     * Maior updated_at (horário do servidor) já recebido de consumo_diario
+     * null se nunca houve sincronização completa
+     */
+    public void setConsumoWatermark(String watermark) {
+        prefs.edit().putString(KEY_CONSUMO_WATERMARK, watermark).apply();
+    }
+
+    public String getConsumoWatermark() {
+        return prefs.getString(KEY_CONSUMO_WATERMARK, null);
+    }
+
     // ============ Remember Login ============
 
     public void setRememberLogin(boolean remember) {
@@ -163,6 +176,7 @@ public class PreferencesManager {
             .remove(KEY_PROFILE_PICTURE_URI)
             .remove(KEY_TOTAL_CONSUMED_ALL_TIME)
             .remove(KEY_LAST_SYNC_TIMESTAMP)
+            .remove(KEY_CONSUMO_WATERMARK)
             .apply();
     }
 
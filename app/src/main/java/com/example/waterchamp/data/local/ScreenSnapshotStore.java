@@ -0,0 +1,199 @@
+package com.example.waterchamp.data.local;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import com.example.waterchamp.model.User;
+import com.example.waterchamp.utils.Logger;
+import com.google.gson.Gson;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Última versão exibida das telas principais (ranking de cada aba e tela inicial)
+ * Lida na abertura do app para mostrar conteúdo na hora, enquanto os dados novos são buscados
+ *
+ * Fica em um arquivo próprio e pequeno: o SharedPreferences é carregado em background a partir
+ * da criação da instância (ServiceRegistry), então a leitura na tela costuma levar poucos ms
+ *
+ * Snapshots são do usuário que os gravou; o de outro usuário (ou, quando pedido, de outro dia) é ignorado
+ */
+public class ScreenSnapshotStore {
+    private static final String PREF_NAME = "WaterChampSnapshots";
+
+    // Keys
+    private static final String KEY_RANKING_PREFIX = "ranking_";
+    private static final String KEY_HOME_USER_ID = "home_user_id";
+    private static final String KEY_HOME_DATE = "home_date";
+    private static final String KEY_HOME_WATER_INTAKE = "home_water_intake";
+    private static final String KEY_HOME_DAILY_GOAL = "home_daily_goal";
+    private static final String KEY_HOME_CUP_SIZE = "home_cup_size";
+
+    // Abas do ranking
+    public static final String TAB_DAILY = "diario";
+    public static final String TAB_GROUP = "grupo";
+    public static final String TAB_GLOBAL = "global";
+
+    private final SharedPreferences prefs;
+    private final Gson gson = new Gson();
+
+    /**
+     * Estado da tela inicial
+     */
+    public static final class HomeSnapshot {
+        private final int waterIntake;
+        private final int dailyGoal;
+        private final int defaultCupSize;
+
+        HomeSnapshot(int waterIntake, int dailyGoal, int defaultCupSize) {
+            this.waterIntake = waterIntake;
+            this.dailyGoal = dailyGoal;
+            this.defaultCupSize = defaultCupSize;
+        }
+
+        public int getWaterIntake() {
+            return waterIntake;
+        }
+
+        public int getDailyGoal() {
+            return dailyGoal;
+        }
+
+        public int getDefaultCupSize() {
+            return defaultCupSize;
+        }
+    }
+
+    // Formato gravado (JSON) de um ranking
+    private static final class RankingSnapshot {
+        int userId;
+        String date;
+        List<Row> rows;
+    }
+
+    private static final class Row {
+        int id;
+        String nome;
+        String email; // Só o usuário atual tem (destaque na lista)
+        int consumo;
+    }
+
+    public ScreenSnapshotStore(Context context) {
+        this(context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE));
+    }
+
+    // Preferências em memória nos testes
+    ScreenSnapshotStore(SharedPreferences prefs) {
+        this.prefs = prefs;
+    }
+
+    // ============ Ranking ============
+
+    /**
+     * Gravar o ranking exibido em uma aba
+     * Só ID, nome, email e consumo: a posição é recalculada pela ordem
+     */
+    public void saveRanking(int userId, String tab, List<User> users) {
+        if (userId == -1) {
+            return;
+        }
+
+        RankingSnapshot snapshot = new RankingSnapshot();
+        snapshot.userId = userId;
+        snapshot.date = today();
+        snapshot.rows = new ArrayList<>(users.size());
+        for (User user : users) {
+            Row row = new Row();
+            row.id = user.getId();
+            row.nome = user.getName();
+            row.email = user.getEmail();
+            row.consumo = user.getWaterIntake();
+            snapshot.rows.add(row);
+        }
+
+        prefs.edit().putString(KEY_RANKING_PREFIX + tab, gson.toJson(snapshot)).apply();
+    }
+
+    /**
+     * Último ranking gravado para a aba, na ordem em que foi exibido
+     * @param todayOnly descartar o snapshot se for de outro dia (rankings do consumo de hoje)
+     * @return lista nova (pode ser alterada), ou null se não houver snapshot válido
+     */
+    public List<User> getRanking(int userId, String tab, boolean todayOnly) {
+        long start = SystemClock.uptimeMillis();
+        String json = prefs.getString(KEY_RANKING_PREFIX + tab, null);
+        if (json == null || userId == -1) {
+            return null;
+        }
+
+        RankingSnapshot snapshot;
+        try {
+            snapshot = gson.fromJson(json, RankingSnapshot.class);
+        } catch (Exception e) {
+            e.printStackTrace();
+            prefs.edit().remove(KEY_RANKING_PREFIX + tab).apply();
+            return null;
+        }
+
+        if (snapshot == null || snapshot.rows == null || snapshot.userId != userId
+            || (todayOnly && !today().equals(snapshot.date))) {
+            return null;
+        }
+
+        List<User> users = new ArrayList<>(snapshot.rows.size());
+        for (Row row : snapshot.rows) {
+            User user = new User(row.nome, row.email != null ? row.email : "", row.consumo);
+            user.setId(row.id);
+            user.setRank(users.size() + 1);
+            users.add(user);
+        }
+
+        Logger.d("ScreenSnapshotStore", "getRanking() - {}: {} usuário(s) em {}ms", tab, users.size(), SystemClock.uptimeMillis() - start);
+        return users;
+    }
+
+    // ============ Home ============
+
+    public void saveHome(int userId, int waterIntake, int dailyGoal, int defaultCupSize) {
+        if (userId == -1) {
+            return;
+        }
+
+        prefs.edit()
+            .putInt(KEY_HOME_USER_ID, userId)
+            .putString(KEY_HOME_DATE, today())
+            .putInt(KEY_HOME_WATER_INTAKE, waterIntake)
+            .putInt(KEY_HOME_DAILY_GOAL, dailyGoal)
+            .putInt(KEY_HOME_CUP_SIZE, defaultCupSize)
+            .apply();
+    }
+
+    /**
+     * Último estado da tela inicial, se for do mesmo usuário e de hoje
+     */
+    public HomeSnapshot getHome(int userId) {
+        if (userId == -1 || prefs.getInt(KEY_HOME_USER_ID, -1) != userId
+            || !today().equals(prefs.getString(KEY_HOME_DATE, null))) {
+            return null;
+        }
+
+        return new HomeSnapshot(
+            prefs.getInt(KEY_HOME_WATER_INTAKE, 0),
+            prefs.getInt(KEY_HOME_DAILY_GOAL, 2000),
+            prefs.getInt(KEY_HOME_CUP_SIZE, 250)
+        );
+    }
+
+    // ============ Session Management ============
+
+    public void clear() {
+        prefs.edit().clear().apply();
+    }
+
+    private static String today() {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.waterchamp.data.local;
+
+/**
+ * Sequência (streak) de dias atingindo a meta, mantida de forma incremental
+ * Responde a sequência atual e a melhor em O(1); só reconstrói (O(n) sobre o índice de totais)
+ * quando a meta muda ou quando totais de dias anteriores são alterados
+ *
+ * Regras (as mesmas do cálculo antigo no servidor):
+ * - um dia conta se tiver consumo e o total for >= meta
+ * - hoje ainda não atingido não quebra a sequência
+ *
+ * Não é thread-safe: todas as chamadas acontecem sob o lock do {@link HistoryStore}
+ */
+final class StreakEngine {
+    private static final int NO_GOAL = Integer.MIN_VALUE;
+
+    private int goal = NO_GOAL;
+    private long today;
+    private int pastRun;    // Dias consecutivos atingindo a meta, terminando ontem
+    private int bestPast;   // Maior sequência entre os dias anteriores a hoje
+    private boolean todayMet;
+
+    /**
+     * Verificar se o estado atual vale para esta meta e este dia
+     */
+    boolean isValidFor(int dailyGoal, long day) {
+        return goal != NO_GOAL && goal == dailyGoal && today == day;
+    }
+
+    /**
+     * Reconstruir a partir do índice de totais diários: O(dias mantidos)
+     */
+    void rebuild(int dailyGoal, long day, int todayTotal, DailyTotalsIndex index) {
+        int retention = index.getRetentionDays();
+        int run = 0;
+        int best = 0;
+
+        for (long d = day - retention + 1; d < day; d++) {
+            if (meets(index.get(d), dailyGoal)) {
+                run++;
+                best = Math.max(best, run);
+            } else {
+                run = 0;
+            }
+        }
+
+        goal = dailyGoal;
+        today = day;
+        pastRun = run;
+        bestPast = best;
+        todayMet = meets(todayTotal, dailyGoal);
+    }
+
+    /**
+     * Total de hoje mudou: O(1)
+     */
+    void onTodayTotal(int todayTotal) {
+        if (goal != NO_GOAL) {
+            todayMet = meets(todayTotal, goal);
+        }
+    }
+
+    /**
+     * Virada de dia: o dia fechado entra na sequência passada em O(1)
+     * @param closedTotal total final do dia que terminou
+     */
+    void onRollOver(long previousDay, long newDay, int closedTotal) {
+        if (goal == NO_GOAL || today != previousDay) {
+            invalidate();
+            return;
+        }
+
+        int run = meets(closedTotal, goal) ? pastRun + 1 : 0;
+        bestPast = Math.max(bestPast, run);
+        // Dias pulados (app fechado) não têm consumo local e quebram a sequência
+        pastRun = newDay == previousDay + 1 ? run : 0;
+        today = newDay;
+        todayMet = false;
+    }
+
+    /**
+     * Forçar reconstrução na próxima consulta (totais de dias anteriores mudaram)
+     */
+    void invalidate() {
+        goal = NO_GOAL;
+    }
+
+    int getCurrent() {
+        return pastRun + (todayMet ? 1 : 0);
+    }
+
+    int getBest() {
+        return Math.max(bestPast, getCurrent());
+    }
+
+    private static boolean meets(int total, int dailyGoal) {
+        return total > 0 && total >= dailyGoal;
+    }
+}
@@ -1,29 +1,37 @@
 package com.example.waterchamp.data.remote
 
+import com.example.waterchamp.utils.TaskScheduler
 import io.github.jan.supabase.postgrest.from
 import io.github.jan.supabase.postgrest.postgrest
 import io.github.jan.supabase.postgrest.query.Order
 import io.github.jan.supabase.postgrest.rpc
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.runBlocking
 import kotlinx.coroutines.withContext
 import kotlinx.serialization.Serializable
+import kotlinx.serialization.json.addJsonObject
 import kotlinx.serialization.json.buildJsonObject
 import kotlinx.serialization.json.put
+import kotlinx.serialization.json.putJsonArray
 import java.text.SimpleDateFormat
 import java.util.*
+import java.util.concurrent.CompletableFuture
 
 /**
  * Serviço para operações de consumo diário no Supabase
  */
-class ConsumoService {
+class ConsumoService internal constructor(
+    private val clientProvider: suspend () -> io.github.jan.supabase.SupabaseClient
+) {
+
+    constructor() : this({ SupabaseClient.awaitClient() })
 
     @Serializable
-    data class ConsumoDiario(
+    data class ConsumoDiario @JvmOverloads constructor(
         val id: Int? = null,
         val usuario_id: Int,
         val data: String,  // formato: yyyy-MM-dd
-        val total_ml: Int
+        val total_ml: Int,
+        val updated_at: String? = null  // horário da última alteração no servidor
     )
 
     @Serializable
@@ -33,7 +41,9 @@ class ConsumoService {
         val p_total_ml: Int
     )
 
-    private val dateFormat = SimpleDateFormat("yyyy-MM-dd", Locale.US)
+    // SimpleDateFormat não é thread-safe e o serviço é chamado de mais de uma thread
+    private val dateFormat: SimpleDateFormat
+        get() = SimpleDateFormat("yyyy-MM-dd", Locale.US)
 
     /**
      * Sincronizar consumo diário usando a função RPC set_consumo_diario
@@ -43,17 +53,24 @@ class ConsumoService {
         usuarioId: Int,
         data: Date,
         totalMl: Int
+    ): Boolean = syncDailyConsumption(usuarioId, dateFormat.format(data), totalMl)
+
+    /**
+     * Sincronizar consumo de uma data já formatada (yyyy-MM-dd)
+     */
+    suspend fun syncDailyConsumption(
+        usuarioId: Int,
+        dateStr: String,
+        totalMl: Int
     ): Boolean = withContext(Dispatchers.IO) {
         try {
-            val dateStr = dateFormat.format(data)
-
             val params = buildJsonObject {
                 put("p_usuario_id", usuarioId)
                 put("p_data", dateStr)
                 put("p_total_ml", totalMl)
             }
 
-            SupabaseClient.client.postgrest.rpc(
+            clientProvider().postgrest.rpc(
                 function = "set_consumo_diario",
                 parameters = params
             )
@@ -65,6 +82,41 @@ class ConsumoService {
         }
     }
 
+    /**
+     * Sincronizar vários dias de uma vez usando a função RPC set_consumo_diario_lote
+     * Faz upsert de todas as linhas em uma única requisição (backfill após período offline)
+     */
+    suspend fun syncDailyConsumptionBatch(
+        usuarioId: Int,
+        dias: List<ConsumoDiario>
+    ): Boolean = withContext(Dispatchers.IO) {
+        if (dias.isEmpty()) return@withContext true
+
+        try {
+            val params = buildJsonObject {
+                put("p_usuario_id", usuarioId)
+                putJsonArray("p_dias") {
+                    for (dia in dias) {
+                        addJsonObject {
+                            put("data", dia.data)
+                            put("total_ml", dia.total_ml)
+                        }
+                    }
+                }
+            }
+
+            clientProvider().postgrest.rpc(
+                function = "set_consumo_diario_lote",
+                parameters = params
+            )
+
+            true
+        } catch (e: Exception) {
+            e.printStackTrace()
+            false
+        }
+    }
+
     /**
      * Buscar consumo de um usuário em uma data específica
      */
@@ -75,7 +127,7 @@ class ConsumoService {
         try {
             val dateStr = dateFormat.format(data)
 
-            SupabaseClient.client
+            clientProvider()
                 .from("consumo_diario")
                 .select {
                     filter {
@@ -102,7 +154,7 @@ class ConsumoService {
             calendar.add(Calendar.DAY_OF_YEAR, -days)
             val startDate = dateFormat.format(calendar.time)
 
-            SupabaseClient.client
+            clientProvider()
                 .from("consumo_diario")
                 .select {
                     filter {
@@ -119,62 +171,64 @@ class ConsumoService {
     }
 
     /**
-     * Buscar total consumido nos últimos N dias
+     * Buscar apenas as linhas alteradas desde o watermark (updated_at >= since)
+     * Sem watermark, busca os últimos N dias completos
+     * @return linhas em ordem de updated_at, ou null em caso de erro
      */
-    suspend fun getTotalConsumption(
+    suspend fun getConsumptionChangesSince(
         usuarioId: Int,
-        days: Int = 30
-    ): Int = withContext(Dispatchers.IO) {
+        since: String?,
+        days: Int
+    ): List<ConsumoDiario>? = withContext(Dispatchers.IO) {
         try {
-            val history = getConsumptionHistory(usuarioId, days)
-            history.sumOf { it.total_ml }
+            val calendar = Calendar.getInstance()
+            calendar.add(Calendar.DAY_OF_YEAR, -days)
+            val startDate = dateFormat.format(calendar.time)
+
+            clientProvider()
+                .from("consumo_diario")
+                .select {
+                    filter {
+                        eq("usuario_id", usuarioId)
+                        if (since != null) {
+                            // >= em vez de >: reenvia a última linha, mas não perde
+                            // alterações gravadas no mesmo instante do watermark
+                            gte("updated_at", since)
+                        } else {
+                            gte("data", startDate)
+                        }
+                    }
+                    order("updated_at", Order.ASCENDING)
+                }
+                .decodeList<ConsumoDiario>()
         } catch (e: Exception) {
             e.printStackTrace()
-            0
+            null
         }
     }
 
     /**
-     * Calcular sequência de dias (streak) - dias consecutivos atingindo meta
-     * @param metaDiaria meta em ml
+     * Buscar total consumido nos últimos N dias
      */
-    suspend fun calculateStreak(
+    suspend fun getTotalConsumption(
         usuarioId: Int,
-        metaDiaria: Int
+        days: Int = 30
     ): Int = withContext(Dispatchers.IO) {
         try {
-            val history = getConsumptionHistory(usuarioId, 365)
-                .sortedByDescending { it.data }
-
-            var streak = 0
-            val today = dateFormat.format(Date())
-            val calendar = Calendar.getInstance()
-
-            // Verificar dias consecutivos a partir de hoje
-            for (i in 0 until history.size) {
-                calendar.time = Date()
-                calendar.add(Calendar.DAY_OF_YEAR, -i)
-                val expectedDate = dateFormat.format(calendar.time)
-
-                val consumo = history.find { it.data == expectedDate }
-                if (consumo != null && consumo.total_ml >= metaDiaria) {
-                    streak++
-                } else if (i > 0) {
-                    // Se não é hoje e não atingiu meta, quebra a sequência
-                    break
-                }
-            }
-
-            streak
+            val history = getConsumptionHistory(usuarioId, days)
+            history.sumOf { it.total_ml }
         } catch (e: Exception) {
             e.printStackTrace()
             0
         }
     }
 
-    // Blocking versions for Java interop
-    fun syncDailyConsumptionBlocking(usuarioId: Int, data: Date, totalMl: Int): Boolean = runBlocking { syncDailyConsumption(usuarioId, data, totalMl) }
-    fun getConsumptionByDateBlocking(usuarioId: Int, data: Date): ConsumoDiario? = runBlocking { getConsumptionByDate(usuarioId, data) }
-    fun getConsumptionHistoryBlocking(usuarioId: Int, days: Int): List<ConsumoDiario> = runBlocking { getConsumptionHistory(usuarioId, days) }
-    fun calculateStreakBlocking(usuarioId: Int, metaDiaria: Int): Int = runBlocking { calculateStreak(usuarioId, metaDiaria) }
+    // Async versions for Java interop (CompletableFuture, sem bloquear threads)
+    // Escritas usam a lane SYNC (uma por vez, na ordem): um total antigo nunca sobrescreve um mais novo
+    fun syncDailyConsumptionAsync(usuarioId: Int, data: Date, totalMl: Int): CompletableFuture<Boolean> = ServiceScope.future(TaskScheduler.Lane.SYNC) { syncDailyConsumption(usuarioId, data, totalMl) }
+    fun syncDailyConsumptionAsync(usuarioId: Int, dateStr: String, totalMl: Int): CompletableFuture<Boolean> = ServiceScope.future(TaskScheduler.Lane.SYNC) { syncDailyConsumption(usuarioId, dateStr, totalMl) }
+    fun syncDailyConsumptionBatchAsync(usuarioId: Int, dias: List<ConsumoDiario>): CompletableFuture<Boolean> = ServiceScope.future(TaskScheduler.Lane.SYNC) { syncDailyConsumptionBatch(usuarioId, dias) }
+    fun getConsumptionByDateAsync(usuarioId: Int, data: Date): CompletableFuture<ConsumoDiario?> = ServiceScope.future { getConsumptionByDate(usuarioId, data) }
+    fun getConsumptionHistoryAsync(usuarioId: Int, days: Int): CompletableFuture<List<ConsumoDiario>> = ServiceScope.future { getConsumptionHistory(usuarioId, days) }
+    fun getConsumptionChangesSinceAsync(usuarioId: Int, since: String?, days: Int): CompletableFuture<List<ConsumoDiario>?> = ServiceScope.future(TaskScheduler.Lane.SYNC) { getConsumptionChangesSince(usuarioId, since, days) }
 }
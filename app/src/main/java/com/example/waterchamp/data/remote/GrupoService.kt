@@ -1,10 +1,14 @@
 package com.example.waterchamp.data.remote
 
 import io.github.jan.supabase.postgrest.from
+import io.github.jan.supabase.postgrest.postgrest
+import io.github.jan.supabase.postgrest.rpc
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.runBlocking
 import kotlinx.coroutines.withContext
 import kotlinx.serialization.Serializable
+import kotlinx.serialization.json.buildJsonObject
+import kotlinx.serialization.json.put
+import java.util.concurrent.CompletableFuture
 
 /**
  * Serviço para operações de grupos no Supabase
@@ -22,21 +26,21 @@ class GrupoService {
     )
 
     /**
-     * Buscar todos os grupos do usuário
+     * Buscar todos os grupos do usuário, já com a contagem de membros
+     * Uma única requisição (função RPC get_grupos_usuario), independente da quantidade de grupos
      */
     suspend fun getUserGroups(usuarioId: Int): List<GrupoData> = withContext(Dispatchers.IO) {
         try {
-            SupabaseClient.client
-                .from("membros_grupo")
-                .select {
-                    filter {
-                        eq("usuario_id", usuarioId)
-                    }
-                }
-                .decodeList<MembrosGrupoData>()
-                .mapNotNull { membro ->
-                    getGroupById(membro.grupo_id)
-                }
+            val params = buildJsonObject {
+                put("p_usuario_id", usuarioId)
+            }
+
+            SupabaseClient.client.postgrest
+                .rpc(
+                    function = "get_grupos_usuario",
+                    parameters = params
+                )
+                .decodeList<GrupoData>()
         } catch (e: Exception) {
             e.printStackTrace()
             emptyList()
@@ -210,21 +214,21 @@ class GrupoService {
         val usuario_id: Int
     )
 
-    // ============ Blocking versions for Java interop ============
+    // ============ Async versions for Java interop ============
 
-    fun getUserGroupsBlocking(usuarioId: Int): List<GrupoData> = runBlocking { getUserGroups(usuarioId) }
+    fun getUserGroupsAsync(usuarioId: Int): CompletableFuture<List<GrupoData>> = ServiceScope.future { getUserGroups(usuarioId) }
 
-    fun getGroupByIdBlocking(grupoId: Int): GrupoData? = runBlocking { getGroupById(grupoId) }
+    fun getGroupByIdAsync(grupoId: Int): CompletableFuture<GrupoData?> = ServiceScope.future { getGroupById(grupoId) }
 
-    fun createGroupBlocking(nome: String, descricao: String, criadorId: Int): GrupoData? = runBlocking { createGroup(nome, descricao, criadorId) }
+    fun createGroupAsync(nome: String, descricao: String, criadorId: Int): CompletableFuture<GrupoData?> = ServiceScope.future { createGroup(nome, descricao, criadorId) }
 
-    fun deleteGroupBlocking(grupoId: Int): Boolean = runBlocking { deleteGroup(grupoId) }
+    fun deleteGroupAsync(grupoId: Int): CompletableFuture<Boolean> = ServiceScope.future { deleteGroup(grupoId) }
 
-    fun addMemberToGroupBlocking(grupoId: Int, usuarioId: Int): Boolean = runBlocking { addMemberToGroup(grupoId, usuarioId) }
+    fun addMemberToGroupAsync(grupoId: Int, usuarioId: Int): CompletableFuture<Boolean> = ServiceScope.future { addMemberToGroup(grupoId, usuarioId) }
 
-    fun removeMemberFromGroupBlocking(grupoId: Int, usuarioId: Int): Boolean = runBlocking { removeMemberFromGroup(grupoId, usuarioId) }
+    fun removeMemberFromGroupAsync(grupoId: Int, usuarioId: Int): CompletableFuture<Boolean> = ServiceScope.future { removeMemberFromGroup(grupoId, usuarioId) }
 
-    fun getGroupMembersBlocking(grupoId: Int): List<Int> = runBlocking { getGroupMembers(grupoId) }
+    fun getGroupMembersAsync(grupoId: Int): CompletableFuture<List<Int>> = ServiceScope.future { getGroupMembers(grupoId) }
 
-    fun countGroupMembersBlocking(grupoId: Int): Int = runBlocking { countGroupMembers(grupoId) }
+    fun countGroupMembersAsync(grupoId: Int): CompletableFuture<Int> = ServiceScope.future { countGroupMembers(grupoId) }
 }
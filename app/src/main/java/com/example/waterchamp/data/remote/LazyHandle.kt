@@ -0,0 +1,34 @@
+package com.example.waterchamp.data.remote
+
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Valor criado sob demanda, uma única vez, mesmo com várias threads pedindo ao mesmo tempo:
+ * quem chega durante a criação espera por ela
+ * Se a criação falhar, a exceção vai para quem pediu e a próxima chamada tenta de novo
+ *
+ * Usado pelo SupabaseClient para o cliente (Ktor, Postgrest, Auth, Realtime)
+ */
+internal class LazyHandle<T>(
+    private val waitDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    create: () -> T
+) {
+    // SYNCHRONIZED: criado uma vez; uma falha não fica guardada
+    private val lazyValue = lazy(LazyThreadSafetyMode.SYNCHRONIZED, create)
+
+    /**
+     * Valor pronto; na primeira chamada, espera a criação terminar (bloqueia a thread)
+     */
+    val value: T
+        get() = lazyValue.value
+
+    /**
+     * Mesmo que [value], mas espera a criação fora da thread de quem chamou
+     */
+    suspend fun await(): T =
+        if (lazyValue.isInitialized()) lazyValue.value else withContext(waitDispatcher) { lazyValue.value }
+
+    fun isInitialized(): Boolean = lazyValue.isInitialized()
+}
@@ -1,66 +1,221 @@
 package com.example.waterchamp.data.remote
 
+import com.example.waterchamp.utils.TaskScheduler
+import io.github.jan.supabase.postgrest.query.filter.FilterOperator
+import io.github.jan.supabase.realtime.PostgresAction
+import io.github.jan.supabase.realtime.Realtime
+import io.github.jan.supabase.realtime.RealtimeChannel
+import io.github.jan.supabase.realtime.channel
+import io.github.jan.supabase.realtime.postgresChangeFlow
+import io.github.jan.supabase.realtime.realtime
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.Job
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.cancel
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.launchIn
+import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.launch
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.contentOrNull
+import kotlinx.serialization.json.intOrNull
 
 /**
  * Serviço para escutar atualizações em tempo real do ranking
- * Usa Supabase Realtime para monitorar mudanças na tabela consumo_diario
+ * Usa Supabase Realtime para receber, linha a linha, as mudanças na tabela consumo_diario
+ * (em vez de buscar o ranking inteiro a cada poucos segundos)
  *
- * NOTA: Este é um placeholder que será implementado conforme a API do Supabase Realtime
- * fica mais clara. Por enquanto, usaremos Pull-to-Refresh como método principal de atualização.
+ * Só as linhas dos usuários exibidos chegam (filtro usuario_id=in.(...) no servidor), não a tabela inteira:
+ * o tráfego não cresce com o número de usuários do app. Quem está fora da lista e passa a ter consumo
+ * para entrar nela não é avisado aqui; a tela cobre isso com uma atualização periódica lenta
+ *
+ * Os callbacks chegam na thread principal. Enquanto o socket estiver caído (ou não houver usuário
+ * exibido para escutar), isConnected() retorna false e a tela deve voltar ao polling
+ *
+ * Requer a migration que adiciona consumo_diario à publicação supabase_realtime
  */
-class RankingRealtimeService {
+class RankingRealtimeService internal constructor(
+    private val clientProvider: suspend () -> io.github.jan.supabase.SupabaseClient,
+    private val callbackDispatcher: CoroutineDispatcher
+) {
+
+    constructor() : this({ SupabaseClient.awaitClient() }, Dispatchers.Main)
 
     private var scope: CoroutineScope? = null
-    private var isListening = false
+    private var channel: RealtimeChannel? = null
+    private var listener: RankingUpdateListener? = null
+
+    // Usuários escutados, ordenados e sem repetição (comparados a cada atualização da lista)
+    private var watchedIds: List<Int> = emptyList()
+
+    @Volatile
+    private var connected = false
+
+    /**
+     * Mudança no consumo de um usuário em um dia
+     * @param previousMl total anterior, quando o servidor envia a linha antiga (null se desconhecido)
+     */
+    data class ConsumoChange(
+        val usuarioId: Int,
+        val data: String,  // formato: yyyy-MM-dd
+        val totalMl: Int,
+        val previousMl: Int?
+    )
 
     /**
      * Interface para callback de atualização do ranking
      */
     interface RankingUpdateListener {
-        fun onRankingChanged()
+        fun onConsumptionChanged(change: ConsumoChange)
+        fun onConnectionChanged(connected: Boolean)
         fun onRankingError(message: String)
     }
 
     /**
-     * Inicia escuta de mudanças em tempo real
-     * Monitora mudanças na tabela consumo_diario
+     * Inicia escuta de mudanças em tempo real dos usuários [userIds]
+     * Deve ser chamado no onResume() do Fragment
      */
-    suspend fun startListening(listener: RankingUpdateListener) {
-        try {
-            // Criar scope para gerenciar corrotinas
-            scope = CoroutineScope(Dispatchers.Main + SupervisorJob())
-            isListening = true
-
-            // TODO: Implementar conexão com Supabase Realtime quando API ficar mais clara
-            // Por enquanto, o Pull-to-Refresh funciona como alternativa
-
-        } catch (e: Exception) {
-            e.printStackTrace()
-            listener.onRankingError("Erro ao iniciar realtime: ${e.message}")
-        }
+    fun startListening(listener: RankingUpdateListener, userIds: Collection<Int>) {
+        if (this.listener != null) return  // Já escutando
+
+        this.listener = listener
+        watchedIds = normalize(userIds)
+        subscribe(listener, watchedIds)
+    }
+
+    /**
+     * Trocar os usuários escutados (a lista exibida mudou)
+     * Só reinscreve o canal se o conjunto for outro; fora da escuta, vale para o próximo startListening
+     */
+    fun watchUsers(userIds: Collection<Int>) {
+        val ids = normalize(userIds)
+        if (ids == watchedIds) return
+        watchedIds = ids
+
+        val current = listener ?: return
+        leaveChannel()
+        subscribe(current, ids)
     }
 
     /**
      * Para escuta de mudanças em tempo real
      * Deve ser chamado no onPause() do Fragment
      */
-    suspend fun stopListening() {
-        try {
-            scope?.cancel()
-            isListening = false
-            scope = null
-        } catch (e: Exception) {
-            e.printStackTrace()
+    fun stopListening() {
+        listener = null
+        leaveChannel()
+    }
+
+    private fun subscribe(listener: RankingUpdateListener, ids: List<Int>) {
+        if (ids.isEmpty()) return  // Nada exibido: a tela segue no polling
+
+        val listenScope = CoroutineScope(callbackDispatcher + SupervisorJob())
+        scope = listenScope
+
+        listenScope.launch {
+            try {
+                // Na abertura do app o cliente pode ainda estar sendo criado: espera fora da thread principal
+                val client = clientProvider()
+                val realtime = client.realtime
+                val newChannel = client.channel(CHANNEL_ID)
+                channel = newChannel
+
+                // O flow precisa ser criado antes do subscribe
+                newChannel.postgresChangeFlow<PostgresAction>(schema = "public") {
+                    table = "consumo_diario"
+                    filter("usuario_id", FilterOperator.IN, ids)
+                }
+                    .onEach { action -> toChange(action)?.let { listener.onConsumptionChanged(it) } }
+                    .launchIn(listenScope)
+
+                // Conectado = socket aberto e canal inscrito
+                combine(realtime.status, newChannel.status) { socketStatus, channelStatus ->
+                    socketStatus == Realtime.Status.CONNECTED &&
+                        channelStatus == RealtimeChannel.Status.SUBSCRIBED
+                }
+                    .distinctUntilChanged()
+                    .onEach { isConnected ->
+                        connected = isConnected
+                        listener.onConnectionChanged(isConnected)
+                    }
+                    .launchIn(listenScope)
+
+                newChannel.subscribe()
+            } catch (e: CancellationException) {
+                // Saída do canal (stopListening ou troca de usuários) durante a inscrição: não é erro
+                throw e
+            } catch (e: Exception) {
+                e.printStackTrace()
+                listener.onRankingError("Erro ao iniciar realtime: ${e.message}")
+            }
+        }
+    }
+
+    private fun leaveChannel() {
+        val oldChannel = channel
+        channel = null
+        connected = false
+
+        scope?.cancel()
+        scope = null
+
+        // Sair do canal fora do escopo da tela, que já foi cancelado
+        if (oldChannel != null) {
+            ServiceScope.future(TaskScheduler.Lane.POLL) {
+                try {
+                    oldChannel.supabaseClient.realtime.removeChannel(oldChannel)
+                } catch (e: Exception) {
+                    e.printStackTrace()
+                }
+            }
         }
     }
 
     /**
      * Verifica se está conectado ao realtime
      */
-    fun isConnected(): Boolean = isListening
+    fun isConnected(): Boolean = connected
+
+    // ============ Conversão das mensagens ============
+
+    private fun toChange(action: PostgresAction): ConsumoChange? {
+        return when (action) {
+            is PostgresAction.Insert -> toChange(action.record, null)
+            is PostgresAction.Update -> toChange(action.record, action.oldRecord)
+            is PostgresAction.Delete -> {
+                // Linha apagada: o consumo do dia volta a zero
+                val old = action.oldRecord
+                val usuarioId = old.int("usuario_id") ?: return null
+                val data = old.string("data") ?: return null
+                ConsumoChange(usuarioId, data, 0, old.int("total_ml"))
+            }
+            else -> null
+        }
+    }
+
+    private fun toChange(record: JsonObject, oldRecord: JsonObject?): ConsumoChange? {
+        val usuarioId = record.int("usuario_id") ?: return null
+        val data = record.string("data") ?: return null
+        val totalMl = record.int("total_ml") ?: return null
+        // A linha antiga só traz total_ml com REPLICA IDENTITY FULL
+        return ConsumoChange(usuarioId, data, totalMl, oldRecord?.int("total_ml"))
+    }
+
+    private fun JsonObject.int(key: String): Int? = (this[key] as? JsonPrimitive)?.intOrNull
+
+    private fun JsonObject.string(key: String): String? = (this[key] as? JsonPrimitive)?.contentOrNull
+
+    companion object {
+        private const val CHANNEL_ID = "ranking-consumo-diario"
+
+        // Limite de valores do filtro "in" no Supabase Realtime (e tamanho máximo do ranking exibido)
+        internal const val MAX_WATCHED_USERS = 100
+
+        internal fun normalize(userIds: Collection<Int>): List<Int> =
+            userIds.distinct().sorted().take(MAX_WATCHED_USERS)
+    }
 }
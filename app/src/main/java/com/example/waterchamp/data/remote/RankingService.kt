@@ -1,16 +1,26 @@
 package com.example.waterchamp.data.remote
 
+import com.example.waterchamp.utils.TaskScheduler
 import io.github.jan.supabase.postgrest.from
+import io.github.jan.supabase.postgrest.postgrest
+import io.github.jan.supabase.postgrest.query.Columns
+import io.github.jan.supabase.postgrest.query.Order
+import io.github.jan.supabase.postgrest.rpc
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.runBlocking
 import kotlinx.coroutines.withContext
 import kotlinx.serialization.Serializable
+import kotlinx.serialization.json.buildJsonObject
+import kotlinx.serialization.json.put
+import java.util.concurrent.CompletableFuture
 
 /**
  * Serviço para operações de ranking no Supabase
  */
 class RankingService {
 
+    // Leituras idênticas em andamento (auto-refresh, pull-to-refresh, troca de aba) viram uma só
+    val singleFlight = SingleFlight("RankingService")
+
     @Serializable
     data class RankingEntry(
         val id: Int,
@@ -24,103 +34,133 @@ class RankingService {
      * Buscar ranking diário (consumo de hoje)
      * Usa a view ranking_diario
      */
-    suspend fun getDailyRanking(limit: Int = 100): List<RankingEntry> = withContext(Dispatchers.IO) {
-        try {
-            SupabaseClient.client
-                .from("ranking_diario")
-                .select {
-                    limit(limit.toLong())
+    suspend fun getDailyRanking(limit: Int = 100): List<RankingEntry> =
+        singleFlight.run("ranking_diario:$limit") {
+            withContext(Dispatchers.IO) {
+                try {
+                    SupabaseClient.client
+                        .from("ranking_diario")
+                        .select {
+                            limit(limit.toLong())
+                        }
+                        .decodeList<RankingEntry>()
+                } catch (e: Exception) {
+                    e.printStackTrace()
+                    emptyList()
                 }
-                .decodeList<RankingEntry>()
-        } catch (e: Exception) {
-            e.printStackTrace()
-            emptyList()
+            }
         }
-    }
 
     /**
      * Buscar ranking global (últimos 30 dias)
      * Usa a view ranking_global
      */
-    suspend fun getGlobalRanking(limit: Int = 100): List<RankingEntry> = withContext(Dispatchers.IO) {
-        try {
-            SupabaseClient.client
-                .from("ranking_global")
-                .select {
-                    limit(limit.toLong())
+    suspend fun getGlobalRanking(limit: Int = 100): List<RankingEntry> =
+        singleFlight.run("ranking_global:$limit") {
+            withContext(Dispatchers.IO) {
+                try {
+                    SupabaseClient.client
+                        .from("ranking_global")
+                        .select {
+                            limit(limit.toLong())
+                        }
+                        .decodeList<RankingEntry>()
+                } catch (e: Exception) {
+                    e.printStackTrace()
+                    emptyList()
                 }
-                .decodeList<RankingEntry>()
-        } catch (e: Exception) {
-            e.printStackTrace()
-            emptyList()
+            }
         }
-    }
 
     /**
      * Buscar posição de um usuário específico no ranking diário
      */
-    suspend fun getUserDailyPosition(usuarioId: Int): Int? = withContext(Dispatchers.IO) {
-        try {
-            val ranking = getDailyRanking(1000)  // Buscar ranking completo
-            val entry = ranking.find { it.id == usuarioId }
-            entry?.posicao?.toInt()
-        } catch (e: Exception) {
-            e.printStackTrace()
-            null
-        }
-    }
+    suspend fun getUserDailyPosition(usuarioId: Int): Int? =
+        getUserDailyNeighbourhood(usuarioId)
+            .find { it.id == usuarioId }
+            ?.posicao?.toInt()
 
     /**
      * Buscar posição de um usuário específico no ranking global
      */
-    suspend fun getUserGlobalPosition(usuarioId: Int): Int? = withContext(Dispatchers.IO) {
-        try {
-            val ranking = getGlobalRanking(1000)  // Buscar ranking completo
-            val entry = ranking.find { it.id == usuarioId }
-            entry?.posicao?.toInt()
-        } catch (e: Exception) {
-            e.printStackTrace()
-            null
+    suspend fun getUserGlobalPosition(usuarioId: Int): Int? =
+        getUserGlobalNeighbourhood(usuarioId)
+            .find { it.id == usuarioId }
+            ?.posicao?.toInt()
+
+    /**
+     * Buscar o usuário no ranking diário junto com os vizinhos (± window posições)
+     * Calculado no servidor (função RPC get_vizinhanca_ranking): a resposta tem no máximo 2 * window + 1 linhas
+     */
+    suspend fun getUserDailyNeighbourhood(usuarioId: Int, window: Int = DEFAULT_WINDOW): List<RankingEntry> =
+        singleFlight.run("vizinhanca_diario:$usuarioId:$window") {
+            getNeighbourhood(usuarioId, "diario", window)
         }
-    }
 
     /**
-     * Buscar ranking de um grupo específico (consumo diário)
+     * Buscar o usuário no ranking global junto com os vizinhos (± window posições)
      */
-    suspend fun getGroupDailyRanking(grupoId: Int): List<RankingEntry> = withContext(Dispatchers.IO) {
-        try {
-            // Buscar membros do grupo
-            val membros = SupabaseClient.client
-                .from("membros_grupo")
-                .select {
-                    filter {
-                        eq("grupo_id", grupoId)
-                    }
+    suspend fun getUserGlobalNeighbourhood(usuarioId: Int, window: Int = DEFAULT_WINDOW): List<RankingEntry> =
+        singleFlight.run("vizinhanca_global:$usuarioId:$window") {
+            getNeighbourhood(usuarioId, "global", window)
+        }
+
+    private suspend fun getNeighbourhood(usuarioId: Int, ranking: String, window: Int): List<RankingEntry> =
+        withContext(Dispatchers.IO) {
+            try {
+                val params = buildJsonObject {
+                    put("p_usuario_id", usuarioId)
+                    put("p_ranking", ranking)
+                    put("p_janela", window)
                 }
-                .decodeList<MembrosGrupo>()
 
-            val userIds = membros.map { it.usuario_id }
+                SupabaseClient.client.postgrest
+                    .rpc(
+                        function = "get_vizinhanca_ranking",
+                        parameters = params
+                    )
+                    .decodeList<RankingEntry>()
+            } catch (e: Exception) {
+                e.printStackTrace()
+                emptyList()
+            }
+        }
 
-            // Buscar ranking diário apenas dos membros
-            val fullRanking = getDailyRanking(1000)
-            fullRanking.filter { it.id in userIds }
-                .sortedBy { it.posicao }
-        } catch (e: Exception) {
-            e.printStackTrace()
-            emptyList()
+    /**
+     * Buscar ranking de um grupo específico (consumo diário)
+     * Usa a view ranking_grupo_diario: só os membros do grupo, já com a posição dentro do grupo
+     */
+    suspend fun getGroupDailyRanking(grupoId: Int): List<RankingEntry> =
+        singleFlight.run("ranking_grupo:$grupoId") {
+            withContext(Dispatchers.IO) {
+                try {
+                    SupabaseClient.client
+                        .from("ranking_grupo_diario")
+                        .select(Columns.list("id", "nome", "consumo_hoje", "posicao")) {
+                            filter {
+                                eq("grupo_id", grupoId)
+                            }
+                            order("posicao", Order.ASCENDING)
+                        }
+                        .decodeList<RankingEntry>()
+                } catch (e: Exception) {
+                    e.printStackTrace()
+                    emptyList()
+                }
+            }
         }
-    }
 
-    @Serializable
-    private data class MembrosGrupo(
-        val usuario_id: Int,
-        val grupo_id: Int
-    )
+    companion object {
+        // Vizinhos acima e abaixo do usuário em getUser*Neighbourhood
+        const val DEFAULT_WINDOW = 5
+    }
 
-    // Blocking versions for Java interop
-    fun getDailyRankingBlocking(limit: Int = 100): List<RankingEntry> = runBlocking { getDailyRanking(limit) }
-    fun getGlobalRankingBlocking(limit: Int = 100): List<RankingEntry> = runBlocking { getGlobalRanking(limit) }
-    fun getUserDailyPositionBlocking(usuarioId: Int): Int? = runBlocking { getUserDailyPosition(usuarioId) }
-    fun getUserGlobalPositionBlocking(usuarioId: Int): Int? = runBlocking { getUserGlobalPosition(usuarioId) }
-    fun getGroupDailyRankingBlocking(grupoId: Int): List<RankingEntry> = runBlocking { getGroupDailyRanking(grupoId) }
+    // Async versions for Java interop (CompletableFuture, sem bloquear threads)
+    fun getDailyRankingAsync(limit: Int = 100): CompletableFuture<List<RankingEntry>> = ServiceScope.future(TaskScheduler.Lane.POLL) { getDailyRanking(limit) }
+    fun getGlobalRankingAsync(limit: Int = 100): CompletableFuture<List<RankingEntry>> = ServiceScope.future(TaskScheduler.Lane.POLL) { getGlobalRanking(limit) }
+    fun getUserDailyPositionAsync(usuarioId: Int): CompletableFuture<Int?> = ServiceScope.future(TaskScheduler.Lane.POLL) { getUserDailyPosition(usuarioId) }
+    fun getUserGlobalPositionAsync(usuarioId: Int): CompletableFuture<Int?> = ServiceScope.future(TaskScheduler.Lane.POLL) { getUserGlobalPosition(usuarioId) }
+    @JvmOverloads fun getUserDailyNeighbourhoodAsync(usuarioId: Int, window: Int = DEFAULT_WINDOW): CompletableFuture<List<RankingEntry>> = ServiceScope.future(TaskScheduler.Lane.POLL) { getUserDailyNeighbourhood(usuarioId, window) }
+    @JvmOverloads fun getUserGlobalNeighbourhoodAsync(usuarioId: Int, window: Int = DEFAULT_WINDOW): CompletableFuture<List<RankingEntry>> = ServiceScope.future(TaskScheduler.Lane.POLL) { getUserGlobalNeighbourhood(usuarioId, window) }
+    fun getGroupDailyRankingAsync(grupoId: Int): CompletableFuture<List<RankingEntry>> = ServiceScope.future(TaskScheduler.Lane.POLL) { getGroupDailyRanking(grupoId) }
 }
@@ -0,0 +1,142 @@
+package com.example.waterchamp.data.remote
+
+import com.example.waterchamp.utils.Logger
+import com.example.waterchamp.utils.TaskScheduler
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.future.future
+import kotlinx.coroutines.sync.Semaphore
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Escopo de corrotinas com vida útil do app, usado pela API assíncrona dos serviços
+ * Cada chamada *Async vira uma corrotina neste escopo e devolve um CompletableFuture,
+ * sem prender uma thread por requisição (ao contrário de runBlocking)
+ *
+ * As lanes do TaskScheduler continuam valendo, com os mesmos limites:
+ * - concorrência: requisições de ranking (POLL) nunca ocupam as vagas de login/grupos (INTERACTIVE) ou de sincronização (SYNC)
+ * - fila: com a fila da lane cheia, a chamada falha na hora (RejectedExecutionException) em vez de acumular
+ *
+ * Métricas por lane (esperando, ativas, concluídas, rejeitadas) em getStats()
+ */
+object ServiceScope {
+
+    // SupervisorJob: a falha de uma chamada não cancela as demais
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    private val gates = TaskScheduler.Lane.values().associateWith { LaneGate(it) }
+
+    /**
+     * Iniciar uma corrotina na lane indicada e expor o resultado como CompletableFuture
+     * UNDISPATCHED: o bloco começa na thread de quem chamou até a primeira suspensão,
+     * então chamadas feitas em sequência entram na fila da lane na mesma ordem
+     *
+     * Se a fila da lane estiver cheia, o future já volta com RejectedExecutionException
+     */
+    fun <T> future(
+        lane: TaskScheduler.Lane = TaskScheduler.Lane.INTERACTIVE,
+        block: suspend CoroutineScope.() -> T
+    ): CompletableFuture<T> {
+        val gate = gates.getValue(lane)
+        val admission = gate.admit()
+            ?: return CompletableFuture<T>().apply {
+                completeExceptionally(RejectedExecutionException("Muitas requisições pendentes, tente novamente"))
+            }
+
+        return scope.future(start = CoroutineStart.UNDISPATCHED) {
+            gate.run(admission) { block() }
+        }
+    }
+
+    /**
+     * Iniciar uma corrotina no escopo do app sem passar por lane (usado pelo SingleFlight,
+     * cujos chamadores já ocupam a vaga da lane enquanto aguardam)
+     */
+    internal fun <T> async(block: suspend CoroutineScope.() -> T): Deferred<T> =
+        scope.async(block = block)
+
+    // ============ Métricas ============
+
+    @JvmStatic
+    fun getStats(lane: TaskScheduler.Lane): TaskScheduler.LaneStats = gates.getValue(lane).stats()
+
+    /**
+     * Registrar no log as métricas de todas as lanes
+     */
+    @JvmStatic
+    fun logStats() {
+        for (lane in TaskScheduler.Lane.values()) {
+            Logger.d("ServiceScope", "logStats() - {}", getStats(lane))
+        }
+    }
+
+    // ============ Limite de uma lane ============
+
+    private enum class Admission { ACTIVE, QUEUED }
+
+    private class LaneGate(private val lane: TaskScheduler.Lane) {
+        private val permits = Semaphore(lane.concurrency)
+        private val waiting = AtomicInteger()
+        private val maxWaiting = AtomicInteger()
+        private val active = AtomicInteger()
+        private val completed = AtomicLong()
+        private val rejected = AtomicLong()
+
+        /**
+         * Pegar uma vaga livre ou um lugar na fila; null se a fila estiver cheia
+         */
+        fun admit(): Admission? {
+            if (permits.tryAcquire()) {
+                return Admission.ACTIVE
+            }
+
+            while (true) {
+                val current = waiting.get()
+                if (current >= lane.queueCapacity) {
+                    rejected.incrementAndGet()
+                    return null
+                }
+                if (waiting.compareAndSet(current, current + 1)) {
+                    maxWaiting.accumulateAndGet(current + 1, ::maxOf)
+                    return Admission.QUEUED
+                }
+            }
+        }
+
+        suspend fun <T> run(admission: Admission, block: suspend () -> T): T {
+            if (admission == Admission.QUEUED) {
+                // Cancelada enquanto espera: sai da fila sem ter ocupado vaga
+                try {
+                    permits.acquire()
+                } finally {
+                    waiting.decrementAndGet()
+                }
+            }
+
+            active.incrementAndGet()
+            try {
+                return block()
+            } finally {
+                active.decrementAndGet()
+                completed.incrementAndGet()
+                permits.release()
+            }
+        }
+
+        fun stats() = TaskScheduler.LaneStats(
+            lane,
+            waiting.get(),
+            maxWaiting.get(),
+            active.get(),
+            completed.get(),
+            rejected.get()
+        )
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.waterchamp.data.remote
+
+import kotlinx.coroutines.Deferred
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Deduplicação de leituras idênticas em andamento (single-flight)
+ * Chamadas concorrentes com a mesma chave compartilham uma única requisição e o mesmo
+ * resultado decodificado; não há cache: assim que a requisição termina, a próxima chamada vai à rede
+ *
+ * A requisição compartilhada só é cancelada quando todos os interessados desistem
+ * (ex.: todas as telas que pediram o ranking foram pausadas)
+ */
+class SingleFlight(private val name: String) {
+
+    private class Call(val deferred: Deferred<Any?>) {
+        var waiters = 0
+    }
+
+    private val lock = Any()
+    private val calls = HashMap<String, Call>()
+
+    // Métricas
+    private val requests = AtomicLong()
+    private val shared = AtomicLong()
+
+    /**
+     * Executar [block] ou aguardar a execução já em andamento com a mesma [key]
+     */
+    @Suppress("UNCHECKED_CAST")
+    suspend fun <T> run(key: String, block: suspend () -> T): T {
+        requests.incrementAndGet()
+
+        val call = synchronized(lock) {
+            val existing = calls[key]
+            val call = if (existing != null) {
+                shared.incrementAndGet()
+                existing
+            } else {
+                Call(ServiceScope.async { block() }).also { created ->
+                    calls[key] = created
+                    created.deferred.invokeOnCompletion {
+                        synchronized(lock) {
+                            if (calls[key] === created) calls.remove(key)
+                        }
+                    }
+                }
+            }
+            call.waiters++
+            call
+        }
+
+        try {
+            return call.deferred.await() as T
+        } finally {
+            synchronized(lock) {
+                call.waiters--
+                if (call.waiters == 0 && !call.deferred.isCompleted) {
+                    // Ninguém mais espera o resultado
+                    if (calls[key] === call) calls.remove(key)
+                    call.deferred.cancel()
+                }
+            }
+        }
+    }
+
+    // ============ Métricas ============
+
+    /** Total de leituras pedidas */
+    fun getRequestCount(): Long = requests.get()
+
+    /** Leituras atendidas por uma requisição já em andamento */
+    fun getSharedCount(): Long = shared.get()
+
+    /** Fração das leituras que não foram à rede */
+    fun getHitRate(): Double {
+        val total = requests.get()
+        return if (total == 0L) 0.0 else shared.get().toDouble() / total
+    }
+
+    override fun toString(): String =
+        "$name{leituras=${requests.get()}, compartilhadas=${shared.get()}, taxa=${"%.2f".format(getHitRate())}}"
+}
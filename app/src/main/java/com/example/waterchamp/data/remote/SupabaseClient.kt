@@ -1,54 +1,64 @@
 package com.example.waterchamp.data.remote
 
-import android.content.Context
+import android.os.SystemClock
+import android.util.Log
 import io.github.jan.supabase.createSupabaseClient
 import io.github.jan.supabase.gotrue.Auth
 import io.github.jan.supabase.postgrest.Postgrest
+import io.github.jan.supabase.realtime.Realtime
 import com.example.waterchamp.BuildConfig
+import com.example.waterchamp.utils.StartupTrace
 
 /**
  * Singleton client para gerenciar conexão com Supabase
  *
+ * O cliente (Ktor, Postgrest, Auth, Realtime) é criado sob demanda, uma única vez, mesmo com
+ * várias threads pedindo ao mesmo tempo: quem chega durante a criação espera por ela
+ * Para não atrasar a primeira requisição, warmUp() começa a criação em background na abertura do app
+ *
  * Uso do Java:
- * SupabaseClient client = SupabaseClient.INSTANCE;
- * client.initialize(context);
+ * SupabaseClient.INSTANCE.warmUp(); // Application.onCreate
  */
 object SupabaseClient {
-    private var supabaseUrl: String = ""
-    private var supabaseKey: String = ""
 
-    private var _client: io.github.jan.supabase.SupabaseClient? = null
+    // Criado uma vez; se a criação falhar, a próxima chamada tenta de novo
+    private val lazyClient = LazyHandle { createClient() }
 
+    /**
+     * Cliente pronto para uso; na primeira chamada, espera a criação terminar
+     * Bloqueia a thread enquanto isso: na thread principal, usar awaitClient()
+     */
     val client: io.github.jan.supabase.SupabaseClient
-        get() = _client ?: throw IllegalStateException(
-            "SupabaseClient não inicializado. Chame initialize(context) primeiro."
-        )
+        get() = lazyClient.value
 
     /**
-     * Inicializa o cliente Supabase com credenciais do local.properties
-     * Deve ser chamado no Application.onCreate() ou antes de usar o cliente
+     * Mesmo que [client], mas espera a criação fora da thread de quem chamou
      */
-    fun initialize(context: Context) {
-        if (_client != null) return  // Já inicializado
+    suspend fun awaitClient(): io.github.jan.supabase.SupabaseClient = lazyClient.await()
 
-        // Ler credenciais do local.properties
-        loadCredentials(context)
+    /**
+     * Começar a criar o cliente em background, sem bloquear quem chamou
+     * Deve ser chamado no Application.onCreate()
+     */
+    fun warmUp() {
+        if (lazyClient.isInitialized()) return
 
-        // Criar cliente Supabase
-        _client = createSupabaseClient(
-            supabaseUrl = supabaseUrl,
-            supabaseKey = supabaseKey
-        ) {
-            install(Postgrest)
-            install(Auth)
-            // Realtime será instalado quando necessário
+        ServiceScope.async {
+            try {
+                lazyClient.value
+            } catch (e: Exception) {
+                // A falha aparece de novo (e é tratada) na primeira requisição, que tenta criar outra vez
+                Log.e("SupabaseClient", "warmUp() - Erro ao criar cliente: ${e.message}")
+            }
         }
     }
 
-    private fun loadCredentials(context: Context) {
+    private fun createClient(): io.github.jan.supabase.SupabaseClient {
+        val start = SystemClock.uptimeMillis()
+
         // Ler credenciais do BuildConfig (gerado a partir do local.properties)
-        supabaseUrl = BuildConfig.SUPABASE_URL
-        supabaseKey = BuildConfig.SUPABASE_KEY
+        val supabaseUrl = BuildConfig.SUPABASE_URL
+        val supabaseKey = BuildConfig.SUPABASE_KEY
 
         if (supabaseUrl.isEmpty() || supabaseKey.isEmpty()) {
             throw IllegalStateException(
@@ -56,7 +66,19 @@ object SupabaseClient {
                 "Configure supabase.url e supabase.key em local.properties e faça rebuild do projeto"
             )
         }
+
+        val created = createSupabaseClient(
+            supabaseUrl = supabaseUrl,
+            supabaseKey = supabaseKey
+        ) {
+            install(Postgrest)
+            install(Auth)
+            install(Realtime)
+        }
+
+        StartupTrace.background("SupabaseClient criado", SystemClock.uptimeMillis() - start)
+        return created
     }
 
-    fun isInitialized(): Boolean = _client != null
+    fun isInitialized(): Boolean = lazyClient.isInitialized()
 }
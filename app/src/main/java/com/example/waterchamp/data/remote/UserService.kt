@@ -4,9 +4,9 @@ import io.github.jan.supabase.gotrue.auth
 import io.github.jan.supabase.gotrue.providers.builtin.Email
 import io.github.jan.supabase.postgrest.from
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.runBlocking
 import kotlinx.coroutines.withContext
 import kotlinx.serialization.Serializable
+import java.util.concurrent.CompletableFuture
 
 /**
  * Serviço para operações de usuários no Supabase
@@ -169,13 +169,13 @@ class UserService {
         }
     }
 
-    // Blocking versions for Java interop
+    // Async versions for Java interop (CompletableFuture, sem bloquear threads)
 
-    fun registerUserBlocking(nome: String, email: String, senha: String): Pair<Int?, String?> = runBlocking { registerUser(nome, email, senha) }
+    fun registerUserAsync(nome: String, email: String, senha: String): CompletableFuture<Pair<Int?, String?>> = ServiceScope.future { registerUser(nome, email, senha) }
 
-    fun loginBlocking(email: String, senha: String): Pair<Int?, String?> = runBlocking { login(email, senha) }
+    fun loginAsync(email: String, senha: String): CompletableFuture<Pair<Int?, String?>> = ServiceScope.future { login(email, senha) }
 
-    fun logoutBlocking() = runBlocking { logout() }
+    fun logoutAsync(): CompletableFuture<Boolean> = ServiceScope.future { logout(); true }
 
-    fun getUserByIdBlocking(id: Int): Usuario? = runBlocking { getUserById(id) }
+    fun getUserByIdAsync(id: Int): CompletableFuture<Usuario?> = ServiceScope.future { getUserById(id) }
 }
@@ -1,15 +1,27 @@
 package com.example.waterchamp.data.repository;
 
-import android.content.Context;
-import android.util.Log;
 import com.example.waterchamp.data.local.HistoryCache;
 import com.example.waterchamp.data.local.PreferencesManager;
 import com.example.waterchamp.data.remote.ConsumoService;
+import com.example.waterchamp.data.sync.ConsumoSyncCoalescer;
+import com.example.waterchamp.data.sync.OutboxDrainer;
+import com.example.waterchamp.data.sync.SyncOutbox;
 import com.example.waterchamp.model.HistoryRecord;
 import com.example.waterchamp.utils.CoroutineHelper;
-
+import com.example.waterchamp.utils.Logger;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository para gerenciar operações de consumo de água
@@ -20,11 +32,26 @@ public class ConsumoRepository {
     private final ConsumoService consumoService;
     private final HistoryCache historyCache;
     private final PreferencesManager prefsManager;
+    private final ConsumoSyncCoalescer syncCoalescer;
+
+    // Totais ainda não confirmados pelo servidor e novas tentativas
+    private final SyncOutbox syncOutbox;
+    private final OutboxDrainer outboxDrainer;
 
-    public ConsumoRepository(Context context) {
-        this.consumoService = new ConsumoService();
-        this.historyCache = new HistoryCache(context);
-        this.prefsManager = new PreferencesManager(context);
+    public ConsumoRepository(ConsumoService consumoService, HistoryCache historyCache, PreferencesManager prefsManager, SyncOutbox syncOutbox) {
+        this(consumoService, historyCache, prefsManager, syncOutbox, ConsumoSyncCoalescer.DEFAULT_WINDOW_MS);
+    }
+
+    /**
+     * @param syncWindowMs janela em que vários toques são agrupados em uma única sincronização
+     */
+    public ConsumoRepository(ConsumoService consumoService, HistoryCache historyCache, PreferencesManager prefsManager, SyncOutbox syncOutbox, long syncWindowMs) {
+        this.consumoService = consumoService;
+        this.historyCache = historyCache;
+        this.prefsManager = prefsManager;
+        this.syncOutbox = syncOutbox;
+        this.syncCoalescer = new ConsumoSyncCoalescer(syncWindowMs, this::sendDailyTotal);
+        this.outboxDrainer = new OutboxDrainer(syncOutbox, this::sendBatch);
     }
 
     /**
@@ -39,8 +66,9 @@ public class ConsumoRepository {
      * Adicionar água consumida
      * 1. Salva localmente (histórico detalhado)
      * 2. Sincroniza total com servidor (background)
+     * @return registro adicionado ao histórico
      */
-    public void addWater(int amountMl) {
+    public HistoryRecord addWater(int amountMl) {
         // 1. Salvar localmente
         HistoryRecord record = new HistoryRecord(
             System.currentTimeMillis(),
@@ -53,10 +81,12 @@ public class ConsumoRepository {
         prefsManager.addToTotalConsumed(amountMl);
 
         int todayTotal = historyCache.getTodayTotal();
-        Log.d("ConsumoRepository", "addWater() - Total local após adicionar " + amountMl + "ml: " + todayTotal + "ml");
+        Logger.d("ConsumoRepository", "addWater() - Total local após adicionar {}ml: {}ml", amountMl, todayTotal);
 
         // 2. Sincronizar com servidor (background, sem bloquear UI)
         syncTodayConsumption(null);
+
+        return record;
     }
 
     /**
@@ -107,6 +137,13 @@ public class ConsumoRepository {
         return historyCache.getTodayTotal();
     }
 
+    /**
+     * Obter o registro mais recente de hoje, ou null se não houver
+     */
+    public HistoryRecord getLastRecord() {
+        return historyCache.getLastRecord();
+    }
+
     /**
      * Obter histórico de hoje
      */
@@ -116,11 +153,12 @@ public class ConsumoRepository {
 
     /**
      * Sincronizar consumo de hoje com servidor
+     * Pedidos dentro da janela do coalescer são agrupados em um único upsert do total mais recente
      */
     public void syncTodayConsumption(SyncCallback callback) {
         int userId = prefsManager.getUserId();
         if (userId == -1) {
-            Log.e("ConsumoRepository", "syncTodayConsumption() - Usuário não autenticado (userId: " + userId + ")");
+            Logger.e("ConsumoRepository", "syncTodayConsumption() - Usuário não autenticado (userId: {})", userId);
             if (callback != null) {
                 callback.onError("Usuário não autenticado");
             }
@@ -128,30 +166,82 @@ public class ConsumoRepository {
         }
 
         int todayTotal = historyCache.getTodayTotal();
-        Date today = new Date();
+        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+
+        Logger.d("ConsumoRepository", "syncTodayConsumption() - Agendando: userId={}, total={}ml, date={}", userId, todayTotal, today);
 
-        Log.d("ConsumoRepository", "syncTodayConsumption() - Sincronizando: userId=" + userId + ", total=" + todayTotal + "ml, date=" + today);
+        // Gravar na fila antes de enviar: se o envio falhar ou o processo morrer, o total é reenviado depois
+        syncOutbox.put(userId, today, todayTotal);
 
-        CoroutineHelper.runAsync(
-            () -> consumoService.syncDailyConsumptionBlocking(userId, today, todayTotal),
+        syncCoalescer.request(
+            userId,
+            today,
+            todayTotal,
+            callback == null ? null : new ConsumoSyncCoalescer.Callback() {
+                @Override
+                public void onSuccess() {
+                    callback.onSuccess();
+                }
+
+                @Override
+                public void onError(String message) {
+                    callback.onError(message);
+                }
+            }
+        );
+    }
+
+    /**
+     * Enviar imediatamente a sincronização pendente (app em background ou logout)
+     */
+    public void flushPendingSync() {
+        if (syncCoalescer.hasPending()) {
+            Logger.d("ConsumoRepository", "flushPendingSync() - Enviando sincronização pendente");
+        }
+        syncCoalescer.flush();
+    }
+
+    /**
+     * Coalescer de sincronização (métricas de chamadas evitadas)
+     */
+    public ConsumoSyncCoalescer getSyncCoalescer() {
+        return syncCoalescer;
+    }
+
+    /**
+     * Enviar o total de um dia ao servidor (chamado pelo coalescer)
+     */
+    private void sendDailyTotal(int userId, String date, int totalMl, List<ConsumoSyncCoalescer.Callback> callbacks) {
+        Logger.d("ConsumoRepository", "sendDailyTotal() - Sincronizando: userId={}, total={}ml, date={} ({} chamadas evitadas)",
+            userId, totalMl, date, syncCoalescer.getSavedCount());
+
+        CoroutineHelper.whenComplete(
+            consumoService.syncDailyConsumptionAsync(userId, date, totalMl),
             new CoroutineHelper.CoroutineCallback<Boolean>() {
                 @Override
                 public void onComplete(Boolean success, String error) {
                     if (error != null) {
-                        Log.e("ConsumoRepository", "syncTodayConsumption() - Erro: " + error);
-                        if (callback != null) {
+                        Logger.e("ConsumoRepository", "sendDailyTotal() - Erro: {}", error);
+                        scheduleRetry();
+                        for (ConsumoSyncCoalescer.Callback callback : callbacks) {
                             callback.onError("Erro: " + error);
                         }
                     } else if (Boolean.TRUE.equals(success)) {
-                        Log.d("ConsumoRepository", "syncTodayConsumption() - Sincronização bem-sucedida!");
+                        Logger.d("ConsumoRepository", "sendDailyTotal() - Sincronização bem-sucedida!");
                         // Atualizar timestamp de última sincronização
                         prefsManager.setLastSyncTimestamp(System.currentTimeMillis());
-                        if (callback != null) {
+                        syncOutbox.remove(new SyncOutbox.Entry(userId, date, totalMl));
+                        // Conexão funcionando: reenviar o que ficou de falhas anteriores
+                        if (!syncOutbox.isEmpty() && !syncCoalescer.hasPending()) {
+                            drainOutbox();
+                        }
+                        for (ConsumoSyncCoalescer.Callback callback : callbacks) {
                             callback.onSuccess();
                         }
                     } else {
-                        Log.e("ConsumoRepository", "syncTodayConsumption() - Falha ao sincronizar com servidor");
-                        if (callback != null) {
+                        Logger.e("ConsumoRepository", "sendDailyTotal() - Falha ao sincronizar com servidor");
+                        scheduleRetry();
+                        for (ConsumoSyncCoalescer.Callback callback : callbacks) {
                             callback.onError("Falha ao sincronizar com servidor");
                         }
                     }
@@ -160,6 +250,71 @@ public class ConsumoRepository {
         );
     }
 
+    // ============ Outbox ============
+
+    /**
+     * Reenviar de uma vez todos os totais pendentes na fila
+     * Chamado quando a conexão volta e pelas novas tentativas agendadas
+     */
+    public void drainOutbox() {
+        backfillUnsyncedDays(null);
+    }
+
+    /**
+     * Enviar todos os dias ainda não sincronizados em uma única chamada por usuário
+     * (função RPC set_consumo_diario_lote), em vez de uma chamada por dia
+     */
+    public void backfillUnsyncedDays(SyncCallback callback) {
+        Logger.d("ConsumoRepository", "backfillUnsyncedDays() - {} dia(s) pendente(s)", syncOutbox.size());
+
+        outboxDrainer.drain(new OutboxDrainer.Listener() {
+            @Override
+            public void onDrained(int sentCount) {
+                if (sentCount > 0) {
+                    Logger.d("ConsumoRepository", "backfillUnsyncedDays() - Fila sincronizada ({} dia(s))", sentCount);
+                    prefsManager.setLastSyncTimestamp(System.currentTimeMillis());
+                }
+                if (callback != null) {
+                    callback.onSuccess();
+                }
+            }
+
+            @Override
+            public void onFailed(String message) {
+                Logger.e("ConsumoRepository", "backfillUnsyncedDays() - {}", message);
+                if (callback != null) {
+                    callback.onError(message);
+                }
+            }
+        });
+    }
+
+    /**
+     * Enviar os dias pendentes de um usuário (chamado pelo OutboxDrainer)
+     */
+    private CompletableFuture<Boolean> sendBatch(int userId, List<SyncOutbox.Entry> entries) {
+        List<ConsumoService.ConsumoDiario> rows = new ArrayList<>(entries.size());
+        for (SyncOutbox.Entry entry : entries) {
+            rows.add(new ConsumoService.ConsumoDiario(null, entry.getUserId(), entry.getDate(), entry.getTotalMl()));
+        }
+        return consumoService.syncDailyConsumptionBatchAsync(userId, rows);
+    }
+
+    /**
+     * Quantidade de dias aguardando confirmação do servidor
+     */
+    public int getPendingSyncCount() {
+        return syncOutbox.size();
+    }
+
+    /**
+     * Agendar nova tentativa com atraso exponencial
+     */
+    private void scheduleRetry() {
+        long delay = outboxDrainer.scheduleRetry();
+        Logger.d("ConsumoRepository", "scheduleRetry() - Nova tentativa em {}ms (tentativa {})", delay, outboxDrainer.getAttempts());
+    }
+
     /**
      * Buscar consumo do servidor para uma data específica
      */
@@ -170,8 +325,8 @@ public class ConsumoRepository {
             return;
         }
 
-        CoroutineHelper.runAsync(
-            () -> consumoService.getConsumptionByDateBlocking(userId, date),
+        CoroutineHelper.whenComplete(
+            consumoService.getConsumptionByDateAsync(userId, date),
             new CoroutineHelper.CoroutineCallback<ConsumoService.ConsumoDiario>() {
                 @Override
                 public void onComplete(ConsumoService.ConsumoDiario consumo, String error) {
@@ -188,55 +343,204 @@ public class ConsumoRepository {
     }
 
     /**
-     * Buscar histórico dos últimos N dias do servidor
+     * Obter histórico dos últimos N dias do armazenamento local (sem rede)
+     * Retorna apenas dias com consumo, do mais recente para o mais antigo
+     */
+    public List<ConsumoService.ConsumoDiario> getLocalConsumptionHistory(int days) {
+        int userId = prefsManager.getUserId();
+        int[] totals = historyCache.getLastDaysTotals(days);
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        Calendar calendar = Calendar.getInstance();
+
+        List<ConsumoService.ConsumoDiario> history = new ArrayList<>();
+        for (int i = 0; i < totals.length; i++) {
+            if (totals[i] > 0) {
+                history.add(new ConsumoService.ConsumoDiario(null, userId, dateFormat.format(calendar.getTime()), totals[i]));
+            }
+            calendar.add(Calendar.DAY_OF_YEAR, -1);
+        }
+        return history;
+    }
+
+    /**
+     * Obter total consumido nos últimos N dias do armazenamento local (sem rede)
+     */
+    public long getLocalTotalConsumption(int days) {
+        long total = 0;
+        for (int dayTotal : historyCache.getLastDaysTotals(days)) {
+            total += dayTotal;
+        }
+        return total;
+    }
+
+    /**
+     * Buscar histórico dos últimos N dias
+     * Traz do servidor só as linhas alteradas desde a última sincronização e
+     * responde a partir do armazenamento local
      */
     public void getConsumptionHistory(int days, HistoryCallback callback) {
+        pullConsumptionChanges(new SyncCallback() {
+            @Override
+            public void onSuccess() {
+                callback.onSuccess(getLocalConsumptionHistory(days));
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    /**
+     * Sincronização incremental: buscar linhas de consumo_diario com updated_at >= watermark,
+     * mesclar no armazenamento local e avançar o watermark
+     * Sem watermark (primeira vez ou após logout), busca todo o período mantido localmente
+     */
+    public void pullConsumptionChanges(SyncCallback callback) {
         int userId = prefsManager.getUserId();
         if (userId == -1) {
             callback.onError("Usuário não autenticado");
             return;
         }
 
-        CoroutineHelper.runAsync(
-            () -> consumoService.getConsumptionHistoryBlocking(userId, days),
+        String since = prefsManager.getConsumoWatermark();
+        int days = historyCache.getRetentionDays();
+
+        CoroutineHelper.whenComplete(
+            consumoService.getConsumptionChangesSinceAsync(userId, since, days),
             new CoroutineHelper.CoroutineCallback<List<ConsumoService.ConsumoDiario>>() {
                 @Override
-                public void onComplete(List<ConsumoService.ConsumoDiario> history, String error) {
+                public void onComplete(List<ConsumoService.ConsumoDiario> changes, String error) {
                     if (error != null) {
                         callback.onError("Erro: " + error);
-                    } else {
-                        callback.onSuccess(history);
+                        return;
+                    }
+                    if (changes == null) {
+                        callback.onError("Falha ao buscar alterações do servidor");
+                        return;
                     }
+
+                    Logger.d("ConsumoRepository", "pullConsumptionChanges() - {} linha(s) alterada(s) desde {}", changes.size(), since);
+                    mergeIntoLocalStore(userId, changes);
+
+                    String watermark = latestUpdatedAt(since, changes);
+                    if (watermark != null && !watermark.equals(since)) {
+                        prefsManager.setConsumoWatermark(watermark);
+                    }
+
+                    callback.onSuccess();
                 }
             }
         );
     }
 
     /**
-     * Calcular sequência (streak) de dias
+     * Maior updated_at entre o watermark atual e as linhas recebidas, no texto original do servidor
+     * Compara como instante: o servidor varia a precisão das frações de segundo e o fuso ("Z" ou "+00:00"),
+     * e a comparação de texto escolheria a linha errada
      */
-    public void calculateStreak(StreakCallback callback) {
-        int userId = prefsManager.getUserId();
-        int metaDiaria = prefsManager.getDailyGoal();
+    static String latestUpdatedAt(String since, List<ConsumoService.ConsumoDiario> changes) {
+        String latest = since;
+        Instant latestInstant = parseUpdatedAt(since);
+
+        for (ConsumoService.ConsumoDiario consumo : changes) {
+            Instant updatedAt = parseUpdatedAt(consumo.getUpdated_at());
+            if (updatedAt != null && (latestInstant == null || updatedAt.isAfter(latestInstant))) {
+                latest = consumo.getUpdated_at();
+                latestInstant = updatedAt;
+            }
+        }
+        return latest;
+    }
 
-        if (userId == -1) {
-            callback.onError("Usuário não autenticado");
+    private static Instant parseUpdatedAt(String updatedAt) {
+        if (updatedAt == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(updatedAt).toInstant();
+        } catch (DateTimeParseException e) {
+            Logger.w("ConsumoRepository", "parseUpdatedAt() - Horário inválido: {}", updatedAt);
+            return null;
+        }
+    }
+
+    /**
+     * Guardar totais diários do servidor no armazenamento local
+     * Dias com total ainda pendente de envio são ignorados: o valor local é mais novo
+     */
+    private void mergeIntoLocalStore(int userId, List<ConsumoService.ConsumoDiario> history) {
+        if (history == null || history.isEmpty()) {
             return;
         }
 
-        CoroutineHelper.runAsync(
-            () -> consumoService.calculateStreakBlocking(userId, metaDiaria),
-            new CoroutineHelper.CoroutineCallback<Integer>() {
-                @Override
-                public void onComplete(Integer streak, String error) {
-                    if (error != null) {
-                        callback.onError("Erro: " + error);
-                    } else {
-                        callback.onSuccess(streak);
-                    }
+        Map<String, Integer> pending = new HashMap<>();
+        for (SyncOutbox.Entry entry : syncOutbox.getPending()) {
+            if (entry.getUserId() == userId) {
+                pending.put(entry.getDate(), entry.getTotalMl());
+            }
+        }
+
+        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+        Map<String, Integer> totalsByDate = new HashMap<>();
+        for (ConsumoService.ConsumoDiario consumo : history) {
+            if (pending.containsKey(consumo.getData())) {
+                continue;
+            }
+
+            if (today.equals(consumo.getData())) {
+                // Hoje vem dos registros locais; sem nenhum (histórico recém-limpo), partir do total do servidor
+                // para o próximo envio não sobrescrever o dia com um valor menor
+                if (historyCache.getRecordCount() == 0 && historyCache.getTodayTotal() == 0) {
+                    historyCache.setTodayTotal(consumo.getTotal_ml());
                 }
+            } else {
+                totalsByDate.put(consumo.getData(), consumo.getTotal_ml());
             }
-        );
+        }
+        historyCache.mergeDayTotals(totalsByDate);
+    }
+
+    /**
+     * Calcular sequência (streak) de dias
+     * Sincroniza as alterações do servidor e responde a partir do motor local de sequência
+     */
+    public void calculateStreak(StreakCallback callback) {
+        pullConsumptionChanges(new SyncCallback() {
+            @Override
+            public void onSuccess() {
+                callback.onSuccess(getCurrentStreak());
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        });
+    }
+
+    /**
+     * Verificar se o histórico do servidor já foi baixado ao menos uma vez para este usuário
+     * Falso em instalação nova ou após logout, quando os dados locais ainda estão vazios
+     */
+    public boolean hasPulledChanges() {
+        return prefsManager.getConsumoWatermark() != null;
+    }
+
+    /**
+     * Sequência atual a partir dos dados locais (sem rede)
+     * Usa a meta atual, então mudanças de meta são refletidas na próxima consulta
+     */
+    public int getCurrentStreak() {
+        return historyCache.getCurrentStreak(prefsManager.getDailyGoal());
+    }
+
+    /**
+     * Melhor sequência a partir dos dados locais (sem rede)
+     */
+    public int getBestStreak() {
+        return historyCache.getBestStreak(prefsManager.getDailyGoal());
     }
 
     /**
@@ -246,6 +550,17 @@ public class ConsumoRepository {
         return historyCache.hasRecordsToUndo();
     }
 
+    /**
+     * Apagar o histórico local e a marca da última sincronização (logout ou troca de conta)
+     * Chamar depois de flushPendingSync(): o total pendente já foi capturado com o usuário anterior
+     * Na próxima busca de alterações, o histórico do usuário atual é baixado por inteiro
+     */
+    public void clearLocalData() {
+        Logger.d("ConsumoRepository", "clearLocalData() - Apagando histórico local");
+        historyCache.clear();
+        prefsManager.setConsumoWatermark(null);
+    }
+
     /**
      * Limpar histórico de hoje (útil para testes)
      */
@@ -1,7 +1,5 @@
 package com.example.waterchamp.data.repository;
 
-import android.content.Context;
-
 import com.example.waterchamp.data.local.PreferencesManager;
 import com.example.waterchamp.data.remote.GrupoService;
 import com.example.waterchamp.model.Group;
@@ -9,6 +7,7 @@ import com.example.waterchamp.utils.CoroutineHelper;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository para gerenciar operações de grupos
@@ -19,9 +18,9 @@ public class GrupoRepository {
     private final GrupoService grupoService;
     private final PreferencesManager prefsManager;
 
-    public GrupoRepository(Context context) {
-        this.grupoService = new GrupoService();
-        this.prefsManager = new PreferencesManager(context);
+    public GrupoRepository(GrupoService grupoService, PreferencesManager prefsManager) {
+        this.grupoService = grupoService;
+        this.prefsManager = prefsManager;
     }
 
     // ============ Callbacks ============
@@ -53,33 +52,37 @@ public class GrupoRepository {
             return;
         }
 
-        CoroutineHelper.runAsync(
-            () -> grupoService.getUserGroupsBlocking(userId),
-            new CoroutineHelper.CoroutineCallback<List<GrupoService.GrupoData>>() {
+        // Grupos e contagem de membros chegam juntos, em uma única requisição
+        CompletableFuture<List<Group>> future = grupoService.getUserGroupsAsync(userId).thenApply(grupos -> {
+            // Converter de GrupoData para Group
+            List<Group> groupList = new ArrayList<>();
+            if (grupos == null) {
+                return groupList; // Lista vazia
+            }
+
+            for (GrupoService.GrupoData grupo : grupos) {
+                Group group = new Group(
+                    grupo.getId(),
+                    grupo.getNome(),
+                    grupo.getDescricao(),
+                    grupo.getCriador_id(),
+                    grupo.getData_criacao(),
+                    grupo.getTotal_membros() != null ? grupo.getTotal_membros() : 0
+                );
+                groupList.add(group);
+            }
+            return groupList;
+        });
+
+        CoroutineHelper.whenComplete(
+            future,
+            new CoroutineHelper.CoroutineCallback<List<Group>>() {
                 @Override
-                public void onComplete(List<GrupoService.GrupoData> grupos, String error) {
+                public void onComplete(List<Group> groups, String error) {
                     if (error != null) {
                         callback.onError("Erro: " + error);
-                    } else if (grupos != null && !grupos.isEmpty()) {
-                        // Converter de GrupoData para Group e buscar contagem real de membros
-                        List<Group> groupList = new ArrayList<>();
-                        for (GrupoService.GrupoData grupo : grupos) {
-                            // Buscar contagem real de membros
-                            int realMemberCount = grupoService.countGroupMembersBlocking(grupo.getId());
-
-                            Group group = new Group(
-                                grupo.getId(),
-                                grupo.getNome(),
-                                grupo.getDescricao(),
-                                grupo.getCriador_id(),
-                                grupo.getData_criacao(),
-                                realMemberCount
-                            );
-                            groupList.add(group);
-                        }
-                        callback.onSuccess(groupList);
                     } else {
-                        callback.onSuccess(new ArrayList<>()); // Lista vazia
+                        callback.onSuccess(groups);
                     }
                 }
             }
@@ -96,8 +99,8 @@ public class GrupoRepository {
             return;
         }
 
-        CoroutineHelper.runAsync(
-            () -> grupoService.createGroupBlocking(nome, descricao, userId),
+        CoroutineHelper.whenComplete(
+            grupoService.createGroupAsync(nome, descricao, userId),
             new CoroutineHelper.CoroutineCallback<GrupoService.GrupoData>() {
                 @Override
                 public void onComplete(GrupoService.GrupoData grupo, String error) {
@@ -131,8 +134,8 @@ public class GrupoRepository {
             return;
         }
 
-        CoroutineHelper.runAsync(
-            () -> grupoService.deleteGroupBlocking(groupId),
+        CoroutineHelper.whenComplete(
+            grupoService.deleteGroupAsync(groupId),
             new CoroutineHelper.CoroutineCallback<Boolean>() {
                 @Override
                 public void onComplete(Boolean success, String error) {
@@ -152,8 +155,8 @@ public class GrupoRepository {
      * Adicionar membro a um grupo
      */
     public void addMemberToGroup(int groupId, int userId, OperationCallback callback) {
-        CoroutineHelper.runAsync(
-            () -> grupoService.addMemberToGroupBlocking(groupId, userId),
+        CoroutineHelper.whenComplete(
+            grupoService.addMemberToGroupAsync(groupId, userId),
             new CoroutineHelper.CoroutineCallback<Boolean>() {
                 @Override
                 public void onComplete(Boolean success, String error) {
@@ -173,8 +176,8 @@ public class GrupoRepository {
      * Remover membro de um grupo
      */
     public void removeMemberFromGroup(int groupId, int userId, OperationCallback callback) {
-        CoroutineHelper.runAsync(
-            () -> grupoService.removeMemberFromGroupBlocking(groupId, userId),
+        CoroutineHelper.whenComplete(
+            grupoService.removeMemberFromGroupAsync(groupId, userId),
             new CoroutineHelper.CoroutineCallback<Boolean>() {
                 @Override
                 public void onComplete(Boolean success, String error) {
@@ -211,8 +214,8 @@ public class GrupoRepository {
                 }
 
                 // Adicionar usuário ao grupo
-                CoroutineHelper.runAsync(
-                    () -> grupoService.addMemberToGroupBlocking(groupId, userId),
+                CoroutineHelper.whenComplete(
+                    grupoService.addMemberToGroupAsync(groupId, userId),
                     new CoroutineHelper.CoroutineCallback<Boolean>() {
                         @Override
                         public void onComplete(Boolean success, String error) {
@@ -247,8 +250,8 @@ public class GrupoRepository {
         }
 
         // Remover usuário do grupo
-        CoroutineHelper.runAsync(
-            () -> grupoService.removeMemberFromGroupBlocking(group.getId(), userId),
+        CoroutineHelper.whenComplete(
+            grupoService.removeMemberFromGroupAsync(group.getId(), userId),
             new CoroutineHelper.CoroutineCallback<Boolean>() {
                 @Override
                 public void onComplete(Boolean success, String error) {
@@ -256,8 +259,8 @@ public class GrupoRepository {
                         callback.onError("Erro: " + error);
                     } else if (Boolean.TRUE.equals(success)) {
                         // Verificar se o grupo ficou vazio
-                        CoroutineHelper.runAsync(
-                            () -> grupoService.getGroupMembersBlocking(group.getId()),
+                        CoroutineHelper.whenComplete(
+                            grupoService.getGroupMembersAsync(group.getId()),
                             new CoroutineHelper.CoroutineCallback<List<Integer>>() {
                                 @Override
                                 public void onComplete(List<Integer> membros, String error) {
@@ -266,8 +269,8 @@ public class GrupoRepository {
                                         callback.onSuccess();
                                     } else if (membros == null || membros.isEmpty()) {
                                         // Grupo ficou vazio, deletar
-                                        CoroutineHelper.runAsync(
-                                            () -> grupoService.deleteGroupBlocking(group.getId()),
+                                        CoroutineHelper.whenComplete(
+                                            grupoService.deleteGroupAsync(group.getId()),
                                             new CoroutineHelper.CoroutineCallback<Boolean>() {
                                                 @Override
                                                 public void onComplete(Boolean deleted, String deleteError) {
@@ -1,7 +1,5 @@
 package com.example.waterchamp.data.repository;
 
-import android.content.Context;
-import android.util.Log;
 import com.example.waterchamp.data.local.HistoryCache;
 import com.example.waterchamp.data.local.PreferencesManager;
 import com.example.waterchamp.data.remote.RankingService;
@@ -9,6 +7,7 @@ import com.example.waterchamp.model.Group;
 import com.example.waterchamp.model.User;
 import com.example.waterchamp.model.UserDatabase;
 import com.example.waterchamp.utils.CoroutineHelper;
+import com.example.waterchamp.utils.Logger;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -23,11 +22,12 @@ public class RankingRepository {
     private final GrupoRepository grupoRepository;
     private final HistoryCache historyCache;
 
-    public RankingRepository(Context context) {
-        this.rankingService = new RankingService();
-        this.prefsManager = new PreferencesManager(context);
-        this.grupoRepository = new GrupoRepository(context);
-        this.historyCache = new HistoryCache(context);
+    public RankingRepository(RankingService rankingService, PreferencesManager prefsManager,
+                             GrupoRepository grupoRepository, HistoryCache historyCache) {
+        this.rankingService = rankingService;
+        this.prefsManager = prefsManager;
+        this.grupoRepository = grupoRepository;
+        this.historyCache = historyCache;
     }
 
     /**
@@ -47,8 +47,8 @@ public class RankingRepository {
      * Buscar ranking diário
      */
     public void getDailyRanking(int limit, RankingCallback callback) {
-        CoroutineHelper.runAsync(
-            () -> rankingService.getDailyRankingBlocking(limit),
+        CoroutineHelper.whenComplete(
+            rankingService.getDailyRankingAsync(limit),
             (entries, error) -> {
                 if (error != null) {
                     callback.onError("Erro ao buscar ranking: " + error);
@@ -61,6 +61,7 @@ public class RankingRepository {
                             "",  // Email não é necessário para ranking
                             entry.getConsumo_hoje() != null ? entry.getConsumo_hoje() : 0
                         );
+                        user.setId(entry.getId());
                         user.setRank((int) entry.getPosicao());
                         users.add(user);
                     }
@@ -81,16 +82,16 @@ public class RankingRepository {
      * Usa cache local para o consumo do dia do usuário atual
      */
     public void getGlobalRanking(int limit, RankingCallback callback) {
-        Log.d("RankingRepository", "getGlobalRanking() - Buscando ranking global com limite: " + limit);
+        Logger.d("RankingRepository", "getGlobalRanking() - Buscando ranking global com limite: {}", limit);
 
-        CoroutineHelper.runAsync(
-            () -> rankingService.getGlobalRankingBlocking(limit),
+        CoroutineHelper.whenComplete(
+            rankingService.getGlobalRankingAsync(limit),
             (entries, error) -> {
                 if (error != null) {
-                    Log.e("RankingRepository", "getGlobalRanking() - Erro: " + error);
+                    Logger.e("RankingRepository", "getGlobalRanking() - Erro: {}", error);
                     callback.onError("Erro ao buscar ranking global: " + error);
                 } else if (entries != null) {
-                    Log.d("RankingRepository", "getGlobalRanking() - Recebido " + entries.size() + " entries do servidor");
+                    Logger.d("RankingRepository", "getGlobalRanking() - Recebido {} entries do servidor", entries.size());
 
                     // Obter consumo local do usuário atual do cache
                     int localConsumption = historyCache.getTodayTotal();
@@ -107,10 +108,10 @@ public class RankingRepository {
                             long serverTotal = entry.getTotal_30_dias() != null ? entry.getTotal_30_dias() : 0;
                             // Atualizar o valor de hoje no total 30 dias
                             total30dias = serverTotal - historyCache.getTodayTotal() + localConsumption;
-                            Log.d("RankingRepository", "  Usuário atual (" + entry.getNome() + ") - usando cache local para hoje: " + localConsumption + "ml, total 30 dias: " + total30dias + "ml");
+                            Logger.d("RankingRepository", "  Usuário atual ({}) - usando cache local para hoje: {}ml, total 30 dias: {}ml", entry.getNome(), localConsumption, total30dias);
                         } else {
                             total30dias = entry.getTotal_30_dias() != null ? entry.getTotal_30_dias() : 0;
-                            Log.d("RankingRepository", "  Outro usuário (" + entry.getNome() + ") - usando servidor: " + total30dias + "ml");
+                            Logger.d("RankingRepository", "  Outro usuário ({}) - usando servidor: {}ml", entry.getNome(), total30dias);
                         }
 
                         User user = new User(
@@ -118,16 +119,15 @@ public class RankingRepository {
                             "",
                             (int) total30dias  // Usar o total 30 dias como waterIntake para exibição
                         );
+                        user.setId(entry.getId());
                         user.setRank((int) entry.getPosicao());
                         users.add(user);
                     }
 
-                    // Ordenar por posição
-                    Collections.sort(users, (u1, u2) -> Integer.compare(u1.getRank(), u2.getRank()));
-
+                    // A ordem final (com o consumo local do usuário atual) fica com o RankingModel do controller
                     callback.onSuccess(users);
                 } else {
-                    Log.e("RankingRepository", "getGlobalRanking() - Nenhum resultado encontrado");
+                    Logger.e("RankingRepository", "getGlobalRanking() - Nenhum resultado encontrado");
                     callback.onError("Nenhum resultado encontrado");
                 }
             }
@@ -144,8 +144,8 @@ public class RankingRepository {
             return;
         }
 
-        CoroutineHelper.runAsync(
-            () -> rankingService.getUserDailyPositionBlocking(userId),
+        CoroutineHelper.whenComplete(
+            rankingService.getUserDailyPositionAsync(userId),
             (position, error) -> {
                 if (error != null) {
                     callback.onError("Erro: " + error);
@@ -168,8 +168,8 @@ public class RankingRepository {
             return;
         }
 
-        CoroutineHelper.runAsync(
-            () -> rankingService.getUserGlobalPositionBlocking(userId),
+        CoroutineHelper.whenComplete(
+            rankingService.getUserGlobalPositionAsync(userId),
             (position, error) -> {
                 if (error != null) {
                     callback.onError("Erro: " + error);
@@ -186,16 +186,16 @@ public class RankingRepository {
      * Buscar ranking de um grupo específico
      */
     public void getGroupDailyRanking(int groupId, RankingCallback callback) {
-        Log.d("RankingRepository", "getGroupDailyRanking() - Buscando ranking do grupo: " + groupId);
+        Logger.d("RankingRepository", "getGroupDailyRanking() - Buscando ranking do grupo: {}", groupId);
 
-        CoroutineHelper.runAsync(
-            () -> rankingService.getGroupDailyRankingBlocking(groupId),
+        CoroutineHelper.whenComplete(
+            rankingService.getGroupDailyRankingAsync(groupId),
             (entries, error) -> {
                 if (error != null) {
-                    Log.e("RankingRepository", "getGroupDailyRanking() - Erro: " + error);
+                    Logger.e("RankingRepository", "getGroupDailyRanking() - Erro: {}", error);
                     callback.onError("Erro ao buscar ranking do grupo: " + error);
                 } else if (entries != null) {
-                    Log.d("RankingRepository", "getGroupDailyRanking() - Recebido " + entries.size() + " entries do servidor");
+                    Logger.d("RankingRepository", "getGroupDailyRanking() - Recebido {} entries do servidor", entries.size());
                     // Converter para lista de Users
                     List<User> users = new ArrayList<>();
                     for (RankingService.RankingEntry entry : entries) {
@@ -205,14 +205,15 @@ public class RankingRepository {
                             "",
                             consumo
                         );
+                        user.setId(entry.getId());
                         user.setRank((int) entry.getPosicao());
                         users.add(user);
-                        Log.d("RankingRepository", "  [" + entry.getPosicao() + "] " + entry.getNome() + " - " + consumo + "ml (consumo_hoje=" + entry.getConsumo_hoje() + ")");
+                        Logger.d("RankingRepository", "  [{}] {} - {}ml (consumo_hoje={})", entry.getPosicao(), entry.getNome(), consumo, entry.getConsumo_hoje());
                     }
 
                     callback.onSuccess(users);
                 } else {
-                    Log.e("RankingRepository", "getGroupDailyRanking() - Nenhum resultado encontrado");
+                    Logger.e("RankingRepository", "getGroupDailyRanking() - Nenhum resultado encontrado");
                     callback.onError("Nenhum resultado encontrado");
                 }
             }
@@ -252,16 +253,16 @@ public class RankingRepository {
      * Substitui o consumo_hoje do servidor pelo valor do cache local
      */
     private void getGroupDailyRankingWithLocalCache(int groupId, RankingCallback callback) {
-        Log.d("RankingRepository", "getGroupDailyRankingWithLocalCache() - Buscando ranking do grupo: " + groupId);
+        Logger.d("RankingRepository", "getGroupDailyRankingWithLocalCache() - Buscando ranking do grupo: {}", groupId);
 
-        CoroutineHelper.runAsync(
-            () -> rankingService.getGroupDailyRankingBlocking(groupId),
+        CoroutineHelper.whenComplete(
+            rankingService.getGroupDailyRankingAsync(groupId),
             (entries, error) -> {
                 if (error != null) {
-                    Log.e("RankingRepository", "getGroupDailyRankingWithLocalCache() - Erro: " + error);
+                    Logger.e("RankingRepository", "getGroupDailyRankingWithLocalCache() - Erro: {}", error);
                     callback.onError("Erro ao buscar ranking do grupo: " + error);
                 } else if (entries != null) {
-                    Log.d("RankingRepository", "getGroupDailyRankingWithLocalCache() - Recebido " + entries.size() + " entries do servidor");
+                    Logger.d("RankingRepository", "getGroupDailyRankingWithLocalCache() - Recebido {} entries do servidor", entries.size());
 
                     // Obter consumo local do usuário atual do cache
                     int localConsumption = historyCache.getTodayTotal();
@@ -275,31 +276,41 @@ public class RankingRepository {
                         if (UserDatabase.currentUser != null &&
                             entry.getNome().equalsIgnoreCase(UserDatabase.currentUser.getName())) {
                             consumo = localConsumption;
-                            Log.d("RankingRepository", "  Usuário atual (" + entry.getNome() + ") - usando cache local: " + consumo + "ml");
+                            Logger.d("RankingRepository", "  Usuário atual ({}) - usando cache local: {}ml", entry.getNome(), consumo);
                         } else {
                             consumo = entry.getConsumo_hoje() != null ? entry.getConsumo_hoje() : 0;
-                            Log.d("RankingRepository", "  Outro usuário (" + entry.getNome() + ") - usando servidor: " + consumo + "ml");
+                            Logger.d("RankingRepository", "  Outro usuário ({}) - usando servidor: {}ml", entry.getNome(), consumo);
                         }
 
                         User user = new User(entry.getNome(), "", consumo);
+                        user.setId(entry.getId());
                         user.setRank((int) entry.getPosicao());
                         users.add(user);
                     }
 
-                    // Reordenar por consumo (maior primeiro)
-                    Collections.sort(users, (u1, u2) -> Integer.compare(u2.getWaterIntake(), u1.getWaterIntake()));
-
-                    // Atribuir novas posições baseado na ordem
-                    for (int i = 0; i < users.size(); i++) {
-                        users.get(i).setRank(i + 1);
-                    }
+                    // A reordenação pelo consumo local fica com o RankingModel do controller,
+                    // que move só a entrada alterada em vez de ordenar a lista toda
 
                     callback.onSuccess(users);
                 } else {
-                    Log.e("RankingRepository", "getGroupDailyRankingWithLocalCache() - Nenhum resultado encontrado");
+                    Logger.e("RankingRepository", "getGroupDailyRankingWithLocalCache() - Nenhum resultado encontrado");
                     callback.onError("Nenhum resultado encontrado");
                 }
             }
         );
     }
+
+    /**
+     * Fração das leituras de ranking atendidas por uma requisição idêntica já em andamento
+     */
+    public double getSharedRequestRate() {
+        return rankingService.getSingleFlight().getHitRate();
+    }
+
+    /**
+     * ID do usuário logado (-1 se não autenticado)
+     */
+    public int getCurrentUserId() {
+        return prefsManager.getUserId();
+    }
 }
@@ -1,11 +1,12 @@
 package com.example.waterchamp.data.repository;
 
-import android.content.Context;
 import com.example.waterchamp.data.local.PreferencesManager;
 import com.example.waterchamp.data.remote.UserService;
 import com.example.waterchamp.model.User;
 import com.example.waterchamp.utils.CoroutineHelper;
 
+import java.util.concurrent.CompletableFuture;
+
 import kotlin.Pair;
 
 /**
@@ -15,10 +16,12 @@ import kotlin.Pair;
 public class UserRepository {
     private final UserService userService;
     private final PreferencesManager prefsManager;
+    private final ConsumoRepository consumoRepository;
 
-    public UserRepository(Context context) {
-        this.userService = new UserService();
-        this.prefsManager = new PreferencesManager(context);
+    public UserRepository(UserService userService, PreferencesManager prefsManager, ConsumoRepository consumoRepository) {
+        this.userService = userService;
+        this.prefsManager = prefsManager;
+        this.consumoRepository = consumoRepository;
     }
 
     /**
@@ -38,8 +41,8 @@ public class UserRepository {
      * Registrar novo usuário
      */
     public void registerUser(String nome, String email, String senha, AuthCallback callback) {
-        CoroutineHelper.runAsync(
-                () -> userService.registerUserBlocking(nome, email, senha),
+        CoroutineHelper.whenComplete(
+                userService.registerUserAsync(nome, email, senha),
                 new CoroutineHelper.CoroutineCallback<Pair<Integer, String>>() {
                     @Override
                     public void onComplete(Pair<Integer, String> result, String error) {
@@ -59,11 +62,13 @@ public class UserRepository {
                             callback.onError(errorMsg);
                         } else if (userId != null) {
                             // Sucesso
+                            switchLocalDataTo(userId);
                             prefsManager.setUserId(userId);
                             prefsManager.setUserName(nome);
                             prefsManager.setUserEmail(email);
 
                             User user = new User(nome, email, 0);
+                            user.setId(userId);
                             callback.onSuccess(user);
                         } else {
                             // Falha genérica
@@ -79,26 +84,25 @@ public class UserRepository {
      * Fazer login
      */
     public void login(String email, String senha, AuthCallback callback) {
-        CoroutineHelper.runAsync(
-            () -> {
-                Pair<Integer, String> loginResult = userService.loginBlocking(email, senha);
-
-                Integer userId = loginResult.getFirst();
-                String loginError = loginResult.getSecond();
+        CompletableFuture<Pair<UserService.Usuario, String>> future = userService.loginAsync(email, senha).thenCompose(loginResult -> {
+            Integer userId = loginResult.getFirst();
+            String loginError = loginResult.getSecond();
+
+            if (loginError != null) {
+                // Tratar erro de conexão HTTP como "Sem internet"
+                String errorMsg = tratarErroDeConexao(loginError);
+                return CompletableFuture.<Pair<UserService.Usuario, String>>completedFuture(new Pair<>(null, errorMsg));
+            }
 
-                if (loginError != null) {
-                    // Tratar erro de conexão HTTP como "Sem internet"
-                    String errorMsg = tratarErroDeConexao(loginError);
-                    return new Pair<>(null, errorMsg);
-                }
+            if (userId != null) {
+                return userService.getUserByIdAsync(userId).thenApply(usuario -> new Pair<UserService.Usuario, String>(usuario, null));
+            }
 
-                if (userId != null) {
-                    UserService.Usuario usuario = userService.getUserByIdBlocking(userId);
-                    return new Pair<>(usuario, null);
-                }
+            return CompletableFuture.<Pair<UserService.Usuario, String>>completedFuture(new Pair<>(null, "Erro desconhecido no login."));
+        });
 
-                return new Pair<>(null, "Erro desconhecido no login.");
-            },
+        CoroutineHelper.whenComplete(
+            future,
             new CoroutineHelper.CoroutineCallback<Pair<UserService.Usuario, String>>() {
                 @Override
                 public void onComplete(Pair<UserService.Usuario, String> result, String error) {
@@ -116,12 +120,14 @@ public class UserRepository {
                         callback.onError(mensagemAmigavel);
                     } else if (usuario != null) {
                         // Salvar dados localmente
+                        switchLocalDataTo(usuario.getId());
                         prefsManager.setUserId(usuario.getId());
                         prefsManager.setUserName(usuario.getNome());
                         prefsManager.setUserEmail(usuario.getEmail());
 
                         // Criar objeto User
                         User user = new User(usuario.getNome(), usuario.getEmail(), 0);
+                        user.setId(usuario.getId());
                         callback.onSuccess(user);
                     } else {
                         callback.onError("Email ou senha inválidos.");
@@ -178,15 +184,26 @@ public class UserRepository {
         return erro;
     }
 
+    /**
+     * O histórico local não é separado por usuário: se quem entra não é o último usuário salvo,
+     * apagar o histórico do anterior antes de gravar o novo ID
+     */
+    private void switchLocalDataTo(int userId) {
+        if (prefsManager.getUserId() != userId) {
+            consumoRepository.flushPendingSync();
+            consumoRepository.clearLocalData();
+        }
+    }
+
     /**
      * Fazer logout
      */
     public void logout(LogoutCallback callback) {
-        CoroutineHelper.runAsync(
-            () -> {
-                userService.logoutBlocking();
-                return true;
-            },
+        // Enviar consumo pendente antes de limpar a sessão
+        consumoRepository.flushPendingSync();
+
+        CoroutineHelper.whenComplete(
+            userService.logoutAsync(),
             new CoroutineHelper.CoroutineCallback<Boolean>() {
                 @Override
                 public void onComplete(Boolean result, String error) {
@@ -195,6 +212,7 @@ public class UserRepository {
                     } else {
                         // Limpar dados locais
                         prefsManager.clearUserData();
+                        consumoRepository.clearLocalData();
                         callback.onSuccess();
                     }
                 }
@@ -217,6 +235,7 @@ public class UserRepository {
         long totalConsumed = prefsManager.getTotalConsumedAllTime();
 
         User user = new User(name, email, 0);
+        user.setId(prefsManager.getUserId());
         user.setDailyGoal(dailyGoal);
         user.setDefaultCupSize(defaultCupSize);
         user.setProfilePictureUri(prefsManager.getProfilePictureUri());
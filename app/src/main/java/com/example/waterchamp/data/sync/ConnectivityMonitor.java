@@ -0,0 +1,62 @@
+package com.example.waterchamp.data.sync;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Avisa na thread principal quando uma rede fica disponível
+ * Usado para esvaziar a fila de sincronização assim que a conexão volta
+ */
+public class ConnectivityMonitor {
+
+    private final ConnectivityManager connectivityManager;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable onAvailable;
+    private ConnectivityManager.NetworkCallback networkCallback;
+
+    public ConnectivityMonitor(Context context, Runnable onAvailable) {
+        this.connectivityManager = (ConnectivityManager) context.getApplicationContext()
+            .getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.onAvailable = onAvailable;
+    }
+
+    /**
+     * Começar a observar a rede
+     * Se já houver rede no momento do registro, {@code onAvailable} é chamado logo em seguida
+     */
+    public void start() {
+        if (connectivityManager == null || networkCallback != null) {
+            return;
+        }
+
+        networkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                handler.post(onAvailable);
+            }
+        };
+
+        try {
+            connectivityManager.registerDefaultNetworkCallback(networkCallback);
+        } catch (Exception e) {
+            e.printStackTrace();
+            networkCallback = null;
+        }
+    }
+
+    public void stop() {
+        if (connectivityManager == null || networkCallback == null) {
+            return;
+        }
+
+        try {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        networkCallback = null;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.waterchamp.data.sync;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agrupa pedidos de sincronização do consumo diário
+ * Vários toques dentro da janela viram um único upsert com o total mais recente,
+ * em vez de uma chamada RPC por toque que sobrescreve a anterior
+ *
+ * A janela é fixa a partir do primeiro pedido (não é reiniciada a cada toque), então uma
+ * sequência longa de toques continua sincronizando a cada {@code windowMs}
+ */
+public class ConsumoSyncCoalescer {
+
+    public static final long DEFAULT_WINDOW_MS = 1500;
+
+    /**
+     * Callback de resultado de uma sincronização
+     */
+    public interface Callback {
+        void onSuccess();
+        void onError(String message);
+    }
+
+    /**
+     * Quem de fato envia o total ao servidor
+     */
+    public interface Sender {
+        void send(int userId, String date, int totalMl, List<Callback> callbacks);
+    }
+
+    private final long windowMs;
+    private final Sender sender;
+    private final OutboxDrainer.Scheduler scheduler;
+    private final Runnable flushRunnable = this::flush;
+
+    // Pedido pendente (protegido por "this")
+    private boolean hasPending;
+    private int pendingUserId;
+    private String pendingDate;
+    private int pendingTotal;
+    private List<Callback> pendingCallbacks = new ArrayList<>();
+
+    // Métricas
+    private final AtomicLong requestedCount = new AtomicLong();
+    private final AtomicLong sentCount = new AtomicLong();
+
+    public ConsumoSyncCoalescer(long windowMs, Sender sender) {
+        this(windowMs, sender, new OutboxDrainer.MainThreadScheduler());
+    }
+
+    /**
+     * @param scheduler onde o envio ao fim da janela é agendado (thread principal no app)
+     */
+    public ConsumoSyncCoalescer(long windowMs, Sender sender, OutboxDrainer.Scheduler scheduler) {
+        this.windowMs = windowMs;
+        this.sender = sender;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Pedir sincronização do total de um dia
+     * @param date dia no formato yyyy-MM-dd; pedidos de dias diferentes não são agrupados
+     */
+    public void request(int userId, String date, int totalMl, Callback callback) {
+        requestedCount.incrementAndGet();
+
+        boolean flushPrevious;
+        synchronized (this) {
+            flushPrevious = hasPending && (pendingUserId != userId || !pendingDate.equals(date));
+        }
+        if (flushPrevious) {
+            flush();
+        }
+
+        synchronized (this) {
+            boolean schedule = !hasPending;
+            hasPending = true;
+            pendingUserId = userId;
+            pendingDate = date;
+            pendingTotal = totalMl;
+            if (callback != null) {
+                pendingCallbacks.add(callback);
+            }
+
+            if (schedule) {
+                scheduler.postDelayed(flushRunnable, windowMs);
+            }
+        }
+    }
+
+    /**
+     * Enviar imediatamente o pedido pendente, se houver
+     * Usado quando o app vai para background ou no logout
+     */
+    public void flush() {
+        int userId;
+        String date;
+        int totalMl;
+        List<Callback> callbacks;
+
+        synchronized (this) {
+            scheduler.cancel(flushRunnable);
+            if (!hasPending) {
+                return;
+            }
+
+            userId = pendingUserId;
+            date = pendingDate;
+            totalMl = pendingTotal;
+            callbacks = pendingCallbacks;
+
+            hasPending = false;
+            pendingDate = null;
+            pendingCallbacks = new ArrayList<>();
+        }
+
+        sentCount.incrementAndGet();
+        sender.send(userId, date, totalMl, callbacks);
+    }
+
+    public synchronized boolean hasPending() {
+        return hasPending;
+    }
+
+    // ============ Métricas ============
+
+    /**
+     * Total de pedidos de sincronização recebidos
+     */
+    public long getRequestedCount() {
+        return requestedCount.get();
+    }
+
+    /**
+     * Total de chamadas RPC efetivamente enviadas
+     */
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    /**
+     * Chamadas RPC evitadas pelo agrupamento
+     */
+    public long getSavedCount() {
+        return requestedCount.get() - sentCount.get() - (hasPending() ? 1 : 0);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.waterchamp.data.sync;
+
+import java.util.Random;
+
+/**
+ * Atraso exponencial com jitter para novas tentativas
+ * O atraso dobra a cada falha (até {@code maxDelayMs}) e é sorteado entre metade e o valor cheio,
+ * para que vários clientes não tentem novamente ao mesmo tempo
+ */
+public class ExponentialBackoff {
+    public static final long DEFAULT_BASE_DELAY_MS = 2_000;
+    public static final long DEFAULT_MAX_DELAY_MS = 5 * 60_000;
+
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final Random random;
+    private int attempts = 0;
+
+    public ExponentialBackoff() {
+        this(DEFAULT_BASE_DELAY_MS, DEFAULT_MAX_DELAY_MS);
+    }
+
+    public ExponentialBackoff(long baseDelayMs, long maxDelayMs) {
+        this(baseDelayMs, maxDelayMs, new Random());
+    }
+
+    // Sorteio controlado nos testes
+    ExponentialBackoff(long baseDelayMs, long maxDelayMs, Random random) {
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.random = random;
+    }
+
+    /**
+     * Atraso até a próxima tentativa (conta uma nova falha)
+     */
+    public synchronized long nextDelayMs() {
+        int shift = Math.min(attempts, 30);
+        attempts++;
+
+        long delay = Math.min(maxDelayMs, baseDelayMs << shift);
+        long half = delay / 2;
+        return half + (long) (random.nextDouble() * (delay - half));
+    }
+
+    /**
+     * Voltar ao atraso inicial (após um envio bem-sucedido)
+     */
+    public synchronized void reset() {
+        attempts = 0;
+    }
+
+    public synchronized int getAttempts() {
+        return attempts;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.waterchamp.data.sync;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reenvia os totais pendentes do {@link SyncOutbox}: um lote por usuário, todos em paralelo
+ * Se algum lote falhar, agenda nova tentativa com {@link ExponentialBackoff}; o que foi confirmado sai da fila
+ *
+ * Só um envio por vez: chamadas durante um envio em andamento são recusadas
+ */
+public class OutboxDrainer {
+
+    /**
+     * Quem de fato envia os dias de um usuário ao servidor (true = confirmado)
+     */
+    public interface BatchSender {
+        CompletableFuture<Boolean> send(int userId, List<SyncOutbox.Entry> entries);
+    }
+
+    /**
+     * Onde rodam os resultados e as novas tentativas (thread principal no app)
+     */
+    public interface Scheduler {
+        void post(Runnable action);
+        void postDelayed(Runnable action, long delayMs);
+        void cancel(Runnable action);
+    }
+
+    /**
+     * Resultado de um envio
+     */
+    public interface Listener {
+        /**
+         * @param sentCount dias confirmados (0 se a fila já estava vazia)
+         */
+        void onDrained(int sentCount);
+        void onFailed(String message);
+    }
+
+    private final SyncOutbox outbox;
+    private final BatchSender sender;
+    private final Scheduler scheduler;
+    private final ExponentialBackoff backoff;
+    private final Runnable retryRunnable = () -> drain(null);
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    public OutboxDrainer(SyncOutbox outbox, BatchSender sender) {
+        this(outbox, sender, new MainThreadScheduler(), new ExponentialBackoff());
+    }
+
+    public OutboxDrainer(SyncOutbox outbox, BatchSender sender, Scheduler scheduler, ExponentialBackoff backoff) {
+        this.outbox = outbox;
+        this.sender = sender;
+        this.scheduler = scheduler;
+        this.backoff = backoff;
+    }
+
+    /**
+     * Enviar todos os dias pendentes
+     * @param listener pode ser null (novas tentativas e reconexão)
+     */
+    public void drain(Listener listener) {
+        scheduler.cancel(retryRunnable);
+        if (!draining.compareAndSet(false, true)) {
+            if (listener != null) {
+                listener.onFailed("Sincronização já em andamento");
+            }
+            return;
+        }
+
+        List<SyncOutbox.Entry> pending = outbox.getPending();
+        if (pending.isEmpty()) {
+            draining.set(false);
+            backoff.reset();
+            if (listener != null) {
+                listener.onDrained(0);
+            }
+            return;
+        }
+
+        // Agrupar por usuário: o envio em lote recebe um único usuario_id
+        Map<Integer, List<SyncOutbox.Entry>> byUser = new HashMap<>();
+        for (SyncOutbox.Entry entry : pending) {
+            List<SyncOutbox.Entry> entries = byUser.get(entry.getUserId());
+            if (entries == null) {
+                entries = new ArrayList<>();
+                byUser.put(entry.getUserId(), entries);
+            }
+            entries.add(entry);
+        }
+
+        List<List<SyncOutbox.Entry>> groups = new ArrayList<>(byUser.values());
+        List<CompletableFuture<Boolean>> batches = new ArrayList<>(groups.size());
+        for (List<SyncOutbox.Entry> group : groups) {
+            CompletableFuture<Boolean> batch;
+            try {
+                batch = sender.send(group.get(0).getUserId(), group);
+            } catch (RuntimeException e) {
+                batch = new CompletableFuture<>();
+                batch.completeExceptionally(e);
+            }
+            batches.add(batch);
+        }
+
+        // Um lote com erro não derruba os outros: cada um é avaliado separadamente
+        CompletableFuture<?>[] settled = new CompletableFuture[batches.size()];
+        for (int i = 0; i < batches.size(); i++) {
+            settled[i] = batches.get(i).handle((result, error) -> null);
+        }
+
+        CompletableFuture.allOf(settled).thenRun(() -> scheduler.post(() -> {
+            List<SyncOutbox.Entry> sent = new ArrayList<>();
+            String error = null;
+            for (int i = 0; i < batches.size(); i++) {
+                CompletableFuture<Boolean> batch = batches.get(i);
+                if (batch.isCompletedExceptionally()) {
+                    error = errorMessage(batch);
+                } else if (Boolean.TRUE.equals(batch.join())) {
+                    sent.addAll(groups.get(i));
+                }
+            }
+
+            for (SyncOutbox.Entry entry : sent) {
+                outbox.remove(entry);
+            }
+            draining.set(false);
+
+            if (sent.size() < pending.size()) {
+                String message = error != null ? error : "Falha ao enviar " + (pending.size() - sent.size()) + " dia(s)";
+                scheduleRetry();
+                if (listener != null) {
+                    listener.onFailed(message);
+                }
+            } else {
+                backoff.reset();
+                if (listener != null) {
+                    listener.onDrained(sent.size());
+                }
+            }
+        }));
+    }
+
+    /**
+     * Agendar nova tentativa com atraso exponencial
+     * @return atraso escolhido (ms)
+     */
+    public long scheduleRetry() {
+        long delay = backoff.nextDelayMs();
+        scheduler.cancel(retryRunnable);
+        scheduler.postDelayed(retryRunnable, delay);
+        return delay;
+    }
+
+    public boolean isDraining() {
+        return draining.get();
+    }
+
+    public int getAttempts() {
+        return backoff.getAttempts();
+    }
+
+    private static String errorMessage(CompletableFuture<?> failed) {
+        try {
+            failed.join();
+            return null;
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return cause.getMessage() != null ? cause.getMessage() : "Erro desconhecido";
+        }
+    }
+
+    /**
+     * Resultados e novas tentativas na thread principal (também usado pelo {@link ConsumoSyncCoalescer})
+     */
+    static class MainThreadScheduler implements Scheduler {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void post(Runnable action) {
+            handler.post(action);
+        }
+
+        @Override
+        public void postDelayed(Runnable action, long delayMs) {
+            handler.postDelayed(action, delayMs);
+        }
+
+        @Override
+        public void cancel(Runnable action) {
+            handler.removeCallbacks(action);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.waterchamp.data.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fila persistente de totais diários ainda não confirmados pelo servidor
+ * Cada entrada é gravada antes do envio e só é removida após sucesso,
+ * então sobrevive à morte do processo e é reenviada na próxima oportunidade
+ *
+ * Há no máximo uma entrada por usuário/dia: um total mais recente substitui o anterior
+ */
+public class SyncOutbox {
+    private static final String PREFS_NAME = "WaterChampSyncOutbox";
+    private static final char KEY_SEPARATOR = '|';
+
+    /**
+     * Total pendente de um dia
+     */
+    public static class Entry {
+        private final int userId;
+        private final String date;  // formato: yyyy-MM-dd
+        private final int totalMl;
+
+        public Entry(int userId, String date, int totalMl) {
+            this.userId = userId;
+            this.date = date;
+            this.totalMl = totalMl;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public String getDate() {
+            return date;
+        }
+
+        public int getTotalMl() {
+            return totalMl;
+        }
+    }
+
+    private final SharedPreferences prefs;
+
+    public SyncOutbox(Context context) {
+        this(context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+    }
+
+    // Preferências em memória nos testes
+    SyncOutbox(SharedPreferences prefs) {
+        this.prefs = prefs;
+    }
+
+    /**
+     * Registrar (ou substituir) o total pendente de um dia
+     */
+    public synchronized void put(int userId, String date, int totalMl) {
+        prefs.edit().putInt(key(userId, date), totalMl).apply();
+    }
+
+    /**
+     * Remover a entrada se ela ainda tiver o total enviado
+     * Se um total mais novo foi registrado durante o envio, ele continua pendente
+     */
+    public synchronized void remove(Entry entry) {
+        String key = key(entry.userId, entry.date);
+        if (prefs.getInt(key, Integer.MIN_VALUE) == entry.totalMl) {
+            prefs.edit().remove(key).apply();
+        }
+    }
+
+    /**
+     * Obter todas as entradas pendentes
+     */
+    public synchronized List<Entry> getPending() {
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<String, ?> item : prefs.getAll().entrySet()) {
+            String key = item.getKey();
+            int separator = key.indexOf(KEY_SEPARATOR);
+            if (separator <= 0 || !(item.getValue() instanceof Integer)) {
+                continue;
+            }
+
+            try {
+                int userId = Integer.parseInt(key.substring(0, separator));
+                entries.add(new Entry(userId, key.substring(separator + 1), (Integer) item.getValue()));
+            } catch (NumberFormatException e) {
+                e.printStackTrace();
+            }
+        }
+        return entries;
+    }
+
+    public synchronized boolean isEmpty() {
+        return prefs.getAll().isEmpty();
+    }
+
+    public synchronized int size() {
+        return prefs.getAll().size();
+    }
+
+    private static String key(int userId, String date) {
+        return userId + String.valueOf(KEY_SEPARATOR) + date;
+    }
+}
@@ -1,17 +1,37 @@
 package com.example.waterchamp.event;
 
+import com.example.waterchamp.model.HistoryRecord;
+
 /**
  * Evento disparado quando o histórico de consumo é atualizado
  * Usado para sincronizar automaticamente a HistoryFragment com novos registros
+ *
+ * Quando traz os registros alterados, a tela aplica só a mudança no topo da lista
+ * em vez de recarregar o dia inteiro
  */
 public class HistoryUpdateEvent {
     public int amountAdded;
+    public HistoryRecord removed; // Registro que saiu do topo do histórico (desfazer), ou null
+    public HistoryRecord added;   // Registro novo no topo do histórico, ou null
 
-    public HistoryUpdateEvent(int amountAdded) {
+    public HistoryUpdateEvent(int amountAdded, HistoryRecord removed, HistoryRecord added) {
         this.amountAdded = amountAdded;
+        this.removed = removed;
+        this.added = added;
+    }
+
+    public HistoryUpdateEvent(int amountAdded) {
+        this(amountAdded, null, null);
     }
 
     public HistoryUpdateEvent() {
-        this.amountAdded = 0;
+        this(0);
+    }
+
+    /**
+     * true se o evento descreve a mudança (senão é preciso recarregar o histórico)
+     */
+    public boolean isIncremental() {
+        return removed != null || added != null;
     }
 }
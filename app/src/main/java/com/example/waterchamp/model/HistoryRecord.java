@@ -1,6 +1,12 @@
 package com.example.waterchamp.model;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class HistoryRecord {
+    private static final AtomicLong nextId = new AtomicLong(1);
+
+    // Único no processo (não é gravado no journal); id estável do registro nas listas
+    private final long id = nextId.getAndIncrement();
     private long timestamp;
     private int amount;
     private String action; // "Adicionado" or "Removido"
@@ -11,6 +17,10 @@ public class HistoryRecord {
         this.action = action;
     }
 
+    public long getId() {
+        return id;
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
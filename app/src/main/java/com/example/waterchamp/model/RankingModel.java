@@ -0,0 +1,282 @@
+package com.example.waterchamp.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Ranking ordenado e indexado por ID de usuário, atualizado de forma incremental
+ * Uma mudança de consumo move só a entrada alterada para a nova posição (busca binária
+ * para remover e reinserir) em vez de reordenar e renumerar a lista inteira
+ *
+ * Cada operação devolve um {@link ChangeSet} com o mínimo para a tela se atualizar:
+ * inserções, remoções, movimentos e a faixa de posições cujo número mudou
+ *
+ * Ordem: maior consumo primeiro; empate desempata por ID
+ * Usuários sem ID (-1) não entram no ranking
+ *
+ * Não é thread-safe: usado apenas na thread principal (RankingController)
+ */
+public class RankingModel {
+
+    private static final Comparator<User> ORDER = (u1, u2) -> {
+        int byIntake = Integer.compare(u2.getWaterIntake(), u1.getWaterIntake());
+        return byIntake != 0 ? byIntake : Integer.compare(u1.getId(), u2.getId());
+    };
+
+    /**
+     * Uma alteração na lista, na ordem em que deve ser aplicada
+     */
+    public static final class Change {
+        public static final int INSERT = 0;
+        public static final int REMOVE = 1;
+        public static final int MOVE = 2;
+        public static final int UPDATE = 3;
+
+        public final int type;
+        public final int from;  // Posição antes da alteração (REMOVE/MOVE/UPDATE)
+        public final int to;    // Posição depois da alteração (INSERT/MOVE/UPDATE)
+
+        Change(int type, int from, int to) {
+            this.type = type;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Conjunto mínimo de alterações resultante de uma operação
+     */
+    public static final class ChangeSet {
+        private final List<Change> changes = new ArrayList<>();
+        private final boolean reset;
+        private int rankStart = Integer.MAX_VALUE;
+        private int rankEnd = -1;
+
+        ChangeSet(boolean reset) {
+            this.reset = reset;
+        }
+
+        /**
+         * true quando a lista inteira foi trocada (primeira carga): redesenhar tudo
+         */
+        public boolean isReset() {
+            return reset;
+        }
+
+        public boolean isEmpty() {
+            return !reset && changes.isEmpty();
+        }
+
+        public List<Change> getChanges() {
+            return changes;
+        }
+
+        /**
+         * Primeira posição cujo número no ranking mudou (-1 se nenhuma)
+         */
+        public int getRankRangeStart() {
+            return rankEnd < 0 ? -1 : rankStart;
+        }
+
+        /**
+         * Última posição (inclusiva) cujo número no ranking mudou (-1 se nenhuma)
+         */
+        public int getRankRangeEnd() {
+            return rankEnd;
+        }
+
+        void add(int type, int from, int to) {
+            changes.add(new Change(type, from, to));
+        }
+
+        void touchRanks(int start, int end) {
+            if (start > end) {
+                return;
+            }
+            rankStart = Math.min(rankStart, start);
+            rankEnd = Math.max(rankEnd, end);
+        }
+    }
+
+    private final ArrayList<User> entries = new ArrayList<>();
+    private final Map<Integer, User> byId = new HashMap<>();
+
+    /**
+     * Lista ordenada (somente leitura; reflete as alterações seguintes)
+     */
+    public List<User> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public User get(int position) {
+        return entries.get(position);
+    }
+
+    public User findById(int userId) {
+        return byId.get(userId);
+    }
+
+    public void clear() {
+        entries.clear();
+        byId.clear();
+    }
+
+    /**
+     * Trocar o conteúdo pelo ranking recebido do servidor
+     * Só as entradas que entraram, saíram ou mudaram de consumo geram alterações
+     */
+    public ChangeSet replaceAll(List<User> users) {
+        if (entries.isEmpty()) {
+            ChangeSet changes = new ChangeSet(true);
+            for (User user : users) {
+                if (user.getId() >= 0 && !byId.containsKey(user.getId())) {
+                    byId.put(user.getId(), user);
+                    entries.add(user);
+                }
+            }
+            Collections.sort(entries, ORDER);
+            renumber(0, entries.size() - 1);
+            return changes;
+        }
+
+        ChangeSet changes = new ChangeSet(false);
+
+        // Quem saiu do ranking
+        Set<Integer> incomingIds = new HashSet<>();
+        for (User user : users) {
+            incomingIds.add(user.getId());
+        }
+        List<Integer> removedIds = new ArrayList<>();
+        for (User user : entries) {
+            if (!incomingIds.contains(user.getId())) {
+                removedIds.add(user.getId());
+            }
+        }
+        for (int userId : removedIds) {
+            remove(userId, changes);
+        }
+
+        // Quem mudou ou entrou
+        for (User incoming : users) {
+            if (incoming.getId() < 0) {
+                continue;
+            }
+
+            User current = byId.get(incoming.getId());
+            if (current == null) {
+                insert(incoming, changes);
+            } else {
+                boolean nameChanged = !Objects.equals(current.getName(), incoming.getName());
+                boolean photoChanged = !Objects.equals(current.getProfilePictureUri(), incoming.getProfilePictureUri());
+                if (nameChanged || photoChanged) {
+                    current.setName(incoming.getName());
+                    current.setProfilePictureUri(incoming.getProfilePictureUri());
+                    int position = indexOf(current);
+                    changes.add(Change.UPDATE, position, position);
+                }
+                update(current, incoming.getWaterIntake(), changes);
+            }
+        }
+
+        return changes;
+    }
+
+    /**
+     * Atualizar o consumo de um usuário, movendo só a entrada dele
+     * O(log n) para localizar as posições, mais o deslocamento entre a posição antiga e a nova
+     */
+    public ChangeSet update(int userId, int waterIntake) {
+        ChangeSet changes = new ChangeSet(false);
+        User user = byId.get(userId);
+        if (user != null) {
+            update(user, waterIntake, changes);
+        }
+        return changes;
+    }
+
+    /**
+     * Tirar um usuário do ranking
+     */
+    public ChangeSet remove(int userId) {
+        ChangeSet changes = new ChangeSet(false);
+        remove(userId, changes);
+        return changes;
+    }
+
+    // ============ Operações internas ============
+
+    private void update(User user, int waterIntake, ChangeSet changes) {
+        int safeIntake = Math.max(0, waterIntake);
+        if (user.getWaterIntake() == safeIntake) {
+            return;
+        }
+
+        int from = indexOf(user);
+        entries.remove(from);
+        user.setWaterIntake(safeIntake);
+        int to = insertionPoint(user);
+        entries.add(to, user);
+
+        if (from != to) {
+            changes.add(Change.MOVE, from, to);
+        }
+        changes.add(Change.UPDATE, to, to);
+
+        // Só as posições entre a antiga e a nova trocaram de número
+        int start = Math.min(from, to);
+        int end = Math.max(from, to);
+        renumber(start, end);
+        changes.touchRanks(start, end);
+    }
+
+    private void insert(User user, ChangeSet changes) {
+        int position = insertionPoint(user);
+        entries.add(position, user);
+        byId.put(user.getId(), user);
+
+        changes.add(Change.INSERT, -1, position);
+        renumber(position, entries.size() - 1);
+        changes.touchRanks(position, entries.size() - 1);
+    }
+
+    private void remove(int userId, ChangeSet changes) {
+        User user = byId.remove(userId);
+        if (user == null) {
+            return;
+        }
+
+        int position = indexOf(user);
+        entries.remove(position);
+
+        changes.add(Change.REMOVE, position, -1);
+        renumber(position, entries.size() - 1);
+        changes.touchRanks(position, entries.size() - 1);
+    }
+
+    private int indexOf(User user) {
+        // O usuário está na lista e a ordem é total (ID desempata), então a busca sempre o encontra
+        return Collections.binarySearch(entries, user, ORDER);
+    }
+
+    private int insertionPoint(User user) {
+        int index = Collections.binarySearch(entries, user, ORDER);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    private void renumber(int start, int end) {
+        for (int i = start; i <= end; i++) {
+            entries.get(i).setRank(i + 1);
+        }
+    }
+}
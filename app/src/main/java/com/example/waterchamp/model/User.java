@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class User implements Comparable<User> {
+    private int id = -1; // ID no servidor (usuarios.id); -1 quando desconhecido
     private String name;
     private int waterIntake; // Current daily intake
     private String email;
@@ -27,6 +28,14 @@ public class User implements Comparable<User> {
         this.creationDate = System.currentTimeMillis();
     }
 
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
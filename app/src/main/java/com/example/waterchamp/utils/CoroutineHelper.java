@@ -2,26 +2,78 @@ package com.example.waterchamp.utils;
 
 import android.os.Handler;
 import android.os.Looper;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 public class CoroutineHelper {
 
-    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
     private static final Handler handler = new Handler(Looper.getMainLooper());
 
     public interface CoroutineCallback<T> {
         void onComplete(T result, String error);
     }
 
+    /**
+     * Executar na lane de ações do usuário
+     */
     public static <T> void runAsync(java.util.concurrent.Callable<T> task, CoroutineCallback<T> callback) {
-        executor.execute(() -> {
-            try {
-                T result = task.call();
-                handler.post(() -> callback.onComplete(result, null));
-            } catch (Exception e) {
-                handler.post(() -> callback.onComplete(null, e.getMessage()));
+        runAsync(TaskScheduler.Lane.INTERACTIVE, task, callback);
+    }
+
+    /**
+     * Executar na lane indicada (ver {@link TaskScheduler})
+     */
+    public static <T> void runAsync(TaskScheduler.Lane lane, java.util.concurrent.Callable<T> task, CoroutineCallback<T> callback) {
+        try {
+            TaskScheduler.execute(lane, () -> {
+                try {
+                    T result = task.call();
+                    handler.post(() -> callback.onComplete(result, null));
+                } catch (Exception e) {
+                    handler.post(() -> callback.onComplete(null, e.getMessage()));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            handler.post(() -> callback.onComplete(null, "Muitas requisições pendentes, tente novamente"));
+        }
+    }
+
+    /**
+     * Entregar o resultado de um CompletableFuture (API *Async dos serviços) na thread principal
+     * Se houver um {@link RequestScope} ativo, a requisição pertence a ele: se for cancelada,
+     * o callback não é chamado
+     */
+    public static <T> void whenComplete(CompletableFuture<T> future, CoroutineCallback<T> callback) {
+        RequestScope scope = RequestScope.current();
+        if (scope != null) {
+            scope.track(future);
+        }
+
+        future.whenComplete((result, throwable) -> handler.post(() -> {
+            if (scope != null) {
+                scope.untrack(future);
             }
-        });
+            if (future.isCancelled()) {
+                return; // O dono da requisição já foi embora
+            }
+
+            RequestScope.runWith(scope, () -> {
+                if (throwable != null) {
+                    callback.onComplete(null, errorMessage(throwable));
+                } else {
+                    callback.onComplete(result, null);
+                }
+            });
+        }));
+    }
+
+    private static String errorMessage(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : "Erro desconhecido";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package com.example.waterchamp.utils;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Mede o tempo entre a criação de uma tela e o seu primeiro frame
+ *
+ * Uso em um Fragment:
+ * long start = FrameTimer.start();
+ * ... inflar view, criar controller ...
+ * FrameTimer.logFirstFrame("HomeFragment", view, start);
+ *
+ * Também mede o tempo desde o início do processo até o primeiro conteúdo útil de uma tela
+ * (dados reais ou snapshot, não lista vazia): FrameTimer.logContent("RankingFragment", list, "snapshot");
+ */
+public final class FrameTimer {
+
+    // Medições de conteúdo já registradas neste processo ("tela:origem"); só acessado na thread principal
+    private static final Set<String> contentLogged = new HashSet<>();
+
+    private FrameTimer() {}
+
+    public static long start() {
+        return SystemClock.uptimeMillis();
+    }
+
+    /**
+     * Registra no log quanto tempo levou de {@code startMillis} até o primeiro desenho de {@code root}
+     */
+    public static void logFirstFrame(String tag, View root, long startMillis) {
+        root.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                ViewTreeObserver observer = root.getViewTreeObserver();
+                if (observer.isAlive()) {
+                    observer.removeOnPreDrawListener(this);
+                }
+                Log.d(tag, "Primeiro frame em " + (SystemClock.uptimeMillis() - startMillis) + "ms");
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Registra no log quanto tempo levou do início do processo até {@code root} ser desenhada com conteúdo
+     * Só a primeira vez de cada tela e origem (ex.: "snapshot", "servidor") é registrada,
+     * então mede a abertura a frio e não as atualizações seguintes
+     * Deve ser chamado na thread principal, logo após preencher a view
+     */
+    public static void logContent(String tag, View root, String source) {
+        if (!contentLogged.add(tag + ":" + source)) {
+            return;
+        }
+
+        root.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                ViewTreeObserver observer = root.getViewTreeObserver();
+                if (observer.isAlive()) {
+                    observer.removeOnPreDrawListener(this);
+                }
+                long elapsed = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+                Log.d(tag, "Conteúdo (" + source + ") em " + elapsed + "ms desde o início do processo");
+                return true;
+            }
+        });
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.waterchamp.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Carregador de fotos de perfil
+ * - decodifica fora da thread principal (lane IMAGE), já reduzida para o tamanho de exibição (inSampleSize)
+ * - mantém um LRU em memória limitado por bytes e um cache em disco das miniaturas
+ * - um novo pedido para a mesma ImageView (linha reciclada) cancela o anterior
+ *
+ * Uso:
+ * ImageLoader.get(context).load(imageView, uriString, 40, callback);
+ * ...
+ * ImageLoader.get(context).cancel(imageView); // onViewRecycled
+ *
+ * load() e cancel() devem ser chamados na thread principal
+ */
+public final class ImageLoader {
+
+    private static final String TAG = "ImageLoader";
+    private static final String DISK_DIR = "thumbnails";
+    private static final long DISK_CACHE_BYTES = 8 * 1024 * 1024; // 8 MB
+    private static final int JPEG_QUALITY = 85;
+
+    private static volatile ImageLoader instance;
+
+    /**
+     * Resultado de um carregamento (chamado na thread principal, só se o pedido não foi cancelado)
+     */
+    public interface Callback {
+        void onSuccess(ImageView view);
+        void onError(ImageView view);
+    }
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, Bitmap> memoryCache;
+    private final File diskDir;
+    private final Object diskLock = new Object();
+    private long diskBytes = -1; // Calculado no primeiro acesso ao disco
+
+    // Pedido em andamento de cada ImageView; só acessado na thread principal
+    private final Map<ImageView, Request> pending = new WeakHashMap<>();
+
+    // Métricas
+    private int memoryHits = 0;
+    private final AtomicInteger diskHits = new AtomicInteger();
+    private final AtomicInteger decodes = new AtomicInteger();
+
+    private ImageLoader(Context context) {
+        this.appContext = context.getApplicationContext();
+
+        // 1/16 da memória do app para bitmaps (em KB)
+        int maxKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 16);
+        this.memoryCache = new LruCache<String, Bitmap>(maxKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+
+        this.diskDir = new File(appContext.getCacheDir(), DISK_DIR);
+    }
+
+    public static ImageLoader get(Context context) {
+        if (instance == null) {
+            synchronized (ImageLoader.class) {
+                if (instance == null) {
+                    instance = new ImageLoader(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Carregar a imagem de {@code uri} em {@code view}, reduzida para {@code sizeDp} x {@code sizeDp}
+     * Se estiver no cache em memória, é aplicada na hora; senão a view mantém o que tem (placeholder)
+     */
+    public void load(ImageView view, String uri, int sizeDp, Callback callback) {
+        cancel(view);
+
+        int sizePx = Math.max(1, Math.round(sizeDp * appContext.getResources().getDisplayMetrics().density));
+        String key = uri + "@" + sizePx;
+
+        Bitmap cached = memoryCache.get(key);
+        if (cached != null) {
+            memoryHits++;
+            view.setImageBitmap(cached);
+            if (callback != null) {
+                callback.onSuccess(view);
+            }
+            return;
+        }
+
+        Request request = new Request(key, uri, sizePx);
+        pending.put(view, request);
+
+        try {
+            TaskScheduler.execute(TaskScheduler.Lane.IMAGE, () -> {
+                if (request.cancelled) {
+                    return; // Linha reciclada antes de começar
+                }
+
+                Bitmap bitmap = loadInBackground(request);
+
+                mainHandler.post(() -> {
+                    if (request.cancelled || pending.get(view) != request) {
+                        return;
+                    }
+                    pending.remove(view);
+
+                    if (bitmap != null) {
+                        memoryCache.put(key, bitmap);
+                        view.setImageBitmap(bitmap);
+                        if (callback != null) {
+                            callback.onSuccess(view);
+                        }
+                    } else if (callback != null) {
+                        callback.onError(view);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(view);
+            if (callback != null) {
+                callback.onError(view);
+            }
+        }
+    }
+
+    /**
+     * Cancelar o pedido em andamento para esta view (ex.: linha reciclada)
+     */
+    public void cancel(ImageView view) {
+        Request request = pending.remove(view);
+        if (request != null) {
+            request.cancelled = true;
+        }
+    }
+
+    public void logStats() {
+        Log.d(TAG, "logStats() - memória=" + memoryHits + ", disco=" + diskHits.get() + ", decodificadas=" + decodes.get()
+            + ", cache=" + memoryCache.size() + "/" + memoryCache.maxSize() + "KB");
+    }
+
+    // ============ Background ============
+
+    private Bitmap loadInBackground(Request request) {
+        File file = new File(diskDir, diskFileName(request.key));
+
+        // Miniatura já gerada antes
+        Bitmap bitmap = readFromDisk(file);
+        if (bitmap != null) {
+            diskHits.incrementAndGet();
+            return bitmap;
+        }
+
+        if (request.cancelled) {
+            return null;
+        }
+
+        try {
+            bitmap = decodeSampled(Uri.parse(request.uri), request.sizePx);
+        } catch (Exception e) {
+            Log.w(TAG, "loadInBackground() - Erro ao decodificar " + request.uri + ": " + e.getMessage());
+            return null;
+        }
+
+        if (bitmap != null) {
+            decodes.incrementAndGet();
+            writeToDisk(file, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Decodificar já reduzida: lê só as dimensões, escolhe o inSampleSize e decodifica de novo
+     */
+    private Bitmap decodeSampled(Uri uri, int sizePx) throws Exception {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream input = appContext.getContentResolver().openInputStream(uri)) {
+            BitmapFactory.decodeStream(input, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            return null;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = calculateInSampleSize(bounds.outWidth, bounds.outHeight, sizePx);
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        try (InputStream input = appContext.getContentResolver().openInputStream(uri)) {
+            return BitmapFactory.decodeStream(input, null, options);
+        }
+    }
+
+    /**
+     * Maior potência de 2 que mantém o menor lado >= tamanho pedido
+     */
+    static int calculateInSampleSize(int width, int height, int sizePx) {
+        int sampleSize = 1;
+        int smallest = Math.min(width, height);
+        while (smallest / (sampleSize * 2) >= sizePx) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Nome do arquivo da miniatura: SHA-1 da chave (uri@tamanho) em hexadecimal
+     * Com hashCode() (32 bits), duas fotos diferentes podiam cair no mesmo arquivo e uma aparecer no lugar da outra
+     */
+    static String diskFileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + 4);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.append(".jpg").toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 faz parte da plataforma; não deve acontecer
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Bitmap readFromDisk(File file) {
+        synchronized (diskLock) {
+            if (!file.exists()) {
+                return null;
+            }
+            // Marca como usado recentemente para o LRU do disco
+            file.setLastModified(System.currentTimeMillis());
+        }
+        return BitmapFactory.decodeFile(file.getAbsolutePath());
+    }
+
+    private void writeToDisk(File file, Bitmap bitmap) {
+        synchronized (diskLock) {
+            try {
+                if (!diskDir.exists() && !diskDir.mkdirs()) {
+                    return;
+                }
+                if (diskBytes < 0) {
+                    diskBytes = directorySize();
+                }
+
+                try (OutputStream output = new FileOutputStream(file)) {
+                    bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, output);
+                }
+                diskBytes += file.length();
+
+                trimDisk();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Apagar as miniaturas menos usadas até caber no limite do disco
+     */
+    private void trimDisk() {
+        if (diskBytes <= DISK_CACHE_BYTES) {
+            return;
+        }
+
+        File[] files = diskDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+
+        for (File oldest : files) {
+            if (diskBytes <= DISK_CACHE_BYTES) {
+                break;
+            }
+            long length = oldest.length();
+            if (oldest.delete()) {
+                diskBytes -= length;
+            }
+        }
+    }
+
+    private long directorySize() {
+        long total = 0;
+        File[] files = diskDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                total += file.length();
+            }
+        }
+        return total;
+    }
+
+    private static final class Request {
+        final String key;
+        final String uri;
+        final int sizePx;
+        volatile boolean cancelled = false;
+
+        Request(String key, String uri, int sizePx) {
+            this.key = key;
+            this.uri = uri;
+            this.sizePx = sizePx;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.waterchamp.utils;
+
+import android.util.Log;
+
+import com.example.waterchamp.BuildConfig;
+
+/**
+ * Log com nível mínimo e mensagens parametrizadas ("{}" é trocado pelo argumento seguinte)
+ * Abaixo do nível, a chamada só compara dois ints e retorna: a mensagem não é montada e nada é alocado
+ *
+ * Para isso, números passam por sobrecargas com long/double (sem autoboxing na chamada);
+ * o boxing e a montagem da string só acontecem quando o log vai de fato ser escrito
+ *
+ * Uso:
+ * Logger.d("ConsumoRepository", "addWater() - Total local após adicionar {}ml: {}ml", amountMl, todayTotal);
+ *
+ * Padrão: DEBUG em builds de debug e WARN em release
+ */
+public final class Logger {
+
+    // Mesmos valores de android.util.Log
+    public static final int VERBOSE = Log.VERBOSE;
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+    public static final int WARN = Log.WARN;
+    public static final int ERROR = Log.ERROR;
+    public static final int NONE = Integer.MAX_VALUE;
+
+    private static volatile int minLevel = BuildConfig.DEBUG ? DEBUG : WARN;
+
+    private Logger() {}
+
+    public static void setMinLevel(int level) {
+        minLevel = level;
+    }
+
+    public static int getMinLevel() {
+        return minLevel;
+    }
+
+    public static boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    // ============ Debug ============
+
+    public static void d(String tag, String message) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, message);
+        }
+    }
+
+    public static void d(String tag, String format, Object a) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a));
+        }
+    }
+
+    public static void d(String tag, String format, long a) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a));
+        }
+    }
+
+    public static void d(String tag, String format, double a) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a));
+        }
+    }
+
+    public static void d(String tag, String format, Object a, Object b) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a, b));
+        }
+    }
+
+    public static void d(String tag, String format, long a, long b) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a, b));
+        }
+    }
+
+    public static void d(String tag, String format, Object a, long b) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a, b));
+        }
+    }
+
+    public static void d(String tag, String format, long a, Object b) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a, b));
+        }
+    }
+
+    public static void d(String tag, String format, Object a, Object b, Object c) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a, b, c));
+        }
+    }
+
+    public static void d(String tag, String format, long a, long b, long c) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a, b, c));
+        }
+    }
+
+    public static void d(String tag, String format, Object a, long b, long c) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a, b, c));
+        }
+    }
+
+    public static void d(String tag, String format, long a, long b, Object c) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a, b, c));
+        }
+    }
+
+    public static void d(String tag, String format, long a, Object b, long c, Object d) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a, b, c, d));
+        }
+    }
+
+    public static void d(String tag, String format, long a, long b, Object c, long d) {
+        if (DEBUG >= minLevel) {
+            Log.d(tag, format(format, a, b, c, d));
+        }
+    }
+
+    // ============ Warning / Error ============
+
+    public static void w(String tag, String message) {
+        if (WARN >= minLevel) {
+            Log.w(tag, message);
+        }
+    }
+
+    public static void w(String tag, String format, Object a) {
+        if (WARN >= minLevel) {
+            Log.w(tag, format(format, a));
+        }
+    }
+
+    public static void w(String tag, String format, long a, long b, long c) {
+        if (WARN >= minLevel) {
+            Log.w(tag, format(format, a, b, c));
+        }
+    }
+
+    public static void e(String tag, String message) {
+        if (ERROR >= minLevel) {
+            Log.e(tag, message);
+        }
+    }
+
+    public static void e(String tag, String format, Object a) {
+        if (ERROR >= minLevel) {
+            Log.e(tag, format(format, a));
+        }
+    }
+
+    public static void e(String tag, String format, long a) {
+        if (ERROR >= minLevel) {
+            Log.e(tag, format(format, a));
+        }
+    }
+
+    // ============ Formatação ============
+
+    /**
+     * Trocar cada "{}" de {@code format} pelo argumento seguinte; "{}" sem argumento fica como está
+     * Só chamado depois de passar pelo nível mínimo
+     */
+    static String format(String format, Object... args) {
+        StringBuilder builder = new StringBuilder(format.length() + 16 * args.length);
+        int argIndex = 0;
+        int start = 0;
+        int placeholder;
+        while (argIndex < args.length && (placeholder = format.indexOf("{}", start)) >= 0) {
+            builder.append(format, start, placeholder).append(args[argIndex++]);
+            start = placeholder + 2;
+        }
+        return builder.append(format, start, format.length()).toString();
+    }
+}
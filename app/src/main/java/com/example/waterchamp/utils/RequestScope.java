@@ -0,0 +1,134 @@
+package com.example.waterchamp.utils;
+
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token de cancelamento ligado ao ciclo de vida de uma tela
+ * Requisições iniciadas dentro de {@link #run(Runnable)} são registradas aqui e, em {@link #cancel()},
+ * são canceladas: as que ainda esperam na lane nem começam, as em andamento têm a chamada HTTP abortada
+ * e nenhum callback chega mais à tela
+ *
+ * Callbacks de requisições do escopo também rodam dentro dele, então requisições encadeadas
+ * (ex.: buscar grupos e depois o ranking do grupo) pertencem ao mesmo dono
+ *
+ * Uso (no controller):
+ * requestScope.run(() -> repository.getDailyRanking(100, callback));
+ * ...
+ * requestScope.cancel(); // onPause/onDestroyView do fragment
+ *
+ * Todos os métodos devem ser chamados na thread principal
+ * O escopo ativo é por thread e só é ativado na thread principal: uma requisição disparada de outra
+ * thread durante um run() não é atribuída a ele por engano
+ */
+public class RequestScope {
+
+    // Escopo ativo durante run(), por thread (na prática só a principal)
+    private static final ThreadLocal<RequestScope> current = new ThreadLocal<>();
+
+    private static final AtomicLong totalCancelled = new AtomicLong();
+
+    private final String owner;
+    private final Set<CompletableFuture<?>> inFlight = new HashSet<>();
+    private long cancelledCount = 0;
+
+    public RequestScope(String owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Executar {@code action} com este escopo ativo
+     */
+    public void run(Runnable action) {
+        runWith(this, action);
+    }
+
+    /**
+     * Cancelar todas as requisições ainda pendentes deste escopo
+     * O escopo continua utilizável: novas requisições podem ser feitas depois (ex.: onResume)
+     * @return quantidade de requisições canceladas
+     */
+    public int cancel() {
+        if (inFlight.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<?>> futures = new ArrayList<>(inFlight);
+        inFlight.clear();
+
+        int cancelled = 0;
+        for (CompletableFuture<?> future : futures) {
+            if (future.cancel(true)) {
+                cancelled++;
+            }
+        }
+
+        cancelledCount += cancelled;
+        totalCancelled.addAndGet(cancelled);
+        Logger.d("RequestScope", "cancel() - {}: {} requisição(ões) cancelada(s) (total {})", owner, cancelled, cancelledCount);
+        return cancelled;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Requisições canceladas por este escopo desde a criação
+     */
+    public long getCancelledCount() {
+        return cancelledCount;
+    }
+
+    /**
+     * Requisições canceladas por todos os escopos do app
+     */
+    public static long getTotalCancelledCount() {
+        return totalCancelled.get();
+    }
+
+    // ============ Uso interno (CoroutineHelper) ============
+
+    static RequestScope current() {
+        return current.get();
+    }
+
+    static void runWith(RequestScope scope, Runnable action) {
+        if (scope != null && !isMainThread()) {
+            // inFlight não é thread-safe: fora da thread principal a requisição fica sem dono
+            Logger.w("RequestScope", "runWith() - {} usado fora da thread principal, requisições não serão canceladas", scope.owner);
+            action.run();
+            return;
+        }
+
+        RequestScope previous = current.get();
+        current.set(scope);
+        try {
+            action.run();
+        } finally {
+            if (previous != null) {
+                current.set(previous);
+            } else {
+                current.remove();
+            }
+        }
+    }
+
+    private static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    void track(CompletableFuture<?> future) {
+        inFlight.add(future);
+    }
+
+    void untrack(CompletableFuture<?> future) {
+        inFlight.remove(future);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.waterchamp.utils;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Divide a abertura do app (início do processo -> primeiro frame) em fases medidas
+ * Cada mark() fecha a fase anterior; no primeiro frame da primeira tela tudo é registrado no log de uma vez
+ *
+ * Uso:
+ * StartupTrace.mark("ServiceRegistry");          // fim da fase, na thread principal
+ * StartupTrace.background("SupabaseClient criado", ms); // trabalho fora do caminho crítico
+ * StartupTrace.finishOnFirstFrame(rootView);     // na primeira activity
+ *
+ * Depois do primeiro frame, novas marcações são ignoradas (não é uma abertura a frio)
+ */
+public final class StartupTrace {
+
+    private static final String TAG = "StartupTrace";
+
+    private static final List<String> phases = new ArrayList<>();
+    private static long lastMark = -1;
+    private static boolean finished = false;
+
+    private StartupTrace() {}
+
+    /**
+     * Encerrar a fase atual com o nome {@code phase}
+     * A primeira fase começa no início do processo (inclui carregar classes e content providers)
+     */
+    public static synchronized void mark(String phase) {
+        if (finished) {
+            return;
+        }
+
+        long now = SystemClock.uptimeMillis();
+        long start = lastMark < 0 ? Process.getStartUptimeMillis() : lastMark;
+        phases.add(phase + ": " + (now - start) + "ms (t=" + sinceProcessStart(now) + "ms)");
+        lastMark = now;
+    }
+
+    /**
+     * Registrar um trabalho feito em background durante a abertura (não entra na soma das fases)
+     */
+    public static synchronized void background(String phase, long durationMillis) {
+        String line = "[background] " + phase + ": " + durationMillis + "ms (pronto em t="
+            + sinceProcessStart(SystemClock.uptimeMillis()) + "ms)";
+        if (finished) {
+            Log.d(TAG, line);
+        } else {
+            phases.add(line);
+        }
+    }
+
+    /**
+     * Encerrar a medição no primeiro desenho de {@code root} e registrar todas as fases
+     * Chamadas seguintes (outras activities) não fazem nada
+     */
+    public static void finishOnFirstFrame(View root) {
+        synchronized (StartupTrace.class) {
+            if (finished) {
+                return;
+            }
+        }
+
+        root.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                ViewTreeObserver observer = root.getViewTreeObserver();
+                if (observer.isAlive()) {
+                    observer.removeOnPreDrawListener(this);
+                }
+                finish();
+                return true;
+            }
+        });
+    }
+
+    private static synchronized void finish() {
+        if (finished) {
+            return;
+        }
+        mark("primeiro frame");
+        finished = true;
+
+        Log.d(TAG, "Abertura em " + sinceProcessStart(lastMark) + "ms:");
+        for (String phase : phases) {
+            Log.d(TAG, "  " + phase);
+        }
+        phases.clear();
+    }
+
+    private static long sinceProcessStart(long uptimeMillis) {
+        return uptimeMillis - Process.getStartUptimeMillis();
+    }
+}
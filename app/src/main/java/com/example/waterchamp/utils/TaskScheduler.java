@@ -0,0 +1,182 @@
+package com.example.waterchamp.utils;
+
+import android.util.Log;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executores separados por tipo de trabalho (lanes)
+ * Cada lane tem suas próprias threads e fila limitada, então uma requisição lenta
+ * de ranking nunca atrasa login, grupos ou a sincronização de consumo
+ *
+ * As chamadas ao Supabase (API *Async dos serviços) não ocupam estas threads:
+ * o ServiceScope aplica às corrotinas os mesmos limites de concorrência e de fila de cada lane,
+ * com métricas próprias (ServiceScope.getStats)
+ *
+ * Uso:
+ * TaskScheduler.execute(TaskScheduler.Lane.SYNC, runnable);
+ */
+public final class TaskScheduler {
+
+    /**
+     * Tipos de trabalho, cada um com limite de concorrência e de fila
+     */
+    public enum Lane {
+        // Ações do usuário (login, grupos, perfil)
+        INTERACTIVE(3, 64),
+        // Sincronização de consumo com o servidor; uma thread só, para os upserts chegarem em ordem
+        SYNC(1, 64),
+        // Atualizações periódicas (ranking); fila curta, já que a próxima atualização substitui a anterior
+        POLL(2, 8),
+        // Decodificação de imagens (fotos de perfil); pedidos de linhas recicladas saem da fila sem decodificar
+        IMAGE(2, 64),
+        // Diferenças entre listas dos adapters (DiffUtil); uma thread basta, já que diffs de listas substituídas são descartados
+        DIFF(1, 16);
+
+        final int threads;
+        final int queueCapacity;
+
+        Lane(int threads, int queueCapacity) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+
+        /**
+         * Máximo de tarefas executando ao mesmo tempo nesta lane
+         */
+        public int getConcurrency() {
+            return threads;
+        }
+
+        /**
+         * Máximo de tarefas esperando vaga nesta lane; acima disso, novas tarefas são rejeitadas
+         */
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+    }
+
+    /**
+     * Métricas de uma lane
+     */
+    public static final class LaneStats {
+        public final Lane lane;
+        public final int queueDepth;
+        public final int maxQueueDepth;
+        public final int active;
+        public final long completed;
+        public final long rejected;
+
+        public LaneStats(Lane lane, int queueDepth, int maxQueueDepth, int active, long completed, long rejected) {
+            this.lane = lane;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.active = active;
+            this.completed = completed;
+            this.rejected = rejected;
+        }
+
+        @Override
+        public String toString() {
+            return lane + "{fila=" + queueDepth + ", maxFila=" + maxQueueDepth + ", ativas=" + active
+                + ", concluídas=" + completed + ", rejeitadas=" + rejected + "}";
+        }
+    }
+
+    private static final LaneExecutor[] executors = new LaneExecutor[Lane.values().length];
+
+    static {
+        for (Lane lane : Lane.values()) {
+            executors[lane.ordinal()] = new LaneExecutor(lane);
+        }
+    }
+
+    private TaskScheduler() {}
+
+    /**
+     * Executar uma tarefa na lane indicada
+     * @throws RejectedExecutionException se a fila da lane estiver cheia
+     */
+    public static void execute(Lane lane, Runnable task) {
+        executors[lane.ordinal()].submit(task);
+    }
+
+    public static LaneStats getStats(Lane lane) {
+        return executors[lane.ordinal()].stats();
+    }
+
+    /**
+     * Registrar no log as métricas de todas as lanes
+     */
+    public static void logStats() {
+        for (Lane lane : Lane.values()) {
+            Log.d("TaskScheduler", "logStats() - " + getStats(lane));
+        }
+    }
+
+    // ============ Executor de uma lane ============
+
+    private static final class LaneExecutor {
+        private final Lane lane;
+        private final LinkedBlockingQueue<Runnable> queue;
+        private final ThreadPoolExecutor executor;
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final AtomicLong rejected = new AtomicLong();
+
+        LaneExecutor(Lane lane) {
+            this.lane = lane;
+            this.queue = new LinkedBlockingQueue<>(lane.queueCapacity);
+
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "waterchamp-" + lane.name().toLowerCase() + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+
+            this.executor = new ThreadPoolExecutor(
+                lane.threads, lane.threads,
+                30, TimeUnit.SECONDS,
+                queue,
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy()
+            );
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        void submit(Runnable task) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                Log.w("TaskScheduler", "submit() - Fila cheia na lane " + lane);
+                throw e;
+            }
+
+            int depth = queue.size();
+            int max;
+            while (depth > (max = maxQueueDepth.get())) {
+                if (maxQueueDepth.compareAndSet(max, depth)) {
+                    break;
+                }
+            }
+        }
+
+        LaneStats stats() {
+            return new LaneStats(
+                lane,
+                queue.size(),
+                maxQueueDepth.get(),
+                executor.getActiveCount(),
+                executor.getCompletedTaskCount(),
+                rejected.get()
+            );
+        }
+    }
+}
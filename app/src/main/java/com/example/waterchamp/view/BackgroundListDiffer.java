@@ -0,0 +1,176 @@
+package com.example.waterchamp.view;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.waterchamp.utils.CoroutineHelper;
+import com.example.waterchamp.utils.TaskScheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lista de um adapter atualizada por diferença (DiffUtil) calculada fora da thread principal
+ * Só as linhas que mudaram são notificadas, então as demais não são refeitas (nem recarregam imagens)
+ *
+ * Funciona como o AsyncListDiffer, mas também aceita trocar a lista quando as mudanças
+ * já são conhecidas (ex.: RankingModel.ChangeSet), sem recalcular a diferença,
+ * e inserir/remover um item conhecido (ex.: novo registro no histórico)
+ *
+ * Todos os métodos devem ser chamados na thread principal
+ */
+final class BackgroundListDiffer<T> {
+
+    private final RecyclerView.Adapter<?> adapter;
+    private final DiffUtil.ItemCallback<T> itemCallback;
+
+    // Só alterada na thread principal e nunca enquanto um diff em background a lê
+    private List<T> currentList = new ArrayList<>();
+    // Incrementado a cada troca de lista: diffs de listas já substituídas são descartados
+    private int generation = 0;
+    private boolean diffPending = false;
+
+    BackgroundListDiffer(RecyclerView.Adapter<?> adapter, DiffUtil.ItemCallback<T> itemCallback) {
+        this.adapter = adapter;
+        this.itemCallback = itemCallback;
+    }
+
+    List<T> getCurrentList() {
+        return Collections.unmodifiableList(currentList);
+    }
+
+    int size() {
+        return currentList.size();
+    }
+
+    T get(int position) {
+        return currentList.get(position);
+    }
+
+    /**
+     * Enviar uma nova lista; a diferença é calculada em background e aplicada ao adapter
+     * Uma cópia da lista é guardada, então quem chama pode continuar alterando a original
+     */
+    void submitList(List<T> newList) {
+        List<T> oldList = currentList;
+        List<T> snapshot = snapshot(newList);
+        int runGeneration = ++generation;
+
+        // Casos triviais: não precisam de diff
+        if (oldList.isEmpty() || snapshot.isEmpty()) {
+            diffPending = false;
+            currentList = snapshot;
+            if (!oldList.isEmpty()) {
+                adapter.notifyItemRangeRemoved(0, oldList.size());
+            }
+            if (!snapshot.isEmpty()) {
+                adapter.notifyItemRangeInserted(0, snapshot.size());
+            }
+            return;
+        }
+
+        diffPending = true;
+        calculateInBackground(oldList, snapshot, itemCallback, (result, error) -> {
+            if (runGeneration != generation) {
+                return; // Uma lista mais nova já foi enviada
+            }
+
+            diffPending = false;
+            currentList = snapshot;
+            if (error != null || result == null) {
+                adapter.notifyDataSetChanged();
+            } else {
+                result.dispatchUpdatesTo(adapter);
+            }
+        });
+    }
+
+    /**
+     * Trocar a lista imediatamente, sem calcular diferença
+     * Quem chama deve notificar o adapter logo em seguida com as mudanças que já conhece
+     */
+    void replaceList(List<T> newList) {
+        generation++;
+        diffPending = false;
+        currentList = snapshot(newList);
+    }
+
+    /**
+     * Inserir um item já conhecido e notificar o adapter, sem calcular diferença
+     * @return false se houver um diff em andamento (quem chama deve enviar a lista inteira)
+     */
+    boolean insert(int position, T item) {
+        if (diffPending) {
+            return false;
+        }
+
+        currentList.add(position, item);
+        adapter.notifyItemInserted(position);
+        return true;
+    }
+
+    /**
+     * Remover um item e notificar o adapter, sem calcular diferença
+     * @return false se houver um diff em andamento (quem chama deve enviar a lista inteira)
+     */
+    boolean remove(int position) {
+        if (diffPending) {
+            return false;
+        }
+
+        currentList.remove(position);
+        adapter.notifyItemRemoved(position);
+        return true;
+    }
+
+    /**
+     * Há uma diferença sendo calculada (a lista exibida ainda vai mudar)
+     */
+    boolean isDiffPending() {
+        return diffPending;
+    }
+
+    /**
+     * Calcular a diferença entre duas listas na lane DIFF; o resultado chega na thread principal
+     * Fica fora da lane INTERACTIVE para não disputar vaga com login, grupos e perfil
+     * As listas não podem ser alteradas enquanto o cálculo estiver em andamento
+     */
+    private static <T> void calculateInBackground(List<T> oldList, List<T> newList, DiffUtil.ItemCallback<T> itemCallback,
+                                          CoroutineHelper.CoroutineCallback<DiffUtil.DiffResult> callback) {
+        CoroutineHelper.runAsync(
+            TaskScheduler.Lane.DIFF,
+            () -> DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                @Override
+                public int getOldListSize() {
+                    return oldList.size();
+                }
+
+                @Override
+                public int getNewListSize() {
+                    return newList.size();
+                }
+
+                @Override
+                public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                    return itemCallback.areItemsTheSame(oldList.get(oldPosition), newList.get(newPosition));
+                }
+
+                @Override
+                public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                    return itemCallback.areContentsTheSame(oldList.get(oldPosition), newList.get(newPosition));
+                }
+
+                @Override
+                public Object getChangePayload(int oldPosition, int newPosition) {
+                    return itemCallback.getChangePayload(oldList.get(oldPosition), newList.get(newPosition));
+                }
+            }),
+            callback
+        );
+    }
+
+    private static <T> List<T> snapshot(List<T> list) {
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
+    }
+}
@@ -8,9 +8,11 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.waterchamp.R;
+import com.example.waterchamp.data.ServiceRegistry;
 import com.example.waterchamp.data.remote.GrupoService;
 import com.example.waterchamp.data.remote.UserService;
 import com.example.waterchamp.model.Group;
@@ -20,13 +22,28 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 /**
  * Adapter para exibir lista de grupos em RecyclerView
  */
 public class GrupoAdapter extends RecyclerView.Adapter<GrupoAdapter.GrupoViewHolder> {
 
-    private List<Group> grupos;
+    // Só grupos novos ou alterados são refeitos (o bind busca os membros no servidor)
+    private final BackgroundListDiffer<Group> differ = new BackgroundListDiffer<>(this, new DiffUtil.ItemCallback<Group>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Group oldGroup, @NonNull Group newGroup) {
+            return oldGroup.getId() == newGroup.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Group oldGroup, @NonNull Group newGroup) {
+            return oldGroup.getTotalMembros() == newGroup.getTotalMembros()
+                && Objects.equals(oldGroup.getNome(), newGroup.getNome())
+                && Objects.equals(oldGroup.getDescricao(), newGroup.getDescricao())
+                && Objects.equals(oldGroup.getDataCriacao(), newGroup.getDataCriacao());
+        }
+    });
     private OnGroupClickListener listener;
     private OnLeaveGroupListener leaveListener;
 
@@ -39,7 +56,8 @@ public class GrupoAdapter extends RecyclerView.Adapter<GrupoAdapter.GrupoViewHol
     }
 
     public GrupoAdapter(List<Group> grupos) {
-        this.grupos = grupos;
+        setHasStableIds(true);
+        differ.replaceList(grupos);
     }
 
     @NonNull
@@ -51,7 +69,7 @@ public class GrupoAdapter extends RecyclerView.Adapter<GrupoAdapter.GrupoViewHol
 
     @Override
     public void onBindViewHolder(@NonNull GrupoViewHolder holder, int position) {
-        Group group = grupos.get(position);
+        Group group = differ.get(position);
         holder.bind(group);
 
         holder.itemView.setOnClickListener(v -> {
@@ -69,12 +87,19 @@ public class GrupoAdapter extends RecyclerView.Adapter<GrupoAdapter.GrupoViewHol
 
     @Override
     public int getItemCount() {
-        return grupos.size();
+        return differ.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.get(position).getId();
     }
 
+    /**
+     * Atualiza a lista de grupos; a diferença é calculada em background
+     */
     public void updateGroups(List<Group> newGroups) {
-        this.grupos = newGroups;
-        notifyDataSetChanged();
+        differ.submitList(newGroups);
     }
 
     public void setOnGroupClickListener(OnGroupClickListener listener) {
@@ -109,8 +134,9 @@ public class GrupoAdapter extends RecyclerView.Adapter<GrupoAdapter.GrupoViewHol
             tvCreatedDate = itemView.findViewById(R.id.tvCreatedDate);
             llMembersList = itemView.findViewById(R.id.llMembersList);
             btnLeaveGroup = itemView.findViewById(R.id.btnLeaveGroup);
-            grupoService = new GrupoService();
-            userService = new UserService();
+            ServiceRegistry registry = ServiceRegistry.get(itemView.getContext());
+            grupoService = registry.getGrupoService();
+            userService = registry.getUserService();
         }
 
         public void bind(Group group) {
@@ -147,16 +173,16 @@ public class GrupoAdapter extends RecyclerView.Adapter<GrupoAdapter.GrupoViewHol
             llMembersList.removeAllViews();
 
             // Carregar membros em background
-            CoroutineHelper.runAsync(
-                () -> grupoService.getGroupMembersBlocking(grupoId),
+            CoroutineHelper.whenComplete(
+                grupoService.getGroupMembersAsync(grupoId),
                 new CoroutineHelper.CoroutineCallback<List<Integer>>() {
                     @Override
                     public void onComplete(List<Integer> memberIds, String error) {
                         if (error == null && memberIds != null && !memberIds.isEmpty()) {
                             // Para cada membro, buscar o nome
                             for (Integer memberId : memberIds) {
-                                CoroutineHelper.runAsync(
-                                    () -> userService.getUserByIdBlocking(memberId),
+                                CoroutineHelper.whenComplete(
+                                    userService.getUserByIdAsync(memberId),
                                     new CoroutineHelper.CoroutineCallback<UserService.Usuario>() {
                                         @Override
                                         public void onComplete(UserService.Usuario usuario, String userError) {
@@ -20,6 +20,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.waterchamp.R;
 import com.example.waterchamp.controller.GrupoController;
 import com.example.waterchamp.model.Group;
+import com.example.waterchamp.utils.FrameTimer;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -39,6 +40,7 @@ public class GrupoFragment extends Fragment implements GrupoController.GrupoView
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        long createStart = FrameTimer.start();
         View view = inflater.inflate(R.layout.fragment_grupo, container, false);
 
         // Inicializar componentes
@@ -75,9 +77,18 @@ public class GrupoFragment extends Fragment implements GrupoController.GrupoView
         // Carregar grupos
         loadGroups();
 
+        FrameTimer.logFirstFrame("GrupoFragment", view, createStart);
+
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        // Resultados que chegarem depois daqui não têm mais onde ser exibidos
+        grupoController.cancelRequests();
+    }
+
     private void loadGroups() {
         grupoController.loadUserGroups();
     }
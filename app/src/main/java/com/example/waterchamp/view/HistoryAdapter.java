@@ -7,22 +7,41 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.waterchamp.R;
 import com.example.waterchamp.model.HistoryRecord;
 
 import java.text.SimpleDateFormat;
+import java.util.AbstractList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
 public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.HistoryViewHolder> {
 
-    private List<HistoryRecord> historyList;
+    // Lista exibida: mais novo primeiro
+    private final BackgroundListDiffer<HistoryRecord> differ = new BackgroundListDiffer<>(this, new DiffUtil.ItemCallback<HistoryRecord>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull HistoryRecord oldRecord, @NonNull HistoryRecord newRecord) {
+            return oldRecord.getId() == newRecord.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull HistoryRecord oldRecord, @NonNull HistoryRecord newRecord) {
+            return oldRecord.getTimestamp() == newRecord.getTimestamp()
+                && oldRecord.getAmount() == newRecord.getAmount()
+                && oldRecord.getAction().equals(newRecord.getAction());
+        }
+    });
 
+    /**
+     * @param historyList registros em ordem cronológica
+     */
     public HistoryAdapter(List<HistoryRecord> historyList) {
-        this.historyList = historyList;
+        setHasStableIds(true);
+        differ.replaceList(newestFirst(historyList));
     }
 
     @NonNull
@@ -34,7 +53,7 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.HistoryV
 
     @Override
     public void onBindViewHolder(@NonNull HistoryViewHolder holder, int position) {
-        HistoryRecord record = historyList.get(position);
+        HistoryRecord record = differ.get(position);
 
         holder.tvAction.setText(record.getAction());
 
@@ -53,16 +72,65 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.HistoryV
 
     @Override
     public int getItemCount() {
-        return historyList.size();
+        return differ.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.get(position).getId();
+    }
+
+    /**
+     * Substituir a lista inteira (abertura da tela, limpeza do histórico)
+     * A diferença é calculada em background: só os registros novos ou removidos são notificados
+     * @param historyList registros em ordem cronológica
+     */
+    public void updateHistory(List<HistoryRecord> historyList) {
+        differ.submitList(newestFirst(historyList));
+    }
+
+    /**
+     * Novo registro no topo da lista, sem recalcular a diferença
+     * @return false se houver uma recarga em andamento (a tela deve recarregar a lista)
+     */
+    public boolean addToTop(HistoryRecord record) {
+        return differ.insert(0, record);
+    }
+
+    /**
+     * Tirar o registro do topo da lista, sem recalcular a diferença
+     * @return false se o topo não for esse registro ou houver uma recarga em andamento
+     * (a tela deve recarregar a lista)
+     */
+    public boolean removeFromTop(HistoryRecord record) {
+        if (differ.isDiffPending() || differ.size() == 0 || differ.get(0).getId() != record.getId()) {
+            return false;
+        }
+        return differ.remove(0);
+    }
+
+    /**
+     * Há uma recarga (diff) em andamento
+     */
+    boolean isReloadPending() {
+        return differ.isDiffPending();
     }
 
     /**
-     * Atualiza a lista de histórico e notifica mudanças
-     * Mais eficiente que recriar o adapter
+     * Visão invertida (mais novo primeiro), sem copiar; o differ guarda a própria cópia
      */
-    public void updateHistory(List<HistoryRecord> newHistoryList) {
-        this.historyList = newHistoryList;
-        notifyDataSetChanged();
+    private static List<HistoryRecord> newestFirst(List<HistoryRecord> chronological) {
+        return new AbstractList<HistoryRecord>() {
+            @Override
+            public HistoryRecord get(int index) {
+                return chronological.get(chronological.size() - 1 - index);
+            }
+
+            @Override
+            public int size() {
+                return chronological.size();
+            }
+        };
     }
 
     static class HistoryViewHolder extends RecyclerView.ViewHolder {
@@ -18,6 +18,7 @@ import com.example.waterchamp.R;
 import com.example.waterchamp.controller.HistoryController;
 import com.example.waterchamp.event.HistoryUpdateEvent;
 import com.example.waterchamp.model.HistoryRecord;
+import com.example.waterchamp.utils.FrameTimer;
 
 import java.util.List;
 
@@ -35,6 +36,7 @@ public class HistoryFragment extends Fragment implements HistoryController.Histo
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        long createStart = FrameTimer.start();
         View view = inflater.inflate(R.layout.fragment_history, container, false);
 
         recyclerViewHistory = view.findViewById(R.id.recyclerViewHistory);
@@ -45,6 +47,8 @@ public class HistoryFragment extends Fragment implements HistoryController.Histo
 
         controller = new HistoryController(this, getContext());
 
+        FrameTimer.logFirstFrame("HistoryFragment", view, createStart);
+
         return view;
     }
 
@@ -92,8 +96,8 @@ public class HistoryFragment extends Fragment implements HistoryController.Histo
      */
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onHistoryUpdate(HistoryUpdateEvent event) {
-        // Recarregar histórico quando há mudanças
-        controller.updateHistory();
+        // Aplicar só o registro adicionado/removido (recarrega se o evento não trouxer os registros)
+        controller.applyHistoryChange(event);
     }
 
     @Override
@@ -106,4 +110,21 @@ public class HistoryFragment extends Fragment implements HistoryController.Histo
             historyAdapter.updateHistory(historyList);
         }
     }
+
+    @Override
+    public boolean addToTop(HistoryRecord record) {
+        if (historyAdapter == null) {
+            return false;
+        }
+        boolean applied = historyAdapter.addToTop(record);
+        if (applied) {
+            recyclerViewHistory.scrollToPosition(0);
+        }
+        return applied;
+    }
+
+    @Override
+    public boolean removeFromTop(HistoryRecord record) {
+        return historyAdapter != null && historyAdapter.removeFromTop(record);
+    }
 }
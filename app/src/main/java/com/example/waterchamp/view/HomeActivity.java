@@ -8,6 +8,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
 
 import com.example.waterchamp.R;
+import com.example.waterchamp.utils.StartupTrace;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 public class HomeActivity extends AppCompatActivity implements BottomNavigationView.OnNavigationItemSelectedListener {
@@ -15,6 +16,8 @@ public class HomeActivity extends AppCompatActivity implements BottomNavigationV
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Processo recriado direto nesta tela (ex.: volta após o sistema encerrar o app)
+        StartupTrace.mark("até HomeActivity.onCreate");
         setContentView(R.layout.home_activity);
 
         BottomNavigationView bottomNav = findViewById(R.id.bottom_navigation);
@@ -22,6 +25,9 @@ public class HomeActivity extends AppCompatActivity implements BottomNavigationV
 
         // Load the default fragment
         loadFragment(new HomeFragment());
+
+        StartupTrace.mark("HomeActivity.onCreate");
+        StartupTrace.finishOnFirstFrame(getWindow().getDecorView());
     }
 
     private boolean loadFragment(Fragment fragment) {
@@ -23,6 +23,7 @@ import androidx.fragment.app.Fragment;
 import com.example.waterchamp.R;
 import com.example.waterchamp.controller.HomeController;
 import com.example.waterchamp.model.UserDatabase;
+import com.example.waterchamp.utils.FrameTimer;
 import com.google.android.material.snackbar.Snackbar;
 
 public class HomeFragment extends Fragment implements HomeController.HomeView {
@@ -40,6 +41,7 @@ public class HomeFragment extends Fragment implements HomeController.HomeView {
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        long createStart = FrameTimer.start();
         View view = inflater.inflate(R.layout.fragment_home, container, false);
 
         progressBarWater = view.findViewById(R.id.progressBarWater);
@@ -52,7 +54,10 @@ public class HomeFragment extends Fragment implements HomeController.HomeView {
 
         controller = new HomeController(this, getContext());
 
-        updateUI();
+        // Último estado gravado na hora; depois o cache local e, em background, o servidor
+        controller.showSnapshot();
+        controller.updateUI();
+        controller.refresh();
 
         btnAdd250.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -84,30 +89,40 @@ public class HomeFragment extends Fragment implements HomeController.HomeView {
             }
         });
 
+        FrameTimer.logFirstFrame("HomeFragment", view, createStart);
+
         return view;
     }
 
     @Override
     public void updateUI() {
         if (UserDatabase.currentUser != null) {
-            int currentWaterIntake = UserDatabase.currentUser.getWaterIntake();
-            int dailyGoal = UserDatabase.currentUser.getDailyGoal();
-            int defaultCupSize = UserDatabase.currentUser.getDefaultCupSize();
+            render(UserDatabase.currentUser.getWaterIntake(), UserDatabase.currentUser.getDailyGoal(),
+                UserDatabase.currentUser.getDefaultCupSize());
+            FrameTimer.logContent("HomeFragment", progressBarWater, "local");
+        }
+    }
 
-            // Update button text
-            btnAdd250.setText("+" + defaultCupSize + "ml");
+    @Override
+    public void showHomeState(int waterIntake, int dailyGoal, int defaultCupSize) {
+        render(waterIntake, dailyGoal, defaultCupSize);
+        FrameTimer.logContent("HomeFragment", progressBarWater, "snapshot");
+    }
 
-            // Update max in case it changed
-            progressBarWater.setMax(dailyGoal);
+    private void render(int currentWaterIntake, int dailyGoal, int defaultCupSize) {
+        // Update button text
+        btnAdd250.setText("+" + defaultCupSize + "ml");
 
-            // ProgressBar update is handled by animation, but we set it here to ensure consistency
-            progressBarWater.setProgress(currentWaterIntake);
+        // Update max in case it changed
+        progressBarWater.setMax(dailyGoal);
 
-            tvProgress.setText(currentWaterIntake + "ml / " + dailyGoal + "ml");
+        // ProgressBar update is handled by animation, but we set it here to ensure consistency
+        progressBarWater.setProgress(currentWaterIntake);
 
-            int percentage = (int) (((double) currentWaterIntake / dailyGoal) * 100);
-            tvPercentage.setText(percentage + "%");
-        }
+        tvProgress.setText(currentWaterIntake + "ml / " + dailyGoal + "ml");
+
+        int percentage = (int) (((double) currentWaterIntake / dailyGoal) * 100);
+        tvPercentage.setText(percentage + "%");
     }
 
     @Override
@@ -159,6 +174,13 @@ public class HomeFragment extends Fragment implements HomeController.HomeView {
         }
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        // Sincronização que chegar depois daqui não tem mais onde ser exibida
+        controller.cancelRequests();
+    }
+
     @Override
     public void onResume() {
         super.onResume();
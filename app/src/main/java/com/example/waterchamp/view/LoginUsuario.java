@@ -13,8 +13,10 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.waterchamp.R;
 import com.example.waterchamp.controller.LoginController;
+import com.example.waterchamp.data.ServiceRegistry;
 import com.example.waterchamp.data.local.PreferencesManager;
 import com.example.waterchamp.model.UserDatabase;
+import com.example.waterchamp.utils.StartupTrace;
 import com.google.android.material.snackbar.Snackbar;
 
 public class LoginUsuario extends AppCompatActivity implements LoginController.LoginView {
@@ -30,7 +32,9 @@ public class LoginUsuario extends AppCompatActivity implements LoginController.L
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        StartupTrace.mark("até LoginUsuario.onCreate");
         setContentView(R.layout.login_usuario);
+        StartupTrace.mark("LoginUsuario.setContentView");
 
         loginUsuario = findViewById(R.id.loginUsuario);
         senhaUsuario = findViewById(R.id.senhaUsuario);
@@ -39,7 +43,7 @@ public class LoginUsuario extends AppCompatActivity implements LoginController.L
         criarCadastro = findViewById(R.id.criarCadastro);
 
         controller = new LoginController(this, this);
-        preferencesManager = new PreferencesManager(this);
+        preferencesManager = ServiceRegistry.get(this).getPreferencesManager();
 
         // Carregar credenciais salvas se existirem
         loadSavedCredentials();
@@ -89,6 +93,9 @@ public class LoginUsuario extends AppCompatActivity implements LoginController.L
                 startActivity(intent);
             }
         });
+
+        StartupTrace.mark("LoginUsuario.onCreate (restante)");
+        StartupTrace.finishOnFirstFrame(getWindow().getDecorView());
     }
 
     /**
@@ -20,10 +20,13 @@ import androidx.fragment.app.Fragment;
 
 import com.example.waterchamp.R;
 import com.example.waterchamp.controller.ProfileController;
+import com.example.waterchamp.utils.FrameTimer;
+import com.example.waterchamp.utils.ImageLoader;
 
 public class ProfileFragment extends Fragment implements ProfileController.ProfileView {
 
     private static final int PICK_IMAGE_REQUEST = 1;
+    private static final int PROFILE_SIZE_DP = 100; // Tamanho da foto na tela de perfil
 
     private EditText etName, etPassword, etDailyGoal, etCupSize;
     private TextView tvEmail, tvTotalIntake, tvAverage, tvStreak;
@@ -36,6 +39,7 @@ public class ProfileFragment extends Fragment implements ProfileController.Profi
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        long createStart = FrameTimer.start();
         View view = inflater.inflate(R.layout.fragment_profile, container, false);
 
         etName = view.findViewById(R.id.etName);
@@ -84,6 +88,8 @@ public class ProfileFragment extends Fragment implements ProfileController.Profi
             }
         });
 
+        FrameTimer.logFirstFrame("ProfileFragment", view, createStart);
+
         return view;
     }
 
@@ -108,9 +114,7 @@ public class ProfileFragment extends Fragment implements ProfileController.Profi
                 e.printStackTrace();
             }
 
-            imgProfile.setImageURI(selectedImageUri);
-            imgProfile.setPadding(0, 0, 0, 0); // Remove padding when image is set
-            imgProfile.setColorFilter(null); // Remove tint
+            setProfileImage(selectedImageUri);
         }
     }
 
@@ -141,13 +145,31 @@ public class ProfileFragment extends Fragment implements ProfileController.Profi
 
     @Override
     public void setProfileImage(Uri uri) {
-        imgProfile.setImageURI(uri);
-        imgProfile.setPadding(0, 0, 0, 0);
-        imgProfile.setColorFilter(null);
+        // Decodificada fora da thread principal, no tamanho da view
+        ImageLoader.get(requireContext()).load(imgProfile, uri.toString(), PROFILE_SIZE_DP, new ImageLoader.Callback() {
+            @Override
+            public void onSuccess(ImageView view) {
+                view.setPadding(0, 0, 0, 0); // Remove padding when image is set
+                view.setColorFilter(null); // Remove tint
+            }
+
+            @Override
+            public void onError(ImageView view) {
+                setDefaultProfileImage();
+            }
+        });
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        // Sequência que chegar depois daqui não tem mais onde ser exibida
+        controller.cancelRequests();
     }
 
     @Override
     public void setDefaultProfileImage() {
+        ImageLoader.get(requireContext()).cancel(imgProfile);
         imgProfile.setImageResource(R.drawable.ic_profile);
     }
 
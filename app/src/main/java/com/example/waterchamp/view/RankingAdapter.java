@@ -1,6 +1,5 @@
 package com.example.waterchamp.view;
 
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,20 +7,50 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.waterchamp.R;
+import com.example.waterchamp.model.RankingModel;
 import com.example.waterchamp.model.User;
 import com.example.waterchamp.model.UserDatabase;
+import com.example.waterchamp.utils.ImageLoader;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class RankingAdapter extends RecyclerView.Adapter<RankingAdapter.RankingViewHolder> {
 
-    private List<User> userList;
+    // Payload de itens que só mudaram de posição: atualiza o número sem recarregar nome e foto
+    private static final Object PAYLOAD_RANK = new Object();
+
+    // Tamanho da foto em item_ranking.xml
+    private static final int PROFILE_SIZE_DP = 40;
+
+    // Cópia imutável do que está na tela (os User do RankingModel são alterados no lugar)
+    private final BackgroundListDiffer<Row> differ = new BackgroundListDiffer<>(this, new DiffUtil.ItemCallback<Row>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Row oldRow, @NonNull Row newRow) {
+            return oldRow.itemId == newRow.itemId;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Row oldRow, @NonNull Row newRow) {
+            return oldRow.rank == newRow.rank && oldRow.sameContents(newRow);
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull Row oldRow, @NonNull Row newRow) {
+            return oldRow.sameContents(newRow) ? PAYLOAD_RANK : null;
+        }
+    });
 
     public RankingAdapter(List<User> userList) {
-        this.userList = userList;
+        setHasStableIds(true);
+        differ.replaceList(toRows(userList));
     }
 
     @NonNull
@@ -31,9 +60,113 @@ public class RankingAdapter extends RecyclerView.Adapter<RankingAdapter.RankingV
         return new RankingViewHolder(view);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull RankingViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && allRankPayloads(payloads)) {
+            bindRank(holder, position);
+            return;
+        }
+        onBindViewHolder(holder, position);
+    }
+
     @Override
     public void onBindViewHolder(@NonNull RankingViewHolder holder, int position) {
-        User user = userList.get(position);
+        Row row = differ.get(position);
+
+        bindRank(holder, position);
+        holder.tvName.setText(row.name);
+        holder.tvIntake.setText(row.waterIntake + "ml");
+
+        // Placeholder até a foto chegar (decodificada fora da thread principal)
+        holder.imgProfile.setImageResource(R.drawable.ic_profile);
+        holder.imgProfile.setPadding(8, 8, 8, 8);
+        if (row.profilePictureUri != null) {
+            ImageLoader.get(holder.itemView.getContext()).load(holder.imgProfile, row.profilePictureUri, PROFILE_SIZE_DP, new ImageLoader.Callback() {
+                @Override
+                public void onSuccess(ImageView view) {
+                    view.setPadding(0, 0, 0, 0); // Remove padding if image is set
+                }
+
+                @Override
+                public void onError(ImageView view) {
+                    // Mantém o placeholder
+                }
+            });
+        } else {
+            ImageLoader.get(holder.itemView.getContext()).cancel(holder.imgProfile);
+        }
+
+        // Highlight current user
+        if (UserDatabase.currentUser != null && row.email.equals(UserDatabase.currentUser.getEmail())) {
+             holder.itemView.setBackgroundColor(holder.itemView.getContext().getResources().getColor(R.color.button_dark_teal));
+        } else {
+             holder.itemView.setBackgroundColor(holder.itemView.getContext().getResources().getColor(R.color.background_main));
+        }
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull RankingViewHolder holder) {
+        super.onViewRecycled(holder);
+        // A linha vai mostrar outro usuário: a foto pedida para ela não serve mais
+        ImageLoader.get(holder.itemView.getContext()).cancel(holder.imgProfile);
+    }
+
+    @Override
+    public int getItemCount() {
+        return differ.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.get(position).itemId;
+    }
+
+    /**
+     * Atualiza a lista de usuários
+     * A diferença é calculada em background: só as linhas que mudaram são refeitas
+     */
+    public void updateRanking(List<User> newUserList) {
+        differ.submitList(toRows(newUserList));
+    }
+
+    /**
+     * Aplica só as alterações calculadas pelo RankingModel (inserções, remoções, movimentos)
+     * em vez de redesenhar a lista inteira
+     */
+    public void applyChanges(List<User> newUserList, RankingModel.ChangeSet changes) {
+        if (changes.isReset()) {
+            updateRanking(newUserList);
+            return;
+        }
+
+        differ.replaceList(toRows(newUserList));
+
+        for (RankingModel.Change change : changes.getChanges()) {
+            switch (change.type) {
+                case RankingModel.Change.INSERT:
+                    notifyItemInserted(change.to);
+                    break;
+                case RankingModel.Change.REMOVE:
+                    notifyItemRemoved(change.from);
+                    break;
+                case RankingModel.Change.MOVE:
+                    notifyItemMoved(change.from, change.to);
+                    break;
+                case RankingModel.Change.UPDATE:
+                    notifyItemChanged(change.to);
+                    break;
+            }
+        }
+
+        // Itens que só trocaram de número no ranking
+        int start = changes.getRankRangeStart();
+        int end = Math.min(changes.getRankRangeEnd(), differ.size() - 1);
+        if (start >= 0 && start <= end) {
+            notifyItemRangeChanged(start, end - start + 1, PAYLOAD_RANK);
+        }
+    }
+
+    private void bindRank(RankingViewHolder holder, int position) {
         int rank = position + 1;
 
         String rankText;
@@ -48,42 +181,56 @@ public class RankingAdapter extends RecyclerView.Adapter<RankingAdapter.RankingV
         }
 
         holder.tvRank.setText(rankText);
-        holder.tvName.setText(user.getName());
-        holder.tvIntake.setText(user.getWaterIntake() + "ml");
-
-        if (user.getProfilePictureUri() != null) {
-            try {
-                holder.imgProfile.setImageURI(Uri.parse(user.getProfilePictureUri()));
-                holder.imgProfile.setPadding(0, 0, 0, 0); // Remove padding if image is set
-            } catch (Exception e) {
-                holder.imgProfile.setImageResource(R.drawable.ic_profile);
-                holder.imgProfile.setPadding(8, 8, 8, 8);
-            }
-        } else {
-            holder.imgProfile.setImageResource(R.drawable.ic_profile);
-            holder.imgProfile.setPadding(8, 8, 8, 8);
-        }
+    }
 
-        // Highlight current user
-        if (UserDatabase.currentUser != null && user.getEmail().equals(UserDatabase.currentUser.getEmail())) {
-             holder.itemView.setBackgroundColor(holder.itemView.getContext().getResources().getColor(R.color.button_dark_teal));
-        } else {
-             holder.itemView.setBackgroundColor(holder.itemView.getContext().getResources().getColor(R.color.background_main));
+    private static boolean allRankPayloads(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_RANK) {
+                return false;
+            }
         }
+        return true;
     }
 
-    @Override
-    public int getItemCount() {
-        return userList.size();
+    private static List<Row> toRows(List<User> users) {
+        List<Row> rows = new ArrayList<>();
+        if (users != null) {
+            for (int i = 0; i < users.size(); i++) {
+                rows.add(new Row(users.get(i), i + 1));
+            }
+        }
+        return rows;
     }
 
     /**
-     * Atualiza a lista de usuários e notifica mudanças
-     * Mais eficiente que recriar o adapter
+     * Linha do ranking como estava no momento da atualização
      */
-    public void updateRanking(List<User> newUserList) {
-        this.userList = newUserList;
-        notifyDataSetChanged();
+    static final class Row {
+        final long itemId;
+        final int rank;
+        final String name;
+        final String email;
+        final int waterIntake;
+        final String profilePictureUri;
+
+        Row(User user, int rank) {
+            this.rank = rank;
+            this.name = user.getName() != null ? user.getName() : "";
+            this.email = user.getEmail() != null ? user.getEmail() : "";
+            this.waterIntake = user.getWaterIntake();
+            this.profilePictureUri = user.getProfilePictureUri();
+            // Usuários sem ID (dados locais) usam nome e email, em uma faixa que não colide com IDs do servidor
+            this.itemId = user.getId() >= 0
+                ? user.getId()
+                : -1L - ((name + "|" + email).hashCode() & 0xffffffffL);
+        }
+
+        boolean sameContents(Row other) {
+            return waterIntake == other.waterIntake
+                && name.equals(other.name)
+                && email.equals(other.email)
+                && Objects.equals(profilePictureUri, other.profilePictureUri);
+        }
     }
 
     static class RankingViewHolder extends RecyclerView.ViewHolder {
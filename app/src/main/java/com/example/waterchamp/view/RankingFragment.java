@@ -18,12 +18,14 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.example.waterchamp.R;
 import com.example.waterchamp.controller.RankingController;
 import com.example.waterchamp.data.remote.RankingRealtimeService;
+import com.example.waterchamp.model.RankingModel;
 import com.example.waterchamp.model.User;
+import com.example.waterchamp.utils.FrameTimer;
 import com.google.android.material.tabs.TabLayout;
 
 import java.util.List;
 
-public class RankingFragment extends Fragment implements RankingController.RankingView {
+public class RankingFragment extends Fragment implements RankingController.RankingView, RankingRealtimeService.RankingUpdateListener {
 
     private RecyclerView recyclerViewRanking;
     private RankingAdapter rankingAdapter;
@@ -36,12 +38,16 @@ public class RankingFragment extends Fragment implements RankingController.Ranki
     private static final int TAB_GROUP = 0;
     private static final int TAB_GLOBAL = 1;
 
-    private static final long AUTO_REFRESH_INTERVAL = 2000; // 2 segundos
+    // Polling lento, usado enquanto o Realtime estiver desconectado
+    private static final long AUTO_REFRESH_INTERVAL = 30000; // 30 segundos
+    // Com o Realtime conectado, só para quem está fora da lista (e portanto fora do filtro) e passa a poder entrar
+    private static final long ENTRANT_REFRESH_INTERVAL = 120000; // 2 minutos
     private Runnable autoRefreshRunnable;
 
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        long createStart = FrameTimer.start();
         View view = inflater.inflate(R.layout.fragment_ranking, container, false);
 
         recyclerViewRanking = view.findViewById(R.id.recyclerViewRanking);
@@ -84,30 +90,73 @@ public class RankingFragment extends Fragment implements RankingController.Ranki
             public void onTabReselected(TabLayout.Tab tab) {}
         });
 
+        FrameTimer.logFirstFrame("RankingFragment", view, createStart);
+
         return view;
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        Log.d("RankingFragment", "onResume() - Iniciando auto-refresh do ranking");
+        Log.d("RankingFragment", "onResume() - Carregando ranking e iniciando realtime");
         // Carregar ranking do grupo por padrão
         controller.updateGroupRanking();
 
-        // Iniciar auto-refresh a cada 2 segundos
+        // Mudanças chegam pelo Realtime; até o socket conectar, usa o polling lento
+        realtimeService.startListening(this, controller.getWatchedUserIds());
         startAutoRefresh();
     }
 
     @Override
     public void onPause() {
         super.onPause();
-        Log.d("RankingFragment", "onPause() - Parando auto-refresh do ranking");
-        // Parar auto-refresh quando fragment sai de vista
+        Log.d("RankingFragment", "onPause() - Parando realtime e auto-refresh do ranking");
+        // Parar atualizações quando fragment sai de vista
+        realtimeService.stopListening();
         stopAutoRefresh();
+        // Cancelar requisições em andamento: ninguém vai ver o resultado
+        controller.cancelRequests();
+    }
+
+    // ============ Realtime ============
+
+    @Override
+    public void onConsumptionChanged(@NonNull RankingRealtimeService.ConsumoChange change) {
+        controller.applyConsumptionChange(change.getUsuarioId(), change.getData(), change.getTotalMl(), change.getPreviousMl());
+    }
+
+    @Override
+    public void onConnectionChanged(boolean connected) {
+        if (!isResumed()) {
+            return;
+        }
+
+        if (connected) {
+            Log.d("RankingFragment", "onConnectionChanged() - Realtime conectado, polling só para novos usuários na lista");
+            // Mudanças perdidas enquanto estava desconectado (ou antes de trocar os usuários escutados)
+            refreshSelectedTab();
+        } else {
+            Log.d("RankingFragment", "onConnectionChanged() - Realtime desconectado, voltando ao polling");
+        }
+        startAutoRefresh();
+    }
+
+    @Override
+    public void onRankingError(@NonNull String message) {
+        Log.e("RankingFragment", "onRankingError() - " + message);
+        startAutoRefresh();
+    }
+
+    private void refreshSelectedTab() {
+        if (tabLayout.getSelectedTabPosition() == TAB_GROUP) {
+            controller.updateGroupRanking();
+        } else {
+            controller.updateGlobalRanking();
+        }
     }
 
     /**
-     * Inicia atualização automática do ranking a cada 2 segundos
+     * Inicia atualização automática do ranking: a cada 30 segundos sem Realtime, a cada 2 minutos com ele
      */
     private void startAutoRefresh() {
         if (autoRefreshRunnable == null) {
@@ -116,19 +165,21 @@ public class RankingFragment extends Fragment implements RankingController.Ranki
                 public void run() {
                     if (recyclerViewRanking != null && isResumed()) {
                         Log.d("RankingFragment", "startAutoRefresh() - Atualizando ranking...");
-                        if (tabLayout.getSelectedTabPosition() == TAB_GROUP) {
-                            controller.updateGroupRanking();
-                        } else {
-                            controller.updateGlobalRanking();
-                        }
+                        refreshSelectedTab();
                         // Agendar próxima atualização
-                        recyclerViewRanking.postDelayed(this, AUTO_REFRESH_INTERVAL);
+                        recyclerViewRanking.postDelayed(this, autoRefreshInterval());
                     }
                 }
             };
         }
+        // Evitar dois ciclos de polling ao mesmo tempo
+        recyclerViewRanking.removeCallbacks(autoRefreshRunnable);
         // Iniciar primeira atualização
-        recyclerViewRanking.postDelayed(autoRefreshRunnable, AUTO_REFRESH_INTERVAL);
+        recyclerViewRanking.postDelayed(autoRefreshRunnable, autoRefreshInterval());
+    }
+
+    private long autoRefreshInterval() {
+        return realtimeService.isConnected() ? ENTRANT_REFRESH_INTERVAL : AUTO_REFRESH_INTERVAL;
     }
 
     /**
@@ -177,6 +228,32 @@ public class RankingFragment extends Fragment implements RankingController.Ranki
         }
     }
 
+    @Override
+    public void applyRankingChanges(List<User> rankingList, RankingModel.ChangeSet changes) {
+        // Escutar só quem está na lista; o canal só é refeito se os usuários mudaram
+        realtimeService.watchUsers(controller.getWatchedUserIds());
+
+        if (!rankingList.isEmpty()) {
+            FrameTimer.logContent("RankingFragment", recyclerViewRanking, controller.isShowingSnapshot() ? "snapshot" : "servidor");
+        }
+
+        boolean showingList = rankingAdapter != null && recyclerViewRanking.getVisibility() == View.VISIBLE;
+        if (!showingList || changes.isReset() || rankingList.isEmpty()) {
+            // Primeira carga, troca de aba ou lista vazia: redesenhar tudo
+            displayRanking(rankingList);
+            return;
+        }
+
+        if (swipeRefreshLayout != null) {
+            swipeRefreshLayout.setRefreshing(false);
+        }
+
+        if (!changes.isEmpty()) {
+            Log.d("RankingFragment", "applyRankingChanges() - " + changes.getChanges().size() + " alteração(ões)");
+            rankingAdapter.applyChanges(rankingList, changes);
+        }
+    }
+
     @Override
     public void showError(String message) {
         if (getContext() != null) {
@@ -0,0 +1,55 @@
+package com.example.waterchamp;
+
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Context mínimo para testes na JVM (sem Robolectric)
+ * Só o que os stores locais usam: SharedPreferences em memória (uma por nome) e diretórios de arquivos
+ */
+public class FakeContext extends ContextWrapper {
+
+    private final Map<String, FakeSharedPreferences> preferences = new HashMap<>();
+    private final File filesDir;
+    private final File cacheDir;
+
+    /**
+     * @param dir diretório temporário; arquivos e cache ficam em subpastas dele
+     */
+    public FakeContext(File dir) {
+        super(null);
+        this.filesDir = new File(dir, "files");
+        this.cacheDir = new File(dir, "cache");
+        filesDir.mkdirs();
+        cacheDir.mkdirs();
+    }
+
+    @Override
+    public ContextWrapper getApplicationContext() {
+        return this;
+    }
+
+    @Override
+    public synchronized SharedPreferences getSharedPreferences(String name, int mode) {
+        FakeSharedPreferences prefs = preferences.get(name);
+        if (prefs == null) {
+            prefs = new FakeSharedPreferences();
+            preferences.put(name, prefs);
+        }
+        return prefs;
+    }
+
+    @Override
+    public File getFilesDir() {
+        return filesDir;
+    }
+
+    @Override
+    public File getCacheDir() {
+        return cacheDir;
+    }
+}
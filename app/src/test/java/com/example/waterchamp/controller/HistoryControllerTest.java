@@ -0,0 +1,187 @@
+package com.example.waterchamp.controller;
+
+import android.content.Context;
+
+import com.example.waterchamp.data.local.HistoryCache;
+import com.example.waterchamp.data.local.PreferencesManager;
+import com.example.waterchamp.data.remote.ConsumoService;
+import com.example.waterchamp.data.repository.ConsumoRepository;
+import com.example.waterchamp.data.sync.SyncOutbox;
+import com.example.waterchamp.event.HistoryUpdateEvent;
+import com.example.waterchamp.model.HistoryRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Eventos de histórico aplicados pelo HistoryController sobre o histórico real do dia (HistoryCache)
+ * A tela falsa guarda as linhas como o adapter (mais novo primeiro) e conta o que mudou
+ * Depois de cada evento, as linhas devem ser as mesmas de uma recarga completa do dia
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class HistoryControllerTest {
+
+    private ConsumoRepository repository;
+    private RecordingView view;
+    private HistoryController controller;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        // Sem usuário logado: nada é enviado ao servidor
+        repository = new ConsumoRepository(new ConsumoService(), new HistoryCache(context),
+            new PreferencesManager(context), new SyncOutbox(context));
+        repository.clearLocalData();
+
+        repository.addWater(250);
+        repository.addWater(300);
+        repository.addWater(200);
+
+        view = new RecordingView();
+        controller = new HistoryController(view, repository);
+        controller.updateHistory();
+        view.resetCounts();
+    }
+
+    @After
+    public void tearDown() {
+        repository.clearLocalData();
+    }
+
+    @Test
+    public void addedEvent_insertsOneRowAndMatchesReload() {
+        List<HistoryRecord> before = new ArrayList<>(view.rows);
+
+        // Mesmo evento do HomeController.addWater
+        HistoryRecord record = repository.addWater(500);
+        controller.applyHistoryChange(new HistoryUpdateEvent(500, null, record));
+
+        assertEquals(0, view.reloads);
+        assertEquals(1, view.inserted);
+        assertEquals(0, view.removed);
+        assertSame(record, view.rows.get(0));
+        assertEquals(before, view.rows.subList(1, view.rows.size()));
+        assertMatchesReload();
+    }
+
+    @Test
+    public void undoEvent_replacesOnlyTheTopRowAndMatchesReload() {
+        List<HistoryRecord> before = new ArrayList<>(view.rows);
+
+        // Mesmo evento do HomeController.undoLastAction: sai o último registro, entra o inverso
+        HistoryRecord removed = repository.undoLastWater();
+        controller.applyHistoryChange(new HistoryUpdateEvent(-removed.getAmount(), removed, repository.getLastRecord()));
+
+        assertEquals(0, view.reloads);
+        assertEquals(1, view.removed);
+        assertEquals(1, view.inserted);
+        assertEquals(before.size(), view.rows.size());
+        assertEquals("Removido", view.rows.get(0).getAction());
+        assertEquals(before.subList(1, before.size()), view.rows.subList(1, view.rows.size()));
+        assertMatchesReload();
+    }
+
+    @Test
+    public void removedEventOnly_removesOneRowAndMatchesReload() {
+        List<HistoryRecord> before = new ArrayList<>(view.rows);
+
+        // Registro tirado sem registro inverso (removed sem added)
+        HistoryRecord top = repository.getLastRecord();
+        HistoryCache cache = new HistoryCache(RuntimeEnvironment.getApplication());
+        assertSame(top, cache.removeLastRecord());
+        controller.applyHistoryChange(new HistoryUpdateEvent(-top.getAmount(), top, null));
+
+        assertEquals(0, view.reloads);
+        assertEquals(1, view.removed);
+        assertEquals(0, view.inserted);
+        assertEquals(before.subList(1, before.size()), view.rows);
+        assertMatchesReload();
+    }
+
+    @Test
+    public void removedEventForAnotherRow_fallsBackToReload() {
+        // O topo da tela não é o registro removido (ex.: evento perdido): recarrega em vez de tirar a linha errada
+        HistoryRecord stale = new HistoryRecord(System.currentTimeMillis(), 250, "Adicionado");
+        repository.addWater(100);
+
+        controller.applyHistoryChange(new HistoryUpdateEvent(-250, stale, null));
+
+        assertEquals(1, view.reloads);
+        assertEquals(0, view.removed);
+        assertMatchesReload();
+    }
+
+    @Test
+    public void eventWithoutRecords_reloads() {
+        repository.addWater(400);
+
+        controller.applyHistoryChange(new HistoryUpdateEvent(400));
+
+        assertEquals(1, view.reloads);
+        assertEquals(0, view.inserted);
+        assertMatchesReload();
+    }
+
+    /**
+     * As linhas mantidas incrementalmente são as mesmas (mesmos registros, mesma ordem) de uma recarga do dia
+     */
+    private void assertMatchesReload() {
+        RecordingView reloaded = new RecordingView();
+        new HistoryController(reloaded, repository).updateHistory();
+
+        assertEquals(reloaded.rows, view.rows);
+    }
+
+    /**
+     * Tela de histórico em memória: mesma regra do HistoryAdapter (mais novo primeiro; só tira o topo se for o registro)
+     */
+    private static class RecordingView implements HistoryController.HistoryView {
+        final List<HistoryRecord> rows = new ArrayList<>();
+        int reloads;
+        int inserted;
+        int removed;
+
+        @Override
+        public void displayHistory(List<HistoryRecord> historyList) {
+            reloads++;
+            rows.clear();
+            for (int i = historyList.size() - 1; i >= 0; i--) {
+                rows.add(historyList.get(i));
+            }
+        }
+
+        @Override
+        public boolean addToTop(HistoryRecord record) {
+            inserted++;
+            rows.add(0, record);
+            return true;
+        }
+
+        @Override
+        public boolean removeFromTop(HistoryRecord record) {
+            if (rows.isEmpty() || rows.get(0).getId() != record.getId()) {
+                return false;
+            }
+            removed++;
+            rows.remove(0);
+            return true;
+        }
+
+        void resetCounts() {
+            reloads = 0;
+            inserted = 0;
+            removed = 0;
+        }
+    }
+}
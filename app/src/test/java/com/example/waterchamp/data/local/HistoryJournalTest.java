@@ -0,0 +1,156 @@
+package com.example.waterchamp.data.local;
+
+import com.example.waterchamp.model.HistoryRecord;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HistoryJournalTest {
+
+    private static final long DAY = 20_743; // 2026-10-17
+    private static final long NOW = 1_792_245_600_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+    private HistoryJournal journal;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = new File(folder.getRoot(), "history_journal");
+        journal = new HistoryJournal(dir);
+    }
+
+    @Test
+    public void appendAndReadAll_keepInsertionOrder() throws Exception {
+        journal.append(DAY, new HistoryRecord(NOW, 250, "Adicionado"));
+        journal.append(DAY, new HistoryRecord(NOW + 60_000, 100, "Removido"));
+        journal.append(DAY, new HistoryRecord(NOW + 120_000, 500, "Adicionado"));
+
+        List<HistoryRecord> records = journal.readAll(DAY);
+
+        assertEquals(3, records.size());
+        assertRecord(records.get(0), NOW, 250, "Adicionado");
+        assertRecord(records.get(1), NOW + 60_000, 100, "Removido");
+        assertRecord(records.get(2), NOW + 120_000, 500, "Adicionado");
+        assertEquals(3L * HistoryJournal.RECORD_SIZE, fileFor(DAY).length());
+    }
+
+    @Test
+    public void readAll_missingDayIsEmpty() throws Exception {
+        assertTrue(journal.readAll(DAY).isEmpty());
+        assertFalse(journal.exists(DAY));
+    }
+
+    @Test
+    public void removeLast_onEmptyDayReturnsNull() throws Exception {
+        assertNull(journal.removeLast(DAY));
+
+        journal.append(DAY, new HistoryRecord(NOW, 250, "Adicionado"));
+        journal.removeLast(DAY);
+        assertNull(journal.removeLast(DAY));
+        assertEquals(0, fileFor(DAY).length());
+    }
+
+    @Test
+    public void removeLast_returnsAndTruncatesLastRecord() throws Exception {
+        journal.append(DAY, new HistoryRecord(NOW, 250, "Adicionado"));
+        journal.append(DAY, new HistoryRecord(NOW + 60_000, 300, "Adicionado"));
+
+        assertRecord(journal.removeLast(DAY), NOW + 60_000, 300, "Adicionado");
+
+        List<HistoryRecord> records = journal.readAll(DAY);
+        assertEquals(1, records.size());
+        assertRecord(records.get(0), NOW, 250, "Adicionado");
+    }
+
+    @Test
+    public void partialTrailingRecord_isIgnoredAndOverwritten() throws Exception {
+        journal.append(DAY, new HistoryRecord(NOW, 250, "Adicionado"));
+        // Escrita interrompida: só parte do segundo registro chegou ao disco
+        try (RandomAccessFile file = new RandomAccessFile(fileFor(DAY), "rw")) {
+            file.seek(file.length());
+            file.write(new byte[] {1, 2, 3, 4, 5});
+        }
+
+        assertEquals(1, journal.readAll(DAY).size());
+
+        journal.append(DAY, new HistoryRecord(NOW + 60_000, 400, "Adicionado"));
+        List<HistoryRecord> records = journal.readAll(DAY);
+        assertEquals(2, records.size());
+        assertRecord(records.get(1), NOW + 60_000, 400, "Adicionado");
+        assertEquals(2L * HistoryJournal.RECORD_SIZE, fileFor(DAY).length());
+    }
+
+    @Test
+    public void removeLast_dropsPartialTrailingRecordFirst() throws Exception {
+        journal.append(DAY, new HistoryRecord(NOW, 250, "Adicionado"));
+        try (RandomAccessFile file = new RandomAccessFile(fileFor(DAY), "rw")) {
+            file.seek(file.length());
+            file.write(new byte[] {9, 9});
+        }
+
+        assertRecord(journal.removeLast(DAY), NOW, 250, "Adicionado");
+        assertEquals(0, fileFor(DAY).length());
+    }
+
+    @Test
+    public void daysBefore_listsOnlyOlderJournals() throws Exception {
+        journal.append(DAY - 2, new HistoryRecord(NOW - 2 * 86_400_000L, 100, "Adicionado"));
+        journal.append(DAY - 1, new HistoryRecord(NOW - 86_400_000L, 100, "Adicionado"));
+        journal.append(DAY, new HistoryRecord(NOW, 100, "Adicionado"));
+        // Outros arquivos da pasta (índice de totais) não são journals
+        assertTrue(new File(dir, "daily_totals.bin").createNewFile());
+
+        List<Long> days = journal.daysBefore(DAY);
+        Collections.sort(days);
+
+        assertEquals(Arrays.asList(DAY - 2, DAY - 1), days);
+    }
+
+    @Test
+    public void clear_andClearAll_deleteOnlyJournals() throws Exception {
+        journal.append(DAY - 1, new HistoryRecord(NOW - 86_400_000L, 100, "Adicionado"));
+        journal.append(DAY, new HistoryRecord(NOW, 100, "Adicionado"));
+        File index = new File(dir, "daily_totals.bin");
+        assertTrue(index.createNewFile());
+
+        journal.clear(DAY - 1);
+        assertFalse(journal.exists(DAY - 1));
+        assertTrue(journal.exists(DAY));
+
+        journal.clearAll();
+        assertFalse(journal.exists(DAY));
+        assertTrue(journal.daysBefore(Long.MAX_VALUE).isEmpty());
+        assertTrue(index.exists());
+    }
+
+    @Test
+    public void unknownAction_roundTripsAsEmpty() throws Exception {
+        journal.append(DAY, new HistoryRecord(NOW, 250, "Outra"));
+
+        assertRecord(journal.readAll(DAY).get(0), NOW, 250, "");
+    }
+
+    private File fileFor(long day) {
+        return new File(dir, "day-" + day + ".bin");
+    }
+
+    private static void assertRecord(HistoryRecord record, long timestamp, int amount, String action) {
+        assertNotNull(record);
+        assertEquals(timestamp, record.getTimestamp());
+        assertEquals(amount, record.getAmount());
+        assertEquals(action, record.getAction());
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.waterchamp.data.local;
+
+import com.example.waterchamp.FakeSharedPreferences;
+import com.example.waterchamp.model.HistoryRecord;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * HistoryStore fora do singleton: preferências em memória, journal em pasta temporária,
+ * disco na mesma thread e relógio controlado pelo teste
+ */
+public class HistoryStoreTest {
+
+    private static final int RETENTION_DAYS = 30;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FakeSharedPreferences prefs;
+    private File journalDir;
+    private FakeClock clock;
+    private HistoryStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        prefs = new FakeSharedPreferences();
+        journalDir = folder.newFolder("history_journal");
+        clock = new FakeClock(at(2026, Calendar.OCTOBER, 17, 10, 0));
+        store = newStore();
+    }
+
+    // ============ Total do dia ============
+
+    @Test
+    public void serverSeedThenAdd_verifyReportsNoDriftAndKeepsTotal() {
+        // Total do servidor sem registros locais (outro aparelho), depois um toque aqui
+        store.setTodayTotal(1_000);
+        store.add(added(250));
+
+        assertEquals(0, store.verifyTodayTotal());
+        assertEquals(1_250, store.getTodayTotal());
+        assertEquals(0, store.getDriftCount());
+
+        // Desfazer volta ao total do servidor
+        store.removeLast();
+        assertEquals(0, store.verifyTodayTotal());
+        assertEquals(1_000, store.getTodayTotal());
+    }
+
+    @Test
+    public void serverSeed_survivesReload() {
+        store.setTodayTotal(1_000);
+        store.add(added(250));
+
+        HistoryStore reloaded = newStore();
+
+        assertEquals(1_250, reloaded.getTodayTotal());
+        assertEquals(1, reloaded.getRecordCount());
+        assertEquals(0, reloaded.verifyTodayTotal());
+    }
+
+    @Test
+    public void serverSeedOverExistingRecords_onlyTheDifferenceIsBase() {
+        store.add(added(300));
+        store.setTodayTotal(800);
+        store.add(added(200));
+
+        assertEquals(0, store.verifyTodayTotal());
+        assertEquals(1_000, store.getTodayTotal());
+    }
+
+    @Test
+    public void seedIsDroppedOnRollover() {
+        store.setTodayTotal(1_000);
+
+        clock.now = at(2026, Calendar.OCTOBER, 18, 0, 5);
+        store.add(added(250));
+
+        assertEquals(250, store.getTodayTotal());
+        assertEquals(0, store.verifyTodayTotal());
+        assertEquals(1_000, store.getDayTotal(store.getTodayEpochDay() - 1));
+    }
+
+    // ============ Snapshots ============
+
+    @Test
+    public void publishedSnapshot_isNotChangedByLaterAdd() {
+        store.add(added(250));
+        store.add(added(300));
+        List<HistoryRecord> before = store.getTodayRecords();
+
+        store.add(added(400));
+
+        assertEquals(2, before.size());
+        assertEquals(300, before.get(1).getAmount());
+        assertEquals(3, store.getTodayRecords().size());
+        assertThrows(UnsupportedOperationException.class, () -> before.add(added(1)));
+    }
+
+    @Test
+    public void publishedSnapshot_isNotChangedByRemoveLastAndNextAdd() {
+        store.add(added(250));
+        store.add(added(300));
+        List<HistoryRecord> before = store.getTodayRecords();
+        HistoryRecord last = before.get(1);
+
+        store.removeLast();
+        // O próximo add reaproveitaria a posição liberada: o snapshot antigo não pode ver o novo registro
+        store.add(added(999));
+
+        assertEquals(2, before.size());
+        assertSame(last, before.get(1));
+        assertEquals(999, store.getTodayRecords().get(1).getAmount());
+    }
+
+    @Test
+    public void snapshotReads_areTheSameObjectUntilAWrite() {
+        store.add(added(250));
+
+        List<HistoryRecord> first = store.getTodayRecords();
+        assertSame(first, store.getTodayRecords());
+
+        store.add(added(100));
+        assertNotSame(first, store.getTodayRecords());
+    }
+
+    @Test
+    public void rollover_startsAnEmptyDayAndKeepsYesterdaysTotal() throws Exception {
+        store.add(added(250));
+        store.add(added(500));
+        List<HistoryRecord> yesterday = store.getTodayRecords();
+        long yesterdayDay = store.getTodayEpochDay();
+
+        clock.now = at(2026, Calendar.OCTOBER, 18, 0, 1);
+
+        assertEquals(yesterdayDay + 1, store.getTodayEpochDay());
+        assertTrue(store.getTodayRecords().isEmpty());
+        assertEquals(0, store.getTodayTotal());
+        assertNull(store.getLastRecord());
+        assertEquals(750, store.getDayTotal(yesterdayDay));
+        // Quem ainda segura o snapshot de ontem continua vendo os registros de ontem
+        assertEquals(2, yesterday.size());
+
+        // O journal de ontem foi compactado no índice e apagado
+        HistoryStore reopened = newStore();
+        assertEquals(750, reopened.getDayTotal(yesterdayDay));
+        assertTrue(reopened.getTodayRecords().isEmpty());
+        assertFalse(new File(journalDir, "day-" + yesterdayDay + ".bin").exists());
+    }
+
+    @Test
+    public void reopenOnANewDay_compactsTheOldJournal() {
+        store.add(added(250));
+        long yesterdayDay = store.getTodayEpochDay();
+
+        clock.now = at(2026, Calendar.OCTOBER, 18, 8, 0);
+        HistoryStore reopened = newStore();
+
+        assertEquals(0, reopened.getTodayTotal());
+        assertEquals(250, reopened.getDayTotal(yesterdayDay));
+        assertFalse(new File(journalDir, "day-" + yesterdayDay + ".bin").exists());
+    }
+
+    // ============ Sequência ============
+
+    @Test
+    public void streak_followsTodayAndSurvivesMidnight() {
+        store.mergeDayTotals(Collections.singletonMap("2026-10-16", 2_000));
+
+        assertEquals(1, store.getCurrentStreak(2_000));
+        store.add(added(2_000));
+        assertEquals(2, store.getCurrentStreak(2_000));
+
+        // Virada à meia-noite: o dia fechado entra na sequência e o novo dia ainda não a quebra
+        clock.now = at(2026, Calendar.OCTOBER, 18, 0, 1);
+        assertEquals(2, store.getCurrentStreak(2_000));
+        assertEquals(2, newStore().getCurrentStreak(2_000));
+
+        // Meta maior: reconstrói a partir do índice
+        assertEquals(0, store.getCurrentStreak(2_500));
+    }
+
+    // ============ Migração do formato antigo ============
+
+    @Test
+    public void legacyJsonOfToday_isMovedToJournalOnce() throws Exception {
+        HistoryStore fresh = legacyStore("2026-10-17",
+            "[{\"timestamp\": " + clock.now + ", \"amount\": 250, \"action\": \"Adicionado\"},"
+                + "{\"timestamp\": " + (clock.now + 60_000) + ", \"amount\": 100, \"action\": \"Removido\"}]");
+
+        assertEquals(2, fresh.getRecordCount());
+        assertEquals(150, fresh.getTodayTotal());
+        assertEquals("Removido", fresh.getLastRecord().getAction());
+        assertFalse(prefs.contains("history_records"));
+
+        // Segunda abertura: lê só o journal, sem importar de novo
+        HistoryStore reopened = newStore();
+        assertEquals(2, reopened.getRecordCount());
+        assertEquals(150, reopened.getTodayTotal());
+    }
+
+    @Test
+    public void legacyJsonOfAnotherDay_isDiscarded() throws Exception {
+        HistoryStore fresh = legacyStore("2026-10-16",
+            "[{\"timestamp\": " + (clock.now - 86_400_000L) + ", \"amount\": 250, \"action\": \"Adicionado\"}]");
+
+        assertEquals(0, fresh.getRecordCount());
+        assertEquals(0, fresh.getTodayTotal());
+        assertFalse(prefs.contains("history_records"));
+    }
+
+    @Test
+    public void legacyJson_doesNotDuplicateAnExistingJournal() throws Exception {
+        store.add(added(300));
+
+        prefs.edit()
+            .putString("history_records", "[{\"timestamp\": " + clock.now + ", \"amount\": 250, \"action\": \"Adicionado\"}]")
+            .apply();
+        HistoryStore reopened = newStore();
+
+        assertEquals(1, reopened.getRecordCount());
+        assertEquals(300, reopened.getTodayTotal());
+        assertFalse(prefs.contains("history_records"));
+    }
+
+    // ============ Helpers ============
+
+    /**
+     * Store aberto sobre preferências no formato antigo (registros em JSON, sem journal)
+     */
+    private HistoryStore legacyStore(String savedDate, String json) throws Exception {
+        prefs = new FakeSharedPreferences();
+        prefs.edit()
+            .putString("history_records", json)
+            .putString("today_date", savedDate)
+            .apply();
+        journalDir = folder.newFolder("legacy_journal");
+        return newStore();
+    }
+
+    private HistoryStore newStore() {
+        return new HistoryStore(prefs, journalDir, RETENTION_DAYS, clock, Runnable::run);
+    }
+
+    private HistoryRecord added(int amount) {
+        return new HistoryRecord(clock.now, amount, "Adicionado");
+    }
+
+    private static long at(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    private static class FakeClock implements HistoryStore.Clock {
+        long now;
+
+        FakeClock(long now) {
+            this.now = now;
+        }
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.waterchamp.data.local;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class StreakEngineTest {
+
+    private static final int RETENTION_DAYS = 30;
+    private static final int GOAL = 2_000;
+    private static final long TODAY = 20_743; // 2026-10-17
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DailyTotalsIndex index;
+    private StreakEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        index = new DailyTotalsIndex(folder.newFile("daily_totals.bin"), RETENTION_DAYS);
+        engine = new StreakEngine();
+    }
+
+    // ============ Reconstrução ============
+
+    @Test
+    public void rebuild_countsConsecutiveDaysEndingYesterday() {
+        met(TODAY - 3, TODAY - 2, TODAY - 1);
+
+        engine.rebuild(GOAL, TODAY, 0, index);
+
+        // Hoje ainda sem a meta não quebra a sequência
+        assertEquals(3, engine.getCurrent());
+        assertEquals(3, engine.getBest());
+        assertTrue(engine.isValidFor(GOAL, TODAY));
+    }
+
+    @Test
+    public void rebuild_todayMetExtendsTheRun() {
+        met(TODAY - 2, TODAY - 1);
+
+        engine.rebuild(GOAL, TODAY, GOAL, index);
+
+        assertEquals(3, engine.getCurrent());
+    }
+
+    @Test
+    public void rebuild_dayWithoutConsumptionBreaksTheRun() {
+        // Sequência antiga de 4 dias, um dia sem registro, e 2 dias até ontem
+        met(TODAY - 7, TODAY - 6, TODAY - 5, TODAY - 4);
+        met(TODAY - 2, TODAY - 1);
+
+        engine.rebuild(GOAL, TODAY, 0, index);
+
+        assertEquals(2, engine.getCurrent());
+        assertEquals(4, engine.getBest());
+    }
+
+    @Test
+    public void rebuild_dayBelowGoalBreaksTheRun() {
+        met(TODAY - 3, TODAY - 1);
+        index.put(TODAY - 2, GOAL - 1);
+
+        engine.rebuild(GOAL, TODAY, 0, index);
+
+        assertEquals(1, engine.getCurrent());
+        assertEquals(1, engine.getBest());
+    }
+
+    @Test
+    public void rebuild_zeroGoalStillNeedsConsumption() {
+        index.put(TODAY - 1, 0);
+
+        engine.rebuild(0, TODAY, 0, index);
+
+        assertEquals(0, engine.getCurrent());
+    }
+
+    // ============ Mudança de meta ============
+
+    @Test
+    public void goalChange_invalidatesAndRebuildUsesTheNewGoal() {
+        index.put(TODAY - 2, 2_500);
+        index.put(TODAY - 1, 2_100);
+        engine.rebuild(GOAL, TODAY, 2_200, index);
+        assertEquals(3, engine.getCurrent());
+
+        assertFalse(engine.isValidFor(2_200, TODAY));
+        engine.rebuild(2_200, TODAY, 2_200, index);
+
+        // Ontem (2100) não atinge a nova meta
+        assertEquals(1, engine.getCurrent());
+        assertEquals(1, engine.getBest());
+    }
+
+    @Test
+    public void onTodayTotal_followsTheCurrentGoal() {
+        met(TODAY - 1);
+        engine.rebuild(GOAL, TODAY, 0, index);
+
+        engine.onTodayTotal(GOAL - 1);
+        assertEquals(1, engine.getCurrent());
+
+        engine.onTodayTotal(GOAL);
+        assertEquals(2, engine.getCurrent());
+
+        // Desfazer abaixo da meta volta ao valor anterior
+        engine.onTodayTotal(GOAL - 250);
+        assertEquals(1, engine.getCurrent());
+    }
+
+    @Test
+    public void onTodayTotal_beforeRebuildIsIgnored() {
+        engine.onTodayTotal(GOAL);
+
+        assertFalse(engine.isValidFor(GOAL, TODAY));
+        assertEquals(0, engine.getCurrent());
+    }
+
+    // ============ Virada de dia ============
+
+    @Test
+    public void rollOverAtMidnight_closedDayMetJoinsTheRun() {
+        met(TODAY - 1);
+        engine.rebuild(GOAL, TODAY, GOAL, index);
+
+        engine.onRollOver(TODAY, TODAY + 1, GOAL);
+
+        // Amanhã ainda sem consumo: a sequência segue em 2
+        assertTrue(engine.isValidFor(GOAL, TODAY + 1));
+        assertEquals(2, engine.getCurrent());
+        assertEquals(2, engine.getBest());
+        assertMatchesRebuild(TODAY + 1, GOAL);
+    }
+
+    @Test
+    public void rollOverAtMidnight_closedDayBelowGoalResetsTheRun() {
+        met(TODAY - 2, TODAY - 1);
+        engine.rebuild(GOAL, TODAY, GOAL - 1, index);
+
+        engine.onRollOver(TODAY, TODAY + 1, GOAL - 1);
+
+        assertEquals(0, engine.getCurrent());
+        assertEquals(2, engine.getBest());
+        assertMatchesRebuild(TODAY + 1, GOAL - 1);
+    }
+
+    @Test
+    public void rollOverAfterSkippedDays_breaksTheRun() {
+        met(TODAY - 1);
+        engine.rebuild(GOAL, TODAY, GOAL, index);
+
+        // App fechado por dois dias: o dia seguinte não tem consumo
+        engine.onRollOver(TODAY, TODAY + 2, GOAL);
+
+        assertEquals(0, engine.getCurrent());
+        assertEquals(2, engine.getBest());
+        assertMatchesRebuild(TODAY + 2, GOAL);
+    }
+
+    @Test
+    public void rollOverFromAnotherDay_forcesRebuild() {
+        engine.rebuild(GOAL, TODAY, GOAL, index);
+
+        engine.onRollOver(TODAY + 1, TODAY + 2, GOAL);
+
+        assertFalse(engine.isValidFor(GOAL, TODAY + 2));
+    }
+
+    @Test
+    public void invalidate_forcesRebuild() {
+        engine.rebuild(GOAL, TODAY, 0, index);
+
+        engine.invalidate();
+
+        assertFalse(engine.isValidFor(GOAL, TODAY));
+    }
+
+    // ============ Helpers ============
+
+    private void met(long... days) {
+        for (long day : days) {
+            index.put(day, GOAL);
+        }
+    }
+
+    /**
+     * O estado incremental depois da virada deve ser igual a reconstruir do índice com o dia fechado gravado
+     */
+    private void assertMatchesRebuild(long newDay, int closedTotal) {
+        index.put(TODAY, closedTotal);
+        StreakEngine rebuilt = new StreakEngine();
+        rebuilt.rebuild(GOAL, newDay, 0, index);
+
+        assertEquals(rebuilt.getCurrent(), engine.getCurrent());
+        assertEquals(rebuilt.getBest(), engine.getBest());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.waterchamp.data.remote
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+import java.util.Collections
+import java.util.IdentityHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class LazyHandleTest {
+
+    @Test
+    fun value_isCreatedOnceUnderContention() {
+        val created = AtomicInteger()
+        val handle = LazyHandle {
+            created.incrementAndGet()
+            Thread.sleep(50) // Criação lenta: as outras threads chegam durante ela
+            Any()
+        }
+
+        val threads = 32
+        val start = CyclicBarrier(threads)
+        val done = CountDownLatch(threads)
+        val seen = Collections.synchronizedSet(Collections.newSetFromMap(IdentityHashMap<Any, Boolean>()))
+        repeat(threads) {
+            Thread {
+                start.await()
+                seen.add(handle.value)
+                done.countDown()
+            }.start()
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS))
+        assertEquals(1, created.get())
+        assertEquals(1, seen.size)
+    }
+
+    @Test
+    fun awaitAndValue_shareTheSameCreation() = runBlocking {
+        val created = AtomicInteger()
+        val handle = LazyHandle {
+            created.incrementAndGet()
+            Thread.sleep(50)
+            Any()
+        }
+
+        // warmUp (background), awaitClient (corrotinas) e client (threads) ao mesmo tempo
+        val blocking = (1..8).map { async(Dispatchers.IO) { handle.value } }
+        val suspending = (1..32).map { async(Dispatchers.Default) { handle.await() } }
+        val results = (blocking + suspending).awaitAll()
+
+        assertEquals(1, created.get())
+        results.forEach { assertSame(results[0], it) }
+        assertTrue(handle.isInitialized())
+    }
+
+    @Test
+    fun failedCreation_isRetriedOnNextCall() {
+        val attempts = AtomicInteger()
+        val handle = LazyHandle {
+            if (attempts.incrementAndGet() == 1) {
+                throw IllegalStateException("Credenciais Supabase não encontradas")
+            }
+            "cliente"
+        }
+
+        try {
+            handle.value
+            fail("A primeira criação deveria falhar")
+        } catch (expected: IllegalStateException) {
+            // A falha vai para quem pediu
+        }
+        assertTrue(!handle.isInitialized())
+
+        assertEquals("cliente", handle.value)
+        assertEquals("cliente", runBlocking { handle.await() })
+        assertEquals(2, attempts.get())
+    }
+}
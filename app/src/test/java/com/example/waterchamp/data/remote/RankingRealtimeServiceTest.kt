@@ -0,0 +1,303 @@
+package com.example.waterchamp.data.remote
+
+import io.github.jan.supabase.createSupabaseClient
+import io.github.jan.supabase.realtime.Realtime
+import io.github.jan.supabase.realtime.realtime
+import io.ktor.client.engine.okhttp.OkHttp
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonArray
+import kotlinx.serialization.json.jsonObject
+import kotlinx.serialization.json.jsonPrimitive
+import okhttp3.Response
+import okhttp3.WebSocket
+import okhttp3.WebSocketListener
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+/**
+ * RankingRealtimeService contra um servidor Realtime local (MockWebServer com WebSocket)
+ * O servidor responde ao protocolo do Phoenix só o necessário: confirma a inscrição e envia mudanças
+ */
+class RankingRealtimeServiceTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var callbackThread: ExecutorService
+    private lateinit var client: io.github.jan.supabase.SupabaseClient
+    private lateinit var service: RankingRealtimeService
+
+    private val realtimeServer = FakeRealtimeServer()
+    private val listener = RecordingListener()
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        // Uma conexão por teste; reconexões também são atendidas
+        repeat(3) { server.enqueue(MockResponse().withWebSocketUpgrade(realtimeServer)) }
+        server.start()
+
+        client = createSupabaseClient(server.url("/").toString().trimEnd('/'), "anon-key") {
+            httpEngine = OkHttp.create()
+            install(Realtime)
+        }
+
+        // Faz o papel da thread principal
+        callbackThread = Executors.newSingleThreadExecutor()
+        service = RankingRealtimeService({ client }, callbackThread.asCoroutineDispatcher())
+    }
+
+    @After
+    fun tearDown() {
+        callbackThread.submit { service.stopListening() }.get(5, TimeUnit.SECONDS)
+        runBlocking { client.realtime.disconnect() }
+        realtimeServer.close()
+        callbackThread.shutdownNow()
+        server.shutdown()
+    }
+
+    @Test
+    fun startListening_subscribesOnlyToDisplayedUsers() {
+        onMain { service.startListening(listener, listOf(7, 3, 3, 12)) }
+
+        val join = realtimeServer.nextEvent("phx_join")
+        val changes = join.payload("config").getValue("postgres_changes").jsonArray
+        assertEquals(1, changes.size)
+        val config = changes[0].jsonObject
+        assertEquals("consumo_diario", config.getValue("table").jsonPrimitive.content)
+        assertEquals("usuario_id=in.(3,7,12)", config.getValue("filter").jsonPrimitive.content)
+
+        assertTrue(listener.connection.poll(5, TimeUnit.SECONDS) == true)
+        assertTrue(service.isConnected())
+    }
+
+    @Test
+    fun changesFromServer_reachListenerOnCallbackThread() {
+        onMain { service.startListening(listener, listOf(3, 7)) }
+        realtimeServer.nextEvent("phx_join")
+        assertTrue(listener.connection.poll(5, TimeUnit.SECONDS) == true)
+
+        realtimeServer.sendChange(
+            "UPDATE",
+            record = """{"usuario_id": 7, "data": "2026-10-17", "total_ml": 750}""",
+            oldRecord = """{"usuario_id": 7, "data": "2026-10-17", "total_ml": 500}"""
+        )
+        realtimeServer.sendChange(
+            "DELETE",
+            record = "{}",
+            oldRecord = """{"usuario_id": 3, "data": "2026-10-16", "total_ml": 1200}"""
+        )
+
+        assertEquals(
+            RankingRealtimeService.ConsumoChange(7, "2026-10-17", 750, 500),
+            listener.changes.poll(5, TimeUnit.SECONDS)
+        )
+        assertEquals(
+            RankingRealtimeService.ConsumoChange(3, "2026-10-16", 0, 1200),
+            listener.changes.poll(5, TimeUnit.SECONDS)
+        )
+        assertTrue(listener.callbackThreads.all { it == listener.callbackThreads.first() })
+        assertFalse(listener.callbackThreads.first().startsWith("OkHttp"))
+    }
+
+    @Test
+    fun watchUsers_resubscribesOnlyWhenTheSetChanges() {
+        onMain { service.startListening(listener, listOf(3, 7)) }
+        realtimeServer.nextEvent("phx_join")
+        assertTrue(listener.connection.poll(5, TimeUnit.SECONDS) == true)
+
+        // Mesmo conjunto, outra ordem: nada muda no servidor
+        onMain { service.watchUsers(listOf(7, 3, 7)) }
+        assertNull(realtimeServer.events.poll(500, TimeUnit.MILLISECONDS))
+
+        // Entrou um usuário na lista: sai do canal e inscreve de novo com o filtro novo
+        onMain { service.watchUsers(listOf(3, 7, 9)) }
+        realtimeServer.nextEvent("phx_leave")
+        val join = realtimeServer.nextEvent("phx_join")
+        val config = join.payload("config").getValue("postgres_changes").jsonArray[0].jsonObject
+        assertEquals("usuario_id=in.(3,7,9)", config.getValue("filter").jsonPrimitive.content)
+    }
+
+    @Test
+    fun emptyList_doesNotOpenAChannel() {
+        onMain { service.startListening(listener, emptyList()) }
+
+        assertNull(realtimeServer.events.poll(500, TimeUnit.MILLISECONDS))
+        assertFalse(service.isConnected())
+    }
+
+    @Test
+    fun stopListening_whileClientIsBeingCreated_isNotAnError() {
+        val slowClient = SlowClientProvider()
+        val slowService = RankingRealtimeService(slowClient::get, callbackThread.asCoroutineDispatcher())
+
+        onMain { slowService.startListening(listener, listOf(3, 7)) }
+        assertTrue(slowClient.requested.await(5, TimeUnit.SECONDS))
+        onMain { slowService.stopListening() }
+
+        assertNull(listener.errors.poll(500, TimeUnit.MILLISECONDS))
+        assertFalse(slowService.isConnected())
+    }
+
+    @Test
+    fun watchUsers_whileClientIsBeingCreated_subscribesWithNewFilterWithoutError() {
+        val slowClient = SlowClientProvider()
+        val slowService = RankingRealtimeService(slowClient::get, callbackThread.asCoroutineDispatcher())
+
+        onMain { slowService.startListening(listener, listOf(3, 7)) }
+        assertTrue(slowClient.requested.await(5, TimeUnit.SECONDS))
+        onMain { slowService.watchUsers(listOf(3, 7, 9)) }
+        slowClient.release(client)
+
+        val join = realtimeServer.nextEvent("phx_join")
+        val config = join.payload("config").getValue("postgres_changes").jsonArray[0].jsonObject
+        assertEquals("usuario_id=in.(3,7,9)", config.getValue("filter").jsonPrimitive.content)
+        assertTrue(listener.connection.poll(5, TimeUnit.SECONDS) == true)
+        assertNull(listener.errors.poll(500, TimeUnit.MILLISECONDS))
+
+        onMain { slowService.stopListening() }
+    }
+
+    @Test
+    fun normalize_limitsTheFilterToTheRankingSize() {
+        val ids = RankingRealtimeService.normalize((250 downTo 1).toList() + listOf(5, 5))
+
+        assertEquals(RankingRealtimeService.MAX_WATCHED_USERS, ids.size)
+        assertEquals((1..100).toList(), ids)
+    }
+
+    private fun onMain(action: () -> Unit) {
+        callbackThread.submit(action).get(5, TimeUnit.SECONDS)
+    }
+
+    private fun JsonObject.payload(key: String): JsonObject =
+        getValue("payload").jsonObject.getValue(key).jsonObject
+
+    /**
+     * Cliente que só fica pronto quando o teste manda (como na abertura a frio do app)
+     */
+    private class SlowClientProvider {
+        val requested = CountDownLatch(1)
+        private val ready = CompletableDeferred<io.github.jan.supabase.SupabaseClient>()
+
+        suspend fun get(): io.github.jan.supabase.SupabaseClient {
+            requested.countDown()
+            return ready.await()
+        }
+
+        fun release(client: io.github.jan.supabase.SupabaseClient) {
+            ready.complete(client)
+        }
+    }
+
+    // ============ Servidor Realtime local ============
+
+    private class FakeRealtimeServer : WebSocketListener() {
+        val events = LinkedBlockingQueue<JsonObject>()
+
+        // A conexão mais recente recebe as mudanças; todas são fechadas no fim
+        private val sockets = CopyOnWriteArrayList<WebSocket>()
+
+        @Volatile
+        private var topic: String? = null
+
+        override fun onOpen(webSocket: WebSocket, response: Response) {
+            sockets.add(webSocket)
+        }
+
+        override fun onMessage(webSocket: WebSocket, text: String) {
+            val message = Json.parseToJsonElement(text).jsonObject
+            val event = message.getValue("event").jsonPrimitive.content
+            if (event == "heartbeat") {
+                reply(webSocket, message, "{}")
+                return
+            }
+
+            if (event == "phx_join") {
+                topic = message.getValue("topic").jsonPrimitive.content
+                // Confirma a inscrição devolvendo os filtros pedidos com um id (as mudanças enviadas depois usam esse id)
+                val requested = message.getValue("payload").jsonObject.getValue("config").jsonObject
+                    .getValue("postgres_changes").jsonArray
+                val accepted = requested.map { JsonObject(it.jsonObject + ("id" to JsonPrimitive(SUBSCRIPTION_ID))) }
+                reply(webSocket, message, """{"postgres_changes": ${JsonArray(accepted)}}""")
+            } else if (event == "phx_leave") {
+                reply(webSocket, message, "{}")
+            }
+            events.add(message)
+        }
+
+        fun close() {
+            sockets.forEach { it.close(1000, null) }
+        }
+
+        fun nextEvent(event: String): JsonObject {
+            while (true) {
+                val message = events.poll(5, TimeUnit.SECONDS)
+                assertNotNull("Esperando $event", message)
+                if (message!!.getValue("event").jsonPrimitive.content == event) {
+                    return message
+                }
+            }
+        }
+
+        fun sendChange(type: String, record: String, oldRecord: String) {
+            val payload = """{"ids": [$SUBSCRIPTION_ID], "data": {"type": "$type", "schema": "public", "table": "consumo_diario",
+                |"commit_timestamp": "2026-10-17T12:00:00Z", "columns": [], "record": $record, "old_record": $oldRecord, "errors": null}}""".trimMargin()
+            sockets.last().send("""{"topic": "$topic", "event": "postgres_changes", "payload": $payload, "ref": null}""")
+        }
+
+        private fun reply(webSocket: WebSocket, message: JsonObject, response: String) {
+            webSocket.send(
+                """{"topic": ${message.getValue("topic")}, "event": "phx_reply", "ref": ${message["ref"]},
+                |"payload": {"status": "ok", "response": $response}}""".trimMargin()
+            )
+        }
+
+        companion object {
+            private const val SUBSCRIPTION_ID = 41
+        }
+    }
+
+    private class RecordingListener : RankingRealtimeService.RankingUpdateListener {
+        val changes = LinkedBlockingQueue<RankingRealtimeService.ConsumoChange>()
+        val connection = LinkedBlockingQueue<Boolean>()
+        val errors = LinkedBlockingQueue<String>()
+        val callbackThreads: MutableList<String> = Collections.synchronizedList(ArrayList())
+
+        override fun onConsumptionChanged(change: RankingRealtimeService.ConsumoChange) {
+            callbackThreads.add(Thread.currentThread().name)
+            changes.add(change)
+        }
+
+        override fun onConnectionChanged(connected: Boolean) {
+            // O primeiro valor é sempre false (ainda inscrevendo): só interessa quando conecta
+            if (connected) {
+                connection.add(true)
+            }
+        }
+
+        override fun onRankingError(message: String) {
+            errors.add(message)
+            connection.add(false)
+        }
+    }
+}
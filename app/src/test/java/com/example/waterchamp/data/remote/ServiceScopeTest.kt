@@ -0,0 +1,112 @@
+package com.example.waterchamp.data.remote
+
+import com.example.waterchamp.utils.TaskScheduler
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.delay
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class ServiceScopeTest {
+
+    @Test
+    fun future_neverRunsMoreThanLaneConcurrency() {
+        val lane = TaskScheduler.Lane.INTERACTIVE
+        val running = AtomicInteger()
+        val peak = AtomicInteger()
+
+        val futures = (1..20).map {
+            ServiceScope.future(lane) {
+                peak.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+                delay(20)
+                running.decrementAndGet()
+            }
+        }
+        CompletableFuture.allOf(*futures.toTypedArray()).get(10, TimeUnit.SECONDS)
+
+        assertEquals(lane.concurrency, peak.get())
+    }
+
+    @Test
+    fun future_reportsWaitingAndActivePerLane() {
+        val lane = TaskScheduler.Lane.POLL
+        val release = CompletableDeferred<Unit>()
+        val before = ServiceScope.getStats(lane)
+
+        val futures = (1..lane.concurrency + 3).map {
+            ServiceScope.future(lane) { release.await() }
+        }
+
+        val during = ServiceScope.getStats(lane)
+        assertEquals(lane.concurrency, during.active)
+        assertEquals(3, during.queueDepth)
+        assertTrue(during.maxQueueDepth >= 3)
+
+        release.complete(Unit)
+        CompletableFuture.allOf(*futures.toTypedArray()).get(10, TimeUnit.SECONDS)
+
+        val after = ServiceScope.getStats(lane)
+        assertEquals(0, after.active)
+        assertEquals(0, after.queueDepth)
+        assertEquals(before.completed + futures.size, after.completed)
+    }
+
+    @Test
+    fun future_rejectsWhenLaneQueueIsFull() {
+        val lane = TaskScheduler.Lane.POLL
+        val release = CompletableDeferred<Unit>()
+        val before = ServiceScope.getStats(lane)
+
+        // Vagas ocupadas + fila cheia
+        val accepted = (1..lane.concurrency + lane.queueCapacity).map {
+            ServiceScope.future(lane) { release.await() }
+        }
+        val rejected = ServiceScope.future(lane) { }
+
+        try {
+            rejected.get(1, TimeUnit.SECONDS)
+            throw AssertionError("Chamada deveria ser rejeitada")
+        } catch (e: ExecutionException) {
+            assertTrue(e.cause is RejectedExecutionException)
+        }
+        assertEquals(before.rejected + 1, ServiceScope.getStats(lane).rejected)
+
+        // Outras lanes não são afetadas pela fila cheia de POLL
+        assertEquals(1, ServiceScope.future(TaskScheduler.Lane.INTERACTIVE) { 1 }.get(5, TimeUnit.SECONDS))
+
+        release.complete(Unit)
+        CompletableFuture.allOf(*accepted.toTypedArray()).get(10, TimeUnit.SECONDS)
+        assertEquals(0, ServiceScope.getStats(lane).queueDepth)
+    }
+
+    @Test
+    fun future_cancelledWhileQueuedLeavesTheQueue() {
+        val lane = TaskScheduler.Lane.SYNC
+        val release = CompletableDeferred<Unit>()
+
+        val running = ServiceScope.future(lane) { release.await() }
+        val queued = ServiceScope.future(lane) { "nunca" }
+        assertEquals(1, ServiceScope.getStats(lane).queueDepth)
+
+        queued.cancel(true)
+        waitUntil { ServiceScope.getStats(lane).queueDepth == 0 }
+
+        release.complete(Unit)
+        running.get(5, TimeUnit.SECONDS)
+        assertEquals("ok", ServiceScope.future(lane) { "ok" }.get(5, TimeUnit.SECONDS))
+        assertEquals(0, ServiceScope.getStats(lane).active)
+    }
+
+    private fun waitUntil(condition: () -> Boolean) {
+        val deadline = System.currentTimeMillis() + 5_000
+        while (!condition()) {
+            assertTrue("Tempo esgotado", System.currentTimeMillis() < deadline)
+            Thread.sleep(5)
+        }
+    }
+}
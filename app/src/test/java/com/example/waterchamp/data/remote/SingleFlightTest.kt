@@ -0,0 +1,158 @@
+package com.example.waterchamp.data.remote
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.async
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import kotlinx.coroutines.yield
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Os chamadores entram com UNDISPATCHED: cada run() já está esperando o resultado quando o próximo começa
+ */
+class SingleFlightTest {
+
+    private val flight = SingleFlight("teste")
+    private val calls = AtomicInteger()
+    private val release = CompletableDeferred<String>()
+    private val cancelled = CompletableDeferred<Unit>()
+
+    private val block: suspend () -> String = {
+        calls.incrementAndGet()
+        try {
+            release.await()
+        } catch (e: CancellationException) {
+            cancelled.complete(Unit)
+            throw e
+        }
+    }
+
+    @Test
+    fun concurrentCallsWithSameKey_shareOneCall() = runBlocking {
+        val first = async(start = CoroutineStart.UNDISPATCHED) { flight.run("ranking", block) }
+        val second = async(start = CoroutineStart.UNDISPATCHED) { flight.run("ranking", block) }
+
+        release.complete("resultado")
+
+        assertEquals("resultado", withTimeout(5_000) { first.await() })
+        assertEquals("resultado", withTimeout(5_000) { second.await() })
+        assertEquals(1, calls.get())
+        assertEquals(2, flight.getRequestCount())
+        assertEquals(1, flight.getSharedCount())
+    }
+
+    @Test
+    fun differentKeys_doNotShare() = runBlocking {
+        val first = async(start = CoroutineStart.UNDISPATCHED) { flight.run("global", block) }
+        val second = async(start = CoroutineStart.UNDISPATCHED) { flight.run("grupo", block) }
+
+        release.complete("resultado")
+        withTimeout(5_000) { first.await(); second.await() }
+
+        assertEquals(2, calls.get())
+        assertEquals(0, flight.getSharedCount())
+    }
+
+    @Test
+    fun sharedCall_isCancelledOnlyWhenTheLastWaiterCancels() = runBlocking {
+        val first = async(start = CoroutineStart.UNDISPATCHED) { flight.run("ranking", block) }
+        val second = async(start = CoroutineStart.UNDISPATCHED) { flight.run("ranking", block) }
+        val third = async(start = CoroutineStart.UNDISPATCHED) { flight.run("ranking", block) }
+
+        first.cancel()
+        second.cancel()
+        first.join()
+        second.join()
+
+        // Ainda há quem espere: a requisição continua e entrega o resultado
+        assertFalse(cancelled.isCompleted)
+        release.complete("resultado")
+        assertEquals("resultado", withTimeout(5_000) { third.await() })
+        assertFalse(cancelled.isCompleted)
+        assertEquals(1, calls.get())
+    }
+
+    @Test
+    fun lastWaiterCancelling_cancelsTheCall() = runBlocking {
+        val first = async(start = CoroutineStart.UNDISPATCHED) { flight.run("ranking", block) }
+        val second = async(start = CoroutineStart.UNDISPATCHED) { flight.run("ranking", block) }
+
+        // A requisição precisa ter começado para ver o cancelamento
+        withTimeout(5_000) { while (calls.get() == 0) yield() }
+
+        first.cancel()
+        first.join()
+        assertFalse(cancelled.isCompleted)
+
+        second.cancel()
+        second.join()
+        withTimeout(5_000) { cancelled.await() }
+
+        // A chave foi liberada: a próxima leitura vai à rede
+        release.complete("resultado")
+        assertEquals("resultado", withTimeout(5_000) { flight.run("ranking", block) })
+        assertEquals(2, calls.get())
+    }
+
+    @Test
+    fun failure_reachesEveryWaiter() = runBlocking {
+        val error = IllegalStateException("falha no servidor")
+        val failing: suspend () -> String = {
+            calls.incrementAndGet()
+            release.await()
+            throw error
+        }
+
+        // runCatching: a falha fica com cada chamador em vez de cancelar o runBlocking
+        val first = async(start = CoroutineStart.UNDISPATCHED) { runCatching { flight.run("ranking", failing) } }
+        val second = async(start = CoroutineStart.UNDISPATCHED) { runCatching { flight.run("ranking", failing) } }
+        release.complete("")
+
+        for (waiter in listOf(first, second)) {
+            val failure = withTimeout(5_000) { waiter.await() }.exceptionOrNull()
+            assertTrue(failure is IllegalStateException)
+            assertEquals(error.message, failure!!.message)
+        }
+        assertEquals(1, calls.get())
+    }
+
+    @Test
+    fun key_isClearedAfterCompletion() = runBlocking {
+        release.complete("resultado")
+
+        assertEquals("resultado", withTimeout(5_000) { flight.run("ranking", block) })
+        assertEquals("resultado", withTimeout(5_000) { flight.run("ranking", block) })
+
+        // Sem cache: cada leitura depois da anterior terminar é uma nova requisição
+        assertEquals(2, calls.get())
+        assertEquals(0, flight.getSharedCount())
+        assertTrue(flight.toString().contains("leituras=2"))
+    }
+
+    @Test
+    fun key_isClearedAfterFailure() = runBlocking {
+        val failing: suspend () -> String = {
+            calls.incrementAndGet()
+            throw IllegalStateException("falha")
+        }
+
+        try {
+            withTimeout(5_000) { flight.run("ranking", failing) }
+            fail("Esperava a falha")
+        } catch (e: IllegalStateException) {
+            assertSame(IllegalStateException::class.java, e.javaClass)
+        }
+        release.complete("resultado")
+
+        assertEquals("resultado", withTimeout(5_000) { flight.run("ranking", block) })
+        assertEquals(2, calls.get())
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.waterchamp.data.repository
+
+import android.content.Context
+import android.os.Looper
+import com.example.waterchamp.data.local.HistoryCache
+import com.example.waterchamp.data.local.PreferencesManager
+import com.example.waterchamp.data.remote.ConsumoService
+import com.example.waterchamp.data.sync.SyncOutbox
+import com.example.waterchamp.model.HistoryRecord
+import io.github.jan.supabase.createSupabaseClient
+import io.github.jan.supabase.postgrest.Postgrest
+import io.ktor.client.engine.okhttp.OkHttp
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import java.text.SimpleDateFormat
+import java.util.Calendar
+import java.util.Locale
+import java.util.concurrent.TimeUnit
+import kotlin.time.Duration.Companion.seconds
+
+/**
+ * Watermark da busca incremental (pullConsumptionChanges) contra um PostgREST local (MockWebServer)
+ * Os resultados chegam pela thread principal, então o teste roda o looper até o callback
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class ConsumoRepositoryWatermarkTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var client: io.github.jan.supabase.SupabaseClient
+    private lateinit var prefs: PreferencesManager
+    private lateinit var historyCache: HistoryCache
+    private lateinit var repository: ConsumoRepository
+
+    private val dateFormat = SimpleDateFormat("yyyy-MM-dd", Locale.US)
+    private val today = daysAgo(0)
+    private val yesterday = daysAgo(1)
+    private val twoDaysAgo = daysAgo(2)
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        client = createSupabaseClient(server.url("/").toString().trimEnd('/'), "anon-key") {
+            httpEngine = OkHttp.create()
+            requestTimeout = 2.seconds
+            install(Postgrest)
+        }
+
+        val context: Context = RuntimeEnvironment.getApplication()
+        prefs = PreferencesManager(context)
+        historyCache = HistoryCache(context)
+        repository = ConsumoRepository(ConsumoService { client }, historyCache, prefs, SyncOutbox(context))
+
+        // O HistoryStore é único no processo: começar cada teste sem histórico nem watermark
+        repository.clearLocalData()
+        prefs.setUserId(USER_ID)
+    }
+
+    @After
+    fun tearDown() {
+        repository.clearLocalData()
+        server.shutdown()
+    }
+
+    @Test
+    fun pull_advancesWatermarkToLatestUpdatedAt() {
+        // Precisão e fuso variam entre linhas; a mais recente não é a maior como texto
+        respond(
+            row(twoDaysAgo, 1500, "2026-10-17T12:00:00Z"),
+            row(yesterday, 2000, "2026-10-17T09:00:01.25-03:00"),
+            row(today, 500, "2026-10-17T12:00:00.999999+00:00")
+        )
+
+        pull()
+
+        assertEquals("2026-10-17T09:00:01.25-03:00", prefs.consumoWatermark)
+        assertTrue(repository.hasPulledChanges())
+        assertEquals(1500, historyCache.getDayTotal(historyCache.todayEpochDay - 2))
+        assertEquals(2000, historyCache.getDayTotal(historyCache.todayEpochDay - 1))
+
+        // Sem watermark: a primeira busca é pelo período mantido localmente
+        val first = server.takeRequest(5, TimeUnit.SECONDS)!!
+        assertNull(first.requestUrl!!.queryParameter("updated_at"))
+        assertTrue(first.requestUrl!!.queryParameter("data")!!.startsWith("gte."))
+    }
+
+    @Test
+    fun pull_rereadsBoundaryRowWithoutDuplicatingIt() {
+        val boundary = "2026-10-17T12:00:00.5+00:00"
+        respond(
+            row(yesterday, 2000, "2026-10-17T11:00:00+00:00"),
+            row(today, 750, boundary)
+        )
+        pull()
+        historyCache.addRecord(HistoryRecord(System.currentTimeMillis(), 250, "Adicionado"))
+        server.takeRequest(5, TimeUnit.SECONDS)
+
+        // gte: a linha do watermark volta na próxima busca
+        respond(row(today, 750, boundary))
+        pull()
+
+        val second = server.takeRequest(5, TimeUnit.SECONDS)!!
+        assertEquals("gte.$boundary", second.requestUrl!!.queryParameter("updated_at"))
+        assertNull(second.requestUrl!!.queryParameter("data"))
+
+        // Reaplicar a linha não soma de novo: hoje continua 750 do servidor + 250 locais
+        assertEquals(1000, historyCache.todayTotal)
+        assertEquals(2000, historyCache.getDayTotal(historyCache.todayEpochDay - 1))
+        assertEquals(boundary, prefs.consumoWatermark)
+    }
+
+    @Test
+    fun pull_withNoChangesKeepsWatermark() {
+        val watermark = "2026-10-17T12:00:00.123+00:00"
+        prefs.consumoWatermark = watermark
+        respond()
+
+        pull()
+
+        assertEquals(watermark, prefs.consumoWatermark)
+    }
+
+    @Test
+    fun logout_clearsWatermarkAndNextPullReadsFullPeriod() {
+        respond(row(yesterday, 2000, "2026-10-17T11:00:00+00:00"))
+        pull()
+        server.takeRequest(5, TimeUnit.SECONDS)
+
+        repository.clearLocalData()
+
+        assertNull(prefs.consumoWatermark)
+        assertFalse(repository.hasPulledChanges())
+        assertEquals(0, historyCache.getDayTotal(historyCache.todayEpochDay - 1))
+
+        respond(row(yesterday, 2000, "2026-10-17T11:00:00+00:00"))
+        pull()
+
+        val next = server.takeRequest(5, TimeUnit.SECONDS)!!
+        assertNull(next.requestUrl!!.queryParameter("updated_at"))
+        assertTrue(next.requestUrl!!.queryParameter("data")!!.startsWith("gte."))
+        assertEquals(2000, historyCache.getDayTotal(historyCache.todayEpochDay - 1))
+    }
+
+    @Test
+    fun latestUpdatedAt_comparesInstantsNotText() {
+        val rows = listOf(
+            ConsumoService.ConsumoDiario(null, USER_ID, yesterday, 100, "2026-10-17T12:00:00.5+00:00"),
+            ConsumoService.ConsumoDiario(null, USER_ID, yesterday, 100, "2026-10-17T12:00:00.123456Z"),
+            ConsumoService.ConsumoDiario(null, USER_ID, yesterday, 100, null),
+            ConsumoService.ConsumoDiario(null, USER_ID, yesterday, 100, "inválido")
+        )
+
+        assertEquals("2026-10-17T12:00:00.5+00:00", ConsumoRepository.latestUpdatedAt(null, rows))
+        // Watermark igual em outra notação: mantém o texto já salvo
+        assertEquals("2026-10-17T12:00:00.500+00:00", ConsumoRepository.latestUpdatedAt("2026-10-17T12:00:00.500+00:00", rows))
+        assertEquals("2026-10-17T12:00:01Z", ConsumoRepository.latestUpdatedAt("2026-10-17T12:00:01Z", rows))
+    }
+
+    // ============ Helpers ============
+
+    private fun pull() {
+        var result: String? = null
+        repository.pullConsumptionChanges(object : ConsumoRepository.SyncCallback {
+            override fun onSuccess() {
+                result = "ok"
+            }
+
+            override fun onError(message: String) {
+                result = message
+            }
+        })
+
+        val deadline = System.currentTimeMillis() + 5_000
+        while (result == null && System.currentTimeMillis() < deadline) {
+            shadowOf(Looper.getMainLooper()).idle()
+            Thread.sleep(10)
+        }
+        assertEquals("ok", result)
+    }
+
+    private fun respond(vararg rows: String) {
+        server.enqueue(
+            MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(rows.joinToString(",", "[", "]"))
+        )
+    }
+
+    private fun row(date: String, totalMl: Int, updatedAt: String) =
+        """{"id": 1, "usuario_id": $USER_ID, "data": "$date", "total_ml": $totalMl, "updated_at": "$updatedAt"}"""
+
+    private fun daysAgo(days: Int): String {
+        val calendar = Calendar.getInstance()
+        calendar.add(Calendar.DAY_OF_YEAR, -days)
+        return dateFormat.format(calendar.time)
+    }
+
+    private companion object {
+        const val USER_ID = 7
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.waterchamp.data.sync;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConsumoSyncCoalescerTest {
+
+    private static final long WINDOW_MS = ConsumoSyncCoalescer.DEFAULT_WINDOW_MS;
+    private static final String TODAY = "2026-10-17";
+
+    private FakeScheduler scheduler;
+    private FakeSender sender;
+    private ConsumoSyncCoalescer coalescer;
+
+    @Before
+    public void setUp() {
+        scheduler = new FakeScheduler();
+        sender = new FakeSender();
+        coalescer = new ConsumoSyncCoalescer(WINDOW_MS, sender, scheduler);
+    }
+
+    @Test
+    public void tapsWithinWindow_sendOneUpsertWithLastTotal() {
+        List<RecordingCallback> callbacks = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            RecordingCallback callback = new RecordingCallback();
+            callbacks.add(callback);
+            coalescer.request(1, TODAY, i * 250, callback);
+            scheduler.advance(200);
+        }
+
+        // 5 toques em 800ms: nada enviado antes do fim da janela aberta pelo primeiro
+        assertTrue(sender.sent.isEmpty());
+        scheduler.advance(WINDOW_MS - 1_000 - 1);
+        assertTrue(sender.sent.isEmpty());
+
+        scheduler.advance(1);
+        assertEquals(1, sender.sent.size());
+        Sent sent = sender.sent.get(0);
+        assertEquals(1, sent.userId);
+        assertEquals(TODAY, sent.date);
+        assertEquals(1_250, sent.totalMl);
+        // Todos os chamadores recebem o resultado do único envio
+        assertEquals(callbacks, sent.callbacks);
+        assertFalse(coalescer.hasPending());
+    }
+
+    @Test
+    public void windowIsFixedFromFirstTap() {
+        coalescer.request(1, TODAY, 250, null);
+        scheduler.advance(1_000);
+        coalescer.request(1, TODAY, 500, null);
+        scheduler.advance(500);
+
+        assertEquals(1, sender.sent.size());
+        assertEquals(500, sender.sent.get(0).totalMl);
+
+        // Toques contínuos: um envio por janela, não um único no fim
+        coalescer.request(1, TODAY, 750, null);
+        scheduler.advance(WINDOW_MS);
+        assertEquals(2, sender.sent.size());
+        assertEquals(750, sender.sent.get(1).totalMl);
+    }
+
+    @Test
+    public void flush_sendsImmediatelyAndCancelsTheWindow() {
+        coalescer.request(1, TODAY, 250, null);
+        coalescer.request(1, TODAY, 500, null);
+
+        coalescer.flush();
+
+        assertEquals(1, sender.sent.size());
+        assertEquals(500, sender.sent.get(0).totalMl);
+        assertFalse(coalescer.hasPending());
+        assertEquals(0, scheduler.pendingCount());
+
+        // O fim da janela não envia de novo
+        scheduler.advance(WINDOW_MS);
+        assertEquals(1, sender.sent.size());
+    }
+
+    @Test
+    public void flush_withNothingPendingDoesNotSend() {
+        coalescer.flush();
+
+        assertTrue(sender.sent.isEmpty());
+        assertEquals(0, coalescer.getSentCount());
+    }
+
+    @Test
+    public void requestForAnotherDayOrUser_flushesThePreviousOne() {
+        coalescer.request(1, "2026-10-16", 2_000, null);
+        coalescer.request(1, TODAY, 250, null);
+        coalescer.request(2, TODAY, 300, null);
+
+        assertEquals(2, sender.sent.size());
+        assertEquals("2026-10-16", sender.sent.get(0).date);
+        assertEquals(2_000, sender.sent.get(0).totalMl);
+        assertEquals(250, sender.sent.get(1).totalMl);
+
+        scheduler.advance(WINDOW_MS);
+        assertEquals(3, sender.sent.size());
+        assertEquals(2, sender.sent.get(2).userId);
+        assertEquals(300, sender.sent.get(2).totalMl);
+    }
+
+    @Test
+    public void savedCount_countsOnlyCallsThatWillNotBeSent() {
+        for (int i = 1; i <= 4; i++) {
+            coalescer.request(1, TODAY, i * 250, null);
+        }
+
+        // O pedido pendente ainda vai ser enviado: não conta como economizado
+        assertEquals(4, coalescer.getRequestedCount());
+        assertEquals(0, coalescer.getSentCount());
+        assertEquals(3, coalescer.getSavedCount());
+
+        scheduler.advance(WINDOW_MS);
+        assertEquals(1, coalescer.getSentCount());
+        assertEquals(3, coalescer.getSavedCount());
+
+        coalescer.request(1, TODAY, 1_250, null);
+        coalescer.flush();
+        assertEquals(5, coalescer.getRequestedCount());
+        assertEquals(2, coalescer.getSentCount());
+        assertEquals(3, coalescer.getSavedCount());
+    }
+
+    // ============ Fakes ============
+
+    /**
+     * Relógio virtual: advance() roda as tarefas cujo horário chegou, na ordem
+     */
+    private static class FakeScheduler implements OutboxDrainer.Scheduler {
+        private final List<Task> tasks = new ArrayList<>();
+        private long now;
+
+        @Override
+        public void post(Runnable action) {
+            postDelayed(action, 0);
+        }
+
+        @Override
+        public void postDelayed(Runnable action, long delayMs) {
+            tasks.add(new Task(now + delayMs, action));
+        }
+
+        @Override
+        public void cancel(Runnable action) {
+            tasks.removeIf(task -> task.action == action);
+        }
+
+        void advance(long ms) {
+            long target = now + ms;
+            while (true) {
+                Task next = null;
+                for (Task task : tasks) {
+                    if (task.at <= target && (next == null || task.at < next.at)) {
+                        next = task;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                tasks.remove(next);
+                now = next.at;
+                next.action.run();
+            }
+            now = target;
+        }
+
+        int pendingCount() {
+            return tasks.size();
+        }
+
+        private static class Task {
+            final long at;
+            final Runnable action;
+
+            Task(long at, Runnable action) {
+                this.at = at;
+                this.action = action;
+            }
+        }
+    }
+
+    private static class FakeSender implements ConsumoSyncCoalescer.Sender {
+        final List<Sent> sent = new ArrayList<>();
+
+        @Override
+        public void send(int userId, String date, int totalMl, List<ConsumoSyncCoalescer.Callback> callbacks) {
+            sent.add(new Sent(userId, date, totalMl, callbacks));
+        }
+    }
+
+    private static class Sent {
+        final int userId;
+        final String date;
+        final int totalMl;
+        final List<ConsumoSyncCoalescer.Callback> callbacks;
+
+        Sent(int userId, String date, int totalMl, List<ConsumoSyncCoalescer.Callback> callbacks) {
+            this.userId = userId;
+            this.date = date;
+            this.totalMl = totalMl;
+            this.callbacks = callbacks;
+        }
+    }
+
+    private static class RecordingCallback implements ConsumoSyncCoalescer.Callback {
+        @Override
+        public void onSuccess() {
+        }
+
+        @Override
+        public void onError(String message) {
+        }
+    }
+}
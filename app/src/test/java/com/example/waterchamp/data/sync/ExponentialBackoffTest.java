@@ -0,0 +1,87 @@
+package com.example.waterchamp.data.sync;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ExponentialBackoffTest {
+
+    private static final long BASE = 1_000;
+    private static final long MAX = 60_000;
+
+    // Sorteio fixo: 0 = metade do atraso, quase 1 = atraso cheio
+    private static Random fixed(double value) {
+        return new Random() {
+            @Override
+            public double nextDouble() {
+                return value;
+            }
+        };
+    }
+
+    @Test
+    public void nextDelay_doublesOnEachFailure() {
+        ExponentialBackoff backoff = new ExponentialBackoff(BASE, MAX, fixed(0));
+
+        assertEquals(500, backoff.nextDelayMs());
+        assertEquals(1_000, backoff.nextDelayMs());
+        assertEquals(2_000, backoff.nextDelayMs());
+        assertEquals(4_000, backoff.nextDelayMs());
+        assertEquals(4, backoff.getAttempts());
+    }
+
+    @Test
+    public void nextDelay_isCappedAtMax() {
+        ExponentialBackoff backoff = new ExponentialBackoff(BASE, MAX, fixed(0.999999));
+
+        long last = 0;
+        for (int i = 0; i < 100; i++) {
+            last = backoff.nextDelayMs();
+            assertTrue("atraso " + last + " acima do máximo", last <= MAX);
+        }
+        // Muitas falhas depois (shift limitado a 30), o atraso continua no teto e não estoura
+        assertTrue(last >= MAX - 1);
+    }
+
+    @Test
+    public void nextDelay_jitterStaysBetweenHalfAndFullDelay() {
+        for (long seed = 0; seed < 200; seed++) {
+            ExponentialBackoff backoff = new ExponentialBackoff(BASE, MAX, new Random(seed));
+            for (int attempt = 0; attempt < 10; attempt++) {
+                long full = Math.min(MAX, BASE << attempt);
+                long delay = backoff.nextDelayMs();
+                assertTrue("tentativa " + attempt + ": " + delay + " < " + full / 2, delay >= full / 2);
+                assertTrue("tentativa " + attempt + ": " + delay + " > " + full, delay <= full);
+            }
+        }
+    }
+
+    @Test
+    public void nextDelay_jitterSpreadsClients() {
+        Random shared = new Random(7);
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int client = 0; client < 200; client++) {
+            long delay = new ExponentialBackoff(BASE, MAX, shared).nextDelayMs();
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        // Clientes que falham juntos não devem tentar de novo no mesmo instante
+        assertTrue(max - min > BASE / 4);
+    }
+
+    @Test
+    public void reset_returnsToBaseDelay() {
+        ExponentialBackoff backoff = new ExponentialBackoff(BASE, MAX, fixed(0));
+        backoff.nextDelayMs();
+        backoff.nextDelayMs();
+        backoff.nextDelayMs();
+
+        backoff.reset();
+
+        assertEquals(0, backoff.getAttempts());
+        assertEquals(500, backoff.nextDelayMs());
+    }
+}
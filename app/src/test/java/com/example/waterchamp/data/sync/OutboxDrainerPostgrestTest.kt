@@ -0,0 +1,164 @@
+package com.example.waterchamp.data.sync
+
+import com.example.waterchamp.FakeSharedPreferences
+import com.example.waterchamp.data.remote.ConsumoService
+import io.github.jan.supabase.createSupabaseClient
+import io.github.jan.supabase.postgrest.Postgrest
+import io.ktor.client.engine.okhttp.OkHttp
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.int
+import kotlinx.serialization.json.jsonArray
+import kotlinx.serialization.json.jsonObject
+import kotlinx.serialization.json.jsonPrimitive
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.SocketPolicy
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.Random
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import kotlin.time.Duration.Companion.seconds
+
+/**
+ * OutboxDrainer com o ConsumoService de verdade contra um PostgREST local (MockWebServer)
+ * Confere a chamada RPC enviada e que erros HTTP e timeouts mantêm os dias na fila até um 200
+ */
+class OutboxDrainerPostgrestTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var client: io.github.jan.supabase.SupabaseClient
+    private lateinit var outbox: SyncOutbox
+    private lateinit var scheduler: RetryScheduler
+    private lateinit var drainer: OutboxDrainer
+
+    private val results = LinkedBlockingQueue<String>()
+
+    private val listener = object : OutboxDrainer.Listener {
+        override fun onDrained(sentCount: Int) {
+            results.add("ok:$sentCount")
+        }
+
+        override fun onFailed(message: String) {
+            results.add("falha")
+        }
+    }
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+
+        client = createSupabaseClient(server.url("/").toString().trimEnd('/'), "anon-key") {
+            httpEngine = OkHttp.create()
+            requestTimeout = 2.seconds
+            install(Postgrest)
+        }
+
+        val service = ConsumoService { client }
+        outbox = SyncOutbox(FakeSharedPreferences())
+        scheduler = RetryScheduler()
+        // Mesmo mapeamento do ConsumoRepository.sendBatch
+        drainer = OutboxDrainer(outbox, { userId, entries ->
+            service.syncDailyConsumptionBatchAsync(
+                userId,
+                entries.map { ConsumoService.ConsumoDiario(null, it.userId, it.date, it.totalMl) }
+            )
+        }, scheduler, ExponentialBackoff(1_000, 60_000, Random(42)))
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun drain_postsBatchToSetConsumoDiarioLote() {
+        outbox.put(7, "2026-10-15", 1500)
+        outbox.put(7, "2026-10-16", 2000)
+        server.enqueue(MockResponse().setResponseCode(200).setBody("2"))
+
+        drainer.drain(listener)
+
+        assertEquals("ok:2", results.poll(5, TimeUnit.SECONDS))
+        assertTrue(outbox.isEmpty())
+
+        val request = server.takeRequest(5, TimeUnit.SECONDS)!!
+        assertEquals("POST", request.method)
+        assertEquals("/rest/v1/rpc/set_consumo_diario_lote", request.requestUrl!!.encodedPath)
+
+        val body = Json.parseToJsonElement(request.body.readUtf8()).jsonObject
+        assertEquals(7, body.getValue("p_usuario_id").jsonPrimitive.int)
+        val dias = body.getValue("p_dias").jsonArray.map { it.jsonObject }
+        assertEquals(
+            listOf("2026-10-15" to 1500, "2026-10-16" to 2000),
+            dias.map { it.getValue("data").jsonPrimitive.content to it.getValue("total_ml").jsonPrimitive.int }
+                .sortedBy { it.first }
+        )
+    }
+
+    @Test
+    fun drain_serverErrorAndTimeoutKeepDaysUntilSuccess() {
+        outbox.put(7, "2026-10-16", 2000)
+        server.enqueue(MockResponse().setResponseCode(500).setBody("""{"message": "erro interno"}"""))
+        server.enqueue(MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE))
+        server.enqueue(MockResponse().setResponseCode(200).setBody("1"))
+
+        // 500: o dia fica na fila e uma nova tentativa é agendada
+        drainer.drain(listener)
+        assertEquals("falha", results.poll(5, TimeUnit.SECONDS))
+        assertEquals(1, outbox.size())
+        assertNotNull(scheduler.retry)
+        assertEquals(1, drainer.attempts)
+
+        // Sem resposta: o timeout da requisição conta como falha, com atraso maior
+        val firstDelay = scheduler.delayMs
+        scheduler.runRetry()
+        assertEquals("falha", results.poll(5, TimeUnit.SECONDS))
+        assertEquals(1, outbox.size())
+        assertTrue(scheduler.delayMs > firstDelay)
+        assertEquals(2, drainer.attempts)
+
+        // 200: a fila esvazia e o atraso volta ao início
+        scheduler.runRetry()
+        assertEquals("ok:1", results.poll(5, TimeUnit.SECONDS))
+        assertTrue(outbox.isEmpty())
+        assertNull(scheduler.retry)
+        assertEquals(0, drainer.attempts)
+
+        assertEquals(3, server.requestCount)
+    }
+
+    /**
+     * O mesmo que a nova tentativa agendada faz (drain), mas com o listener do teste para esperar o resultado
+     */
+    private fun RetryScheduler.runRetry() {
+        assertNotNull(retry)
+        drainer.drain(listener)
+    }
+
+    // Resultados rodam na thread da resposta; a nova tentativa só fica guardada
+    private class RetryScheduler : OutboxDrainer.Scheduler {
+        @Volatile
+        var retry: Runnable? = null
+
+        @Volatile
+        var delayMs = 0L
+
+        override fun post(action: Runnable) = action.run()
+
+        override fun postDelayed(action: Runnable, delayMs: Long) {
+            retry = action
+            this.delayMs = delayMs
+        }
+
+        override fun cancel(action: Runnable) {
+            if (retry === action) retry = null
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.waterchamp.data.sync;
+
+import com.example.waterchamp.FakeSharedPreferences;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class OutboxDrainerTest {
+
+    private SyncOutbox outbox;
+    private FakeSender sender;
+    private FakeScheduler scheduler;
+    private OutboxDrainer drainer;
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() {
+        outbox = new SyncOutbox(new FakeSharedPreferences());
+        sender = new FakeSender();
+        scheduler = new FakeScheduler();
+        drainer = new OutboxDrainer(outbox, sender, scheduler, new ExponentialBackoff(1_000, 60_000, new Random(42)));
+        listener = new RecordingListener();
+    }
+
+    @Test
+    public void drain_sendsOneBatchPerUserAndEmptiesOutbox() {
+        outbox.put(1, "2026-10-15", 100);
+        outbox.put(1, "2026-10-16", 200);
+        outbox.put(2, "2026-10-16", 300);
+
+        drainer.drain(listener);
+
+        assertEquals(2, sender.calls.size());
+        assertTrue(outbox.isEmpty());
+        assertEquals(Integer.valueOf(3), listener.drained);
+        assertNull(listener.failure);
+        assertFalse(drainer.isDraining());
+        assertFalse(scheduler.hasRetry());
+    }
+
+    @Test
+    public void drain_withEmptyOutboxSucceedsWithoutSending() {
+        drainer.drain(listener);
+
+        assertTrue(sender.calls.isEmpty());
+        assertEquals(Integer.valueOf(0), listener.drained);
+    }
+
+    @Test
+    public void drain_failureKeepsEntriesAndRetriesWithBackoff() {
+        outbox.put(1, "2026-10-16", 200);
+        sender.failUsers.add(1);
+
+        drainer.drain(listener);
+
+        assertEquals(1, outbox.size());
+        assertNotNull(listener.failure);
+        assertTrue(scheduler.hasRetry());
+        assertTrue(scheduler.retryDelay >= 500 && scheduler.retryDelay <= 1_000);
+
+        // Segunda falha: atraso dobra
+        scheduler.runRetry();
+        assertEquals(2, sender.calls.size());
+        assertTrue(scheduler.retryDelay >= 1_000 && scheduler.retryDelay <= 2_000);
+        assertEquals(2, drainer.getAttempts());
+
+        // Conexão volta: a nova tentativa esvazia a fila e zera o atraso
+        sender.failUsers.clear();
+        scheduler.runRetry();
+        assertEquals(3, sender.calls.size());
+        assertTrue(outbox.isEmpty());
+        assertFalse(scheduler.hasRetry());
+        assertEquals(0, drainer.getAttempts());
+    }
+
+    @Test
+    public void drain_exceptionInBatchKeepsEntriesAndRetries() {
+        outbox.put(1, "2026-10-16", 200);
+        sender.throwUsers.add(1);
+
+        drainer.drain(listener);
+
+        assertEquals("sem conexão", listener.failure);
+        assertEquals(1, outbox.size());
+        assertTrue(scheduler.hasRetry());
+    }
+
+    @Test
+    public void drain_partialFailureRemovesOnlyConfirmedUser() {
+        outbox.put(1, "2026-10-16", 200);
+        outbox.put(2, "2026-10-16", 300);
+        sender.failUsers.add(2);
+
+        drainer.drain(listener);
+
+        assertEquals(1, outbox.size());
+        assertEquals(2, outbox.getPending().get(0).getUserId());
+        assertTrue(scheduler.hasRetry());
+    }
+
+    @Test
+    public void drain_keepsNewerTotalWrittenDuringSend() {
+        outbox.put(1, "2026-10-17", 500);
+        sender.hold = true;
+
+        drainer.drain(listener);
+        outbox.put(1, "2026-10-17", 750);
+        sender.completeHeld(true);
+
+        assertEquals(1, outbox.size());
+        assertEquals(750, SyncOutboxTest.totalOf(outbox.getPending(), 1, "2026-10-17"));
+    }
+
+    @Test
+    public void drain_isRefusedWhileAnotherIsInFlight() {
+        outbox.put(1, "2026-10-17", 500);
+        sender.hold = true;
+
+        drainer.drain(listener);
+        assertTrue(drainer.isDraining());
+
+        RecordingListener second = new RecordingListener();
+        drainer.drain(second);
+        assertNotNull(second.failure);
+        assertEquals(1, sender.calls.size());
+
+        sender.completeHeld(true);
+        assertFalse(drainer.isDraining());
+        assertTrue(outbox.isEmpty());
+    }
+
+    // ============ Fakes ============
+
+    private static class FakeSender implements OutboxDrainer.BatchSender {
+        final List<List<SyncOutbox.Entry>> calls = new ArrayList<>();
+        final Set<Integer> failUsers = new HashSet<>();
+        final Set<Integer> throwUsers = new HashSet<>();
+        final List<CompletableFuture<Boolean>> held = new ArrayList<>();
+        boolean hold = false;
+
+        @Override
+        public CompletableFuture<Boolean> send(int userId, List<SyncOutbox.Entry> entries) {
+            calls.add(entries);
+            CompletableFuture<Boolean> result = new CompletableFuture<>();
+            if (hold) {
+                held.add(result);
+            } else if (throwUsers.contains(userId)) {
+                result.completeExceptionally(new IllegalStateException("sem conexão"));
+            } else {
+                result.complete(!failUsers.contains(userId));
+            }
+            return result;
+        }
+
+        void completeHeld(boolean success) {
+            for (CompletableFuture<Boolean> future : held) {
+                future.complete(success);
+            }
+            held.clear();
+        }
+    }
+
+    // Resultados rodam na hora; a nova tentativa fica guardada até o teste rodá-la
+    private static class FakeScheduler implements OutboxDrainer.Scheduler {
+        Runnable retry;
+        long retryDelay;
+
+        @Override
+        public void post(Runnable action) {
+            action.run();
+        }
+
+        @Override
+        public void postDelayed(Runnable action, long delayMs) {
+            retry = action;
+            retryDelay = delayMs;
+        }
+
+        @Override
+        public void cancel(Runnable action) {
+            if (retry == action) {
+                retry = null;
+            }
+        }
+
+        boolean hasRetry() {
+            return retry != null;
+        }
+
+        void runRetry() {
+            Runnable action = retry;
+            retry = null;
+            action.run();
+        }
+    }
+
+    private static class RecordingListener implements OutboxDrainer.Listener {
+        Integer drained;
+        String failure;
+
+        @Override
+        public void onDrained(int sentCount) {
+            drained = sentCount;
+        }
+
+        @Override
+        public void onFailed(String message) {
+            failure = message;
+        }
+    }
+}
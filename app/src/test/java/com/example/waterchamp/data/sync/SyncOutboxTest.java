@@ -0,0 +1,76 @@
+package com.example.waterchamp.data.sync;
+
+import com.example.waterchamp.FakeSharedPreferences;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SyncOutboxTest {
+
+    private SyncOutbox outbox;
+
+    @Before
+    public void setUp() {
+        outbox = new SyncOutbox(new FakeSharedPreferences());
+    }
+
+    @Test
+    public void put_keepsOneEntryPerUserAndDay() {
+        outbox.put(1, "2026-10-16", 500);
+        outbox.put(1, "2026-10-16", 750);
+        outbox.put(1, "2026-10-17", 250);
+        outbox.put(2, "2026-10-17", 100);
+
+        assertEquals(3, outbox.size());
+        assertEquals(750, totalOf(outbox.getPending(), 1, "2026-10-16"));
+    }
+
+    @Test
+    public void remove_deletesEntryThatWasSent() {
+        outbox.put(1, "2026-10-17", 500);
+
+        outbox.remove(new SyncOutbox.Entry(1, "2026-10-17", 500));
+
+        assertTrue(outbox.isEmpty());
+    }
+
+    @Test
+    public void remove_keepsNewerTotalWrittenDuringSend() {
+        outbox.put(1, "2026-10-17", 500);
+        SyncOutbox.Entry sending = outbox.getPending().get(0);
+
+        // Usuário bebeu mais água enquanto o envio de 500ml estava em andamento
+        outbox.put(1, "2026-10-17", 750);
+        outbox.remove(sending);
+
+        assertEquals(1, outbox.size());
+        assertEquals(750, totalOf(outbox.getPending(), 1, "2026-10-17"));
+    }
+
+    @Test
+    public void remove_doesNotTouchOtherUsersOrDays() {
+        outbox.put(1, "2026-10-17", 500);
+        outbox.put(2, "2026-10-17", 500);
+        outbox.put(1, "2026-10-16", 500);
+
+        outbox.remove(new SyncOutbox.Entry(1, "2026-10-17", 500));
+
+        assertEquals(2, outbox.size());
+        assertEquals(500, totalOf(outbox.getPending(), 2, "2026-10-17"));
+        assertEquals(500, totalOf(outbox.getPending(), 1, "2026-10-16"));
+    }
+
+    static int totalOf(List<SyncOutbox.Entry> entries, int userId, String date) {
+        for (SyncOutbox.Entry entry : entries) {
+            if (entry.getUserId() == userId && entry.getDate().equals(date)) {
+                return entry.getTotalMl();
+            }
+        }
+        fail("Sem entrada para " + userId + "/" + date);
+        return -1;
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.waterchamp.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RankingModelTest {
+
+    @Test
+    public void replaceAll_firstLoadSortsRanksAndResets() {
+        RankingModel model = new RankingModel();
+
+        RankingModel.ChangeSet changes = model.replaceAll(Arrays.asList(
+            user(1, "Ana", 500),
+            user(2, "Bia", 1500),
+            user(-1, "Sem ID", 9000),
+            user(3, "Caio", 1000)
+        ));
+
+        assertTrue(changes.isReset());
+        assertEquals(Arrays.asList(2, 3, 1), ids(model));
+        assertRanksMatchPositions(model);
+    }
+
+    @Test
+    public void replaceAll_tiesAreOrderedById() {
+        RankingModel model = new RankingModel();
+        model.replaceAll(Arrays.asList(user(9, "I", 1000), user(4, "D", 1000), user(7, "G", 1000)));
+
+        assertEquals(Arrays.asList(4, 7, 9), ids(model));
+
+        // Empatar com quem está acima: o ID menor continua na frente
+        model.replaceAll(Arrays.asList(user(9, "I", 1000), user(4, "D", 1000), user(7, "G", 1000), user(1, "A", 500)));
+        model.update(1, 1000);
+        assertEquals(Arrays.asList(1, 4, 7, 9), ids(model));
+        assertRanksMatchPositions(model);
+    }
+
+    @Test
+    public void update_movingUpTouchesOnlyRanksBetweenOldAndNewPosition() {
+        RankingModel model = fiveUsers(); // 1..5 com 5000, 4000, 3000, 2000, 1000
+
+        RankingModel.ChangeSet changes = model.update(4, 4500);
+
+        assertEquals(Arrays.asList(1, 4, 2, 3, 5), ids(model));
+        assertChanges(changes, new int[][]{
+            {RankingModel.Change.MOVE, 3, 1},
+            {RankingModel.Change.UPDATE, 1, 1}
+        });
+        assertEquals(1, changes.getRankRangeStart());
+        assertEquals(3, changes.getRankRangeEnd());
+        assertRanksMatchPositions(model);
+    }
+
+    @Test
+    public void update_movingDown() {
+        RankingModel model = fiveUsers();
+
+        RankingModel.ChangeSet changes = model.update(1, 1500);
+
+        assertEquals(Arrays.asList(2, 3, 4, 1, 5), ids(model));
+        assertChanges(changes, new int[][]{
+            {RankingModel.Change.MOVE, 0, 3},
+            {RankingModel.Change.UPDATE, 3, 3}
+        });
+        assertEquals(0, changes.getRankRangeStart());
+        assertEquals(3, changes.getRankRangeEnd());
+        assertRanksMatchPositions(model);
+    }
+
+    @Test
+    public void update_withoutMoveOnlyUpdatesRow() {
+        RankingModel model = fiveUsers();
+
+        RankingModel.ChangeSet changes = model.update(3, 3100);
+
+        assertChanges(changes, new int[][]{{RankingModel.Change.UPDATE, 2, 2}});
+        assertEquals(2, changes.getRankRangeStart());
+        assertEquals(2, changes.getRankRangeEnd());
+    }
+
+    @Test
+    public void update_sameValueOrUnknownUserIsEmpty() {
+        RankingModel model = fiveUsers();
+
+        assertTrue(model.update(3, 3000).isEmpty());
+        assertTrue(model.update(42, 3000).isEmpty());
+        assertEquals(-1, model.update(3, 3000).getRankRangeStart());
+    }
+
+    @Test
+    public void replaceAll_insertsAndRemovesWithRankRanges() {
+        RankingModel model = fiveUsers();
+
+        // Sai o 2, entra o 6 entre o 3 e o 4
+        List<User> incoming = fiveUserList();
+        incoming.remove(1);
+        incoming.add(user(6, "F", 2500));
+
+        RankingModel.ChangeSet changes = model.replaceAll(incoming);
+
+        assertFalse(changes.isReset());
+        assertEquals(Arrays.asList(1, 3, 6, 4, 5), ids(model));
+        assertChanges(changes, new int[][]{
+            {RankingModel.Change.REMOVE, 1, -1},
+            {RankingModel.Change.INSERT, -1, 2}
+        });
+        assertEquals(1, changes.getRankRangeStart());
+        assertEquals(4, changes.getRankRangeEnd());
+        assertRanksMatchPositions(model);
+    }
+
+    @Test
+    public void remove_lastEntryChangesNoRanks() {
+        RankingModel model = fiveUsers();
+
+        RankingModel.ChangeSet changes = model.remove(5);
+
+        assertChanges(changes, new int[][]{{RankingModel.Change.REMOVE, 4, -1}});
+        assertEquals(-1, changes.getRankRangeStart());
+        assertEquals(-1, changes.getRankRangeEnd());
+        assertNull(model.findById(5));
+    }
+
+    @Test
+    public void replaceAll_copiesNameAndPhoto() {
+        RankingModel model = new RankingModel();
+        User first = user(1, null, 1000);
+        model.replaceAll(Arrays.asList(first, user(2, "Bia", 500)));
+
+        User renamed = user(1, "Ana", 1000);
+        renamed.setProfilePictureUri("content://foto/1");
+        RankingModel.ChangeSet changes = model.replaceAll(Arrays.asList(renamed, user(2, "Bia", 500)));
+
+        assertChanges(changes, new int[][]{{RankingModel.Change.UPDATE, 0, 0}});
+        assertEquals("Ana", model.findById(1).getName());
+        assertEquals("content://foto/1", model.findById(1).getProfilePictureUri());
+
+        // Nada mudou: nenhuma alteração
+        assertTrue(model.replaceAll(Arrays.asList(renamed, user(2, "Bia", 500))).isEmpty());
+    }
+
+    @Test
+    public void changes_replayedOnCopyReproduceModelOrder() {
+        // A tela aplica as alterações em ordem sobre a lista anterior; o resultado deve ser a lista do modelo
+        Random random = new Random(3);
+        RankingModel model = new RankingModel();
+        List<User> initial = new ArrayList<>();
+        for (int id = 0; id < 50; id++) {
+            initial.add(user(id, "U" + id, random.nextInt(3000)));
+        }
+        model.replaceAll(initial);
+        List<Integer> shown = ids(model);
+
+        for (int step = 0; step < 500; step++) {
+            RankingModel.ChangeSet changes;
+            int id = random.nextInt(60);
+            if (random.nextInt(10) == 0) {
+                changes = model.remove(id);
+            } else if (model.findById(id) == null) {
+                List<User> incoming = new ArrayList<>(model.getEntries());
+                incoming.add(user(id, "U" + id, random.nextInt(3000)));
+                changes = model.replaceAll(copies(incoming));
+            } else {
+                changes = model.update(id, random.nextInt(3000));
+            }
+
+            for (RankingModel.Change change : changes.getChanges()) {
+                if (change.type == RankingModel.Change.REMOVE) {
+                    shown.remove(change.from);
+                } else if (change.type == RankingModel.Change.INSERT) {
+                    shown.add(change.to, model.get(change.to).getId());
+                } else if (change.type == RankingModel.Change.MOVE) {
+                    shown.add(change.to, shown.remove(change.from));
+                }
+            }
+            assertEquals("passo " + step, ids(model), shown);
+            assertRanksMatchPositions(model);
+        }
+    }
+
+    // ============ Helpers ============
+
+    static User user(int id, String name, int waterIntake) {
+        User user = new User(name, "", waterIntake);
+        user.setId(id);
+        return user;
+    }
+
+    private static List<User> fiveUserList() {
+        List<User> users = new ArrayList<>();
+        for (int id = 1; id <= 5; id++) {
+            users.add(user(id, "U" + id, (6 - id) * 1000));
+        }
+        return users;
+    }
+
+    private static RankingModel fiveUsers() {
+        RankingModel model = new RankingModel();
+        model.replaceAll(fiveUserList());
+        return model;
+    }
+
+    // O servidor manda objetos novos a cada busca
+    private static List<User> copies(List<User> users) {
+        List<User> copies = new ArrayList<>(users.size());
+        for (User user : users) {
+            copies.add(user(user.getId(), user.getName(), user.getWaterIntake()));
+        }
+        return copies;
+    }
+
+    private static List<Integer> ids(RankingModel model) {
+        List<Integer> ids = new ArrayList<>();
+        for (User user : model.getEntries()) {
+            ids.add(user.getId());
+        }
+        return ids;
+    }
+
+    private static void assertRanksMatchPositions(RankingModel model) {
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals("posição " + i, i + 1, model.get(i).getRank());
+        }
+    }
+
+    private static void assertChanges(RankingModel.ChangeSet changes, int[][] expected) {
+        List<RankingModel.Change> actual = changes.getChanges();
+        assertEquals(expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("tipo " + i, expected[i][0], actual.get(i).type);
+            assertEquals("de " + i, expected[i][1], actual.get(i).from);
+            assertEquals("para " + i, expected[i][2], actual.get(i).to);
+        }
+    }
+}
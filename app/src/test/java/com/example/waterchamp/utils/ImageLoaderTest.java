@@ -0,0 +1,36 @@
+package com.example.waterchamp.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ImageLoaderTest {
+
+    @Test
+    public void diskFileName_isSha1Hex() {
+        // SHA-1("abc") = a9993e364706816aba3e25717850c26c9cd0d89d
+        assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d.jpg", ImageLoader.diskFileName("abc"));
+        assertEquals(ImageLoader.diskFileName("content://foto/1@120"), ImageLoader.diskFileName("content://foto/1@120"));
+    }
+
+    @Test
+    public void diskFileName_differsWhenHashCodeCollides() {
+        // "Aa" e "BB" têm o mesmo String.hashCode(): antes iam para o mesmo arquivo
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(ImageLoader.diskFileName("Aa"), ImageLoader.diskFileName("BB"));
+
+        String first = "content://media/external/images/1Aa@120";
+        String second = "content://media/external/images/1BB@120";
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(ImageLoader.diskFileName(first), ImageLoader.diskFileName(second));
+    }
+
+    @Test
+    public void calculateInSampleSize_keepsSmallestSideAtLeastRequested() {
+        assertEquals(1, ImageLoader.calculateInSampleSize(100, 100, 120));
+        // 3000 / 16 = 187 >= 120; 3000 / 32 = 93 ficaria menor que o pedido
+        assertEquals(16, ImageLoader.calculateInSampleSize(4000, 3000, 120));
+        // 3000 / 8 = 375 >= 200; 3000 / 16 = 187 não
+        assertEquals(8, ImageLoader.calculateInSampleSize(4000, 3000, 200));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.waterchamp.utils;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class LoggerTest {
+
+    private static final int CALLS = 200_000;
+
+    private final int previousLevel = Logger.getMinLevel();
+
+    @After
+    public void tearDown() {
+        Logger.setMinLevel(previousLevel);
+    }
+
+    @Test
+    public void gatedOffPrimitiveOverloads_allocateNothing() {
+        com.sun.management.ThreadMXBean threads = threadBean();
+        Logger.setMinLevel(Logger.WARN);
+
+        // Aquecer (JIT) antes de medir
+        logPrimitives(CALLS);
+
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        logPrimitives(CALLS);
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        // Com boxing ou montagem da mensagem seriam vários MB; a margem cobre a própria medição
+        assertTrue("Alocados " + allocated + " bytes em " + CALLS + " chamadas", allocated < 1024);
+    }
+
+    @Test
+    public void gatedOffCalls_doNotFormatArguments() {
+        Logger.setMinLevel(Logger.NONE);
+        ToStringCounter argument = new ToStringCounter();
+
+        Logger.d("LoggerTest", "valor {}", argument);
+        Logger.w("LoggerTest", "valor {}", argument);
+        Logger.e("LoggerTest", "valor {}", argument);
+
+        assertEquals(0, argument.calls);
+    }
+
+    @Test
+    public void enabledCalls_formatArgumentsOnce() {
+        Logger.setMinLevel(Logger.DEBUG);
+        ToStringCounter argument = new ToStringCounter();
+
+        Logger.d("LoggerTest", "valor {}", argument);
+
+        assertEquals(1, argument.calls);
+    }
+
+    @Test
+    public void format_replacesPlaceholdersInOrder() {
+        assertEquals("a=1, b=2.5, c=x", Logger.format("a={}, b={}, c={}", 1L, 2.5, "x"));
+        assertEquals("sobrou {}", Logger.format("sobrou {}"));
+        assertEquals("extra 1", Logger.format("extra {}", 1L, 2L));
+    }
+
+    @Test
+    public void isLoggable_followsMinLevel() {
+        Logger.setMinLevel(Logger.WARN);
+
+        assertFalse(Logger.isLoggable(Logger.DEBUG));
+        assertTrue(Logger.isLoggable(Logger.WARN));
+        assertTrue(Logger.isLoggable(Logger.ERROR));
+    }
+
+    private static void logPrimitives(int calls) {
+        for (int i = 0; i < calls; i++) {
+            long big = 1_000_000L + i; // Fora do cache de Long.valueOf
+            Logger.d("LoggerTest", "valor {}", big);
+            Logger.d("LoggerTest", "valor {}", big * 0.5);
+            Logger.d("LoggerTest", "valores {} {}", big, big + 1);
+            Logger.d("LoggerTest", "valores {} {} {}", big, big + 1, big + 2);
+            Logger.d("LoggerTest", "valores {} {} {}", "texto", big, big + 1);
+            Logger.d("LoggerTest", "valores {} {} {} {}", big, big + 1, "texto", big + 2);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    private static class ToStringCounter {
+        int calls;
+
+        @Override
+        public String toString() {
+            calls++;
+            return "contador";
+        }
+    }
+}
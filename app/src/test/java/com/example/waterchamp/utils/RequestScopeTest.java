@@ -0,0 +1,88 @@
+package com.example.waterchamp.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class RequestScopeTest {
+
+    @Test
+    public void run_activatesScopeOnlyDuringAction() {
+        RequestScope scope = new RequestScope("teste");
+        AtomicReference<RequestScope> seen = new AtomicReference<>();
+
+        assertNull(RequestScope.current());
+        scope.run(() -> seen.set(RequestScope.current()));
+
+        assertSame(scope, seen.get());
+        assertNull(RequestScope.current());
+    }
+
+    @Test
+    public void nestedRun_restoresOuterScope() {
+        RequestScope outer = new RequestScope("fora");
+        RequestScope inner = new RequestScope("dentro");
+        AtomicReference<RequestScope> afterInner = new AtomicReference<>();
+
+        outer.run(() -> {
+            inner.run(() -> assertSame(inner, RequestScope.current()));
+            afterInner.set(RequestScope.current());
+        });
+
+        assertSame(outer, afterInner.get());
+        assertNull(RequestScope.current());
+    }
+
+    @Test
+    public void otherThreadDuringRun_doesNotSeeTheScope() throws Exception {
+        RequestScope scope = new RequestScope("teste");
+        AtomicReference<RequestScope> seenByWorker = new AtomicReference<>(scope);
+
+        // Uma requisição disparada de outra thread enquanto a principal está dentro de run()
+        scope.run(() -> {
+            Thread worker = new Thread(() -> seenByWorker.set(RequestScope.current()));
+            worker.start();
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertNull(seenByWorker.get());
+    }
+
+    @Test
+    public void runWithoutScope_hidesOuterScope() {
+        RequestScope scope = new RequestScope("teste");
+        AtomicReference<RequestScope> seen = new AtomicReference<>(scope);
+
+        // Callback de uma requisição sem dono, entregue enquanto outro escopo está ativo
+        scope.run(() -> RequestScope.runWith(null, () -> seen.set(RequestScope.current())));
+
+        assertNull(seen.get());
+    }
+
+    @Test
+    public void cancel_cancelsOnlyPendingRequests() {
+        RequestScope scope = new RequestScope("teste");
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> done = new CompletableFuture<>();
+        done.complete("ok");
+        scope.track(pending);
+        scope.track(done);
+
+        assertEquals(1, scope.cancel());
+        assertTrue(pending.isCancelled());
+        assertFalse(done.isCancelled());
+        assertEquals(0, scope.getInFlightCount());
+        assertEquals(1, scope.getCancelledCount());
+
+        // Continua utilizável depois de cancelar
+        scope.track(new CompletableFuture<>());
+        assertEquals(1, scope.getInFlightCount());
+    }
+}
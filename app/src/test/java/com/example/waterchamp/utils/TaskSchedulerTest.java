@@ -0,0 +1,66 @@
+package com.example.waterchamp.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TaskSchedulerTest {
+
+    @Test
+    public void interactiveAndSyncFinishWhilePollIsSaturated() throws Exception {
+        TaskScheduler.Lane poll = TaskScheduler.Lane.POLL;
+        CountDownLatch stall = new CountDownLatch(1);
+        CountDownLatch pollStarted = new CountDownLatch(poll.getConcurrency());
+        long rejectedBefore = TaskScheduler.getStats(poll).rejected;
+
+        try {
+            // Requisições de ranking travadas ocupando todas as threads de POLL e a fila inteira
+            for (int i = 0; i < poll.getConcurrency(); i++) {
+                TaskScheduler.execute(poll, () -> {
+                    pollStarted.countDown();
+                    await(stall);
+                });
+            }
+            assertTrue(pollStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < poll.getQueueCapacity(); i++) {
+                TaskScheduler.execute(poll, () -> await(stall));
+            }
+
+            try {
+                TaskScheduler.execute(poll, () -> { });
+                fail("POLL deveria estar cheia");
+            } catch (RejectedExecutionException expected) {
+                // Fila limitada: a próxima atualização é recusada em vez de acumular
+            }
+
+            TaskScheduler.LaneStats pollStats = TaskScheduler.getStats(poll);
+            assertEquals(poll.getConcurrency(), pollStats.active);
+            assertEquals(poll.getQueueCapacity(), pollStats.queueDepth);
+            assertEquals(rejectedBefore + 1, pollStats.rejected);
+
+            // Login/grupos e sincronização não esperam atrás do ranking
+            CountDownLatch interactiveDone = new CountDownLatch(1);
+            CountDownLatch syncDone = new CountDownLatch(1);
+            TaskScheduler.execute(TaskScheduler.Lane.INTERACTIVE, interactiveDone::countDown);
+            TaskScheduler.execute(TaskScheduler.Lane.SYNC, syncDone::countDown);
+
+            assertTrue("INTERACTIVE ficou atrás de POLL", interactiveDone.await(1, TimeUnit.SECONDS));
+            assertTrue("SYNC ficou atrás de POLL", syncDone.await(1, TimeUnit.SECONDS));
+            assertEquals(1, stall.getCount()); // POLL continua travada
+        } finally {
+            stall.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
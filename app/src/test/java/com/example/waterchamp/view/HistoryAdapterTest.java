@@ -0,0 +1,173 @@
+package com.example.waterchamp.view;
+
+import android.content.Context;
+import android.os.Looper;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.waterchamp.model.HistoryRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Linhas refeitas (onBindViewHolder) ao recarregar o histórico, com o adapter em um RecyclerView de verdade
+ * Com ids estáveis e o diff, só as linhas novas ou alteradas passam por bind; as demais ficam como estão
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class HistoryAdapterTest {
+
+    private static final long NOW = 1_792_245_600_000L;
+
+    private List<HistoryRecord> day;
+    private CountingAdapter adapter;
+    private RecyclerView recyclerView;
+
+    @Before
+    public void setUp() {
+        day = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            day.add(new HistoryRecord(NOW + i * 60_000L, 250, "Adicionado"));
+        }
+        adapter = new CountingAdapter(day);
+
+        Context context = RuntimeEnvironment.getApplication();
+        recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        recyclerView.setItemAnimator(null);
+        recyclerView.setAdapter(adapter);
+        layout();
+
+        // Tela alta o bastante para as 20 linhas (e as próximas) ficarem visíveis
+        assertEquals(20, recyclerView.getChildCount());
+        adapter.boundIds.clear();
+    }
+
+    @Test
+    public void unchangedRefresh_rebindsNothing() {
+        adapter.updateHistory(new ArrayList<>(day));
+        awaitReload();
+        layout();
+
+        assertTrue(adapter.boundIds.isEmpty());
+        assertEquals(20, adapter.getItemCount());
+    }
+
+    @Test
+    public void refreshWithOneNewRecord_bindsOnlyThatRow() {
+        HistoryRecord added = new HistoryRecord(NOW + 3_600_000L, 500, "Adicionado");
+        List<HistoryRecord> updated = new ArrayList<>(day);
+        updated.add(added);
+
+        adapter.updateHistory(updated);
+        awaitReload();
+        layout();
+
+        assertEquals(Collections.singletonList(added.getId()), adapter.boundIds);
+        assertEquals(21, recyclerView.getChildCount());
+    }
+
+    @Test
+    public void refreshWithLastRecordRemoved_rebindsNothing() {
+        List<HistoryRecord> updated = new ArrayList<>(day.subList(0, day.size() - 1));
+
+        adapter.updateHistory(updated);
+        awaitReload();
+        layout();
+
+        assertTrue(adapter.boundIds.isEmpty());
+        assertEquals(19, recyclerView.getChildCount());
+    }
+
+    @Test
+    public void recordsWithSameTimeAmountAndAction_haveDistinctIds() {
+        // Mesmo instante, quantidade e ação: o id antigo (timestamp/quantidade/ação) colidia
+        HistoryRecord first = new HistoryRecord(NOW, 250, "Adicionado");
+        HistoryRecord second = new HistoryRecord(NOW, 250, "Adicionado");
+        HistoryAdapter twins = new HistoryAdapter(Arrays.asList(first, second));
+
+        assertNotEquals(twins.getItemId(0), twins.getItemId(1));
+
+        // Só o registro do topo sai; o gêmeo continua
+        assertFalse(twins.removeFromTop(first));
+        assertTrue(twins.removeFromTop(second));
+        assertEquals(1, twins.getItemCount());
+        assertEquals(first.getId(), twins.getItemId(0));
+    }
+
+    @Test
+    public void addToTop_bindsOnlyTheNewRowAndIsRefusedDuringReload() {
+        HistoryRecord added = new HistoryRecord(NOW + 3_600_000L, 300, "Adicionado");
+        assertTrue(adapter.addToTop(added));
+        layout();
+        assertEquals(Collections.singletonList(added.getId()), adapter.boundIds);
+
+        List<HistoryRecord> reloaded = new ArrayList<>(day);
+        reloaded.add(added);
+        reloaded.add(new HistoryRecord(NOW + 3_700_000L, 100, "Adicionado"));
+        adapter.updateHistory(reloaded);
+
+        // Recarga em andamento: a tela deve recarregar em vez de aplicar o evento
+        assertFalse(adapter.addToTop(new HistoryRecord(NOW + 3_800_000L, 100, "Adicionado")));
+        awaitReload();
+        assertEquals(22, adapter.getItemCount());
+    }
+
+    /**
+     * Passo de layout com o topo da lista visível (onde entram os registros novos)
+     */
+    private void layout() {
+        recyclerView.scrollToPosition(0);
+        recyclerView.measure(
+            View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(20_000, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, 1080, 20_000);
+    }
+
+    private void awaitReload() {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (adapter.isReloadPending()) {
+            assertTrue("Diff não terminou", System.currentTimeMillis() < deadline);
+            shadowOf(Looper.getMainLooper()).idle();
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Guarda o id de cada registro que passou por onBindViewHolder
+     */
+    private static class CountingAdapter extends HistoryAdapter {
+        final List<Long> boundIds = new ArrayList<>();
+
+        CountingAdapter(List<HistoryRecord> historyList) {
+            super(historyList);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull HistoryViewHolder holder, int position) {
+            boundIds.add(getItemId(position));
+            super.onBindViewHolder(holder, position);
+        }
+    }
+}
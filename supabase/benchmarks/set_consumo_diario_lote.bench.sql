@@ -0,0 +1,62 @@
+-- Vazão de set_consumo_diario_lote com 1, 30 e 365 dias
+-- Compara um lote com N dias contra N chamadas de um dia (o que o app fazia antes: uma RPC por dia)
+-- Mede só o custo no banco; no app, cada chamada por dia ainda paga uma ida e volta HTTP
+--
+-- Tudo roda em uma transação desfeita no final (usuário e dias de teste não ficam no banco)
+--
+-- Rodar: psql "$DATABASE_URL" -f supabase/benchmarks/set_consumo_diario_lote.bench.sql
+
+begin;
+
+-- A função só aceita o usuário da sessão (e-mail do JWT)
+select set_config('request.jwt.claims', '{"email": "benchmark-lote@example.invalid"}', true);
+
+do $$
+declare
+    v_usuario_id integer;
+    v_dias integer;
+    v_repeticoes integer;
+    v_lote jsonb;
+    v_inicio timestamptz;
+    v_lote_ms numeric;
+    v_por_dia_ms numeric;
+begin
+    insert into public.usuarios (nome, email)
+    values ('Benchmark', 'benchmark-lote@example.invalid')
+    returning id into v_usuario_id;
+
+    foreach v_dias in array array[1, 30, 365] loop
+        -- Mais repetições nos lotes pequenos para o tempo medido não ficar perto da resolução do relógio
+        v_repeticoes := case v_dias when 1 then 500 when 30 then 100 else 20 end;
+
+        select jsonb_agg(jsonb_build_object('data', current_date - i, 'total_ml', 1500 + i))
+        into v_lote
+        from generate_series(0, v_dias - 1) as i;
+
+        -- Primeira gravação (insert) fora da medição: as repetições medem o caso comum do backfill, o upsert
+        perform public.set_consumo_diario_lote(v_usuario_id, v_lote);
+
+        v_inicio := clock_timestamp();
+        for r in 1..v_repeticoes loop
+            perform public.set_consumo_diario_lote(v_usuario_id, v_lote);
+        end loop;
+        v_lote_ms := extract(epoch from clock_timestamp() - v_inicio) * 1000 / v_repeticoes;
+
+        v_inicio := clock_timestamp();
+        for r in 1..v_repeticoes loop
+            for i in 0..v_dias - 1 loop
+                perform public.set_consumo_diario_lote(v_usuario_id, jsonb_build_array(v_lote -> i));
+            end loop;
+        end loop;
+        v_por_dia_ms := extract(epoch from clock_timestamp() - v_inicio) * 1000 / v_repeticoes;
+
+        raise notice '% dia(s): lote % ms (% dias/s) | uma chamada por dia % ms (% dias/s, % chamadas)',
+            lpad(v_dias::text, 3),
+            round(v_lote_ms, 3), round(v_dias * 1000 / nullif(v_lote_ms, 0)),
+            round(v_por_dia_ms, 3), round(v_dias * 1000 / nullif(v_por_dia_ms, 0)),
+            v_dias;
+    end loop;
+end;
+$$;
+
+rollback;
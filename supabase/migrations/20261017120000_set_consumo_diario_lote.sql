@@ -0,0 +1,33 @@
+-- Upsert em lote do consumo diário
+-- Recebe vários dias de um usuário e grava todos em uma única chamada,
+-- usado pelo app para reenviar dias pendentes após um período offline
+--
+-- Exemplo:
+-- select set_consumo_diario_lote(1, '[{"data": "2026-10-01", "total_ml": 2000}]'::jsonb);
+
+-- Garante a chave usada pelo ON CONFLICT (um registro por usuário/dia)
+create unique index if not exists consumo_diario_usuario_data_key
+    on public.consumo_diario (usuario_id, data);
+
+create or replace function public.set_consumo_diario_lote(
+    p_usuario_id integer,
+    p_dias jsonb
+)
+returns integer
+language plpgsql
+as $$
+declare
+    v_linhas integer;
+begin
+    insert into public.consumo_diario (usuario_id, data, total_ml)
+    select p_usuario_id, d.data, greatest(d.total_ml, 0)
+    from jsonb_to_recordset(p_dias) as d(data date, total_ml integer)
+    on conflict (usuario_id, data)
+    do update set total_ml = excluded.total_ml;
+
+    get diagnostics v_linhas = row_count;
+    return v_linhas;
+end;
+$$;
+
+grant execute on function public.set_consumo_diario_lote(integer, jsonb) to anon, authenticated;
@@ -0,0 +1,26 @@
+-- Coluna updated_at em consumo_diario para sincronização incremental
+-- O app guarda o maior updated_at recebido e depois pede apenas as linhas
+-- alteradas desde então (usuario_id = ? and updated_at >= ?)
+
+alter table public.consumo_diario
+    add column if not exists updated_at timestamptz not null default now();
+
+-- Atualiza updated_at em todo insert/update, inclusive via set_consumo_diario e set_consumo_diario_lote
+create or replace function public.consumo_diario_touch_updated_at()
+returns trigger
+language plpgsql
+as $$
+begin
+    new.updated_at := now();
+    return new;
+end;
+$$;
+
+drop trigger if exists consumo_diario_touch_updated_at on public.consumo_diario;
+create trigger consumo_diario_touch_updated_at
+    before insert or update on public.consumo_diario
+    for each row
+    execute function public.consumo_diario_touch_updated_at();
+
+create index if not exists consumo_diario_usuario_updated_at_idx
+    on public.consumo_diario (usuario_id, updated_at);
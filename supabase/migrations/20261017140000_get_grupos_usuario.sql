@@ -0,0 +1,42 @@
+-- Grupos de um usuário já com a contagem de membros
+-- Substitui, no app, a busca de cada grupo e a contagem de membros feitas
+-- uma a uma (2N+1 requisições) por uma única chamada
+--
+-- Exemplo:
+-- select * from get_grupos_usuario(1);
+
+create index if not exists membros_grupo_usuario_idx
+    on public.membros_grupo (usuario_id);
+
+create index if not exists membros_grupo_grupo_idx
+    on public.membros_grupo (grupo_id);
+
+create or replace function public.get_grupos_usuario(
+    p_usuario_id integer
+)
+returns table (
+    id integer,
+    nome text,
+    descricao text,
+    criador_id integer,
+    data_criacao text,
+    total_membros integer
+)
+language sql
+stable
+as $$
+    select g.id,
+           g.nome::text,
+           g.descricao::text,
+           g.criador_id,
+           g.data_criacao::text,
+           (select count(*)::integer
+              from public.membros_grupo c
+             where c.grupo_id = g.id) as total_membros
+    from public.membros_grupo m
+    join public.grupos g on g.id = m.grupo_id
+    where m.usuario_id = p_usuario_id
+    order by g.id;
+$$;
+
+grant execute on function public.get_grupos_usuario(integer) to anon, authenticated;
@@ -0,0 +1,52 @@
+-- Posição de um usuário no ranking com os vizinhos (± p_janela posições)
+-- Substitui, no app, o download das 1000 primeiras linhas da view só para
+-- achar uma posição (e que nunca encontrava quem estava abaixo da 1000ª)
+--
+-- p_ranking: 'diario' (view ranking_diario) ou 'global' (view ranking_global)
+--
+-- Exemplo:
+-- select * from get_vizinhanca_ranking(1, 'diario', 5);
+
+create or replace function public.get_vizinhanca_ranking(
+    p_usuario_id integer,
+    p_ranking text,
+    p_janela integer default 5
+)
+returns table (
+    id integer,
+    nome text,
+    consumo_hoje integer,
+    total_30_dias bigint,
+    posicao bigint
+)
+language plpgsql
+stable
+as $$
+declare
+    v_janela integer := greatest(coalesce(p_janela, 0), 0);
+begin
+    if p_ranking = 'diario' then
+        return query
+        with alvo as (
+            select r.posicao from public.ranking_diario r where r.id = p_usuario_id
+        )
+        select r.id::integer, r.nome::text, r.consumo_hoje::integer, null::bigint, r.posicao::bigint
+        from public.ranking_diario r, alvo
+        where r.posicao between alvo.posicao - v_janela and alvo.posicao + v_janela
+        order by r.posicao, r.id;
+    elsif p_ranking = 'global' then
+        return query
+        with alvo as (
+            select r.posicao from public.ranking_global r where r.id = p_usuario_id
+        )
+        select r.id::integer, r.nome::text, null::integer, r.total_30_dias::bigint, r.posicao::bigint
+        from public.ranking_global r, alvo
+        where r.posicao between alvo.posicao - v_janela and alvo.posicao + v_janela
+        order by r.posicao, r.id;
+    else
+        raise exception 'Ranking inválido: %', p_ranking;
+    end if;
+end;
+$$;
+
+grant execute on function public.get_vizinhanca_ranking(integer, text, integer) to anon, authenticated;
@@ -0,0 +1,21 @@
+-- Ranking diário por grupo
+-- Junta membros_grupo com a view ranking_diario e reclassifica dentro de cada grupo,
+-- então o app recebe só os membros do grupo (em vez de 1000 linhas do ranking geral)
+--
+-- Exemplo:
+-- select * from ranking_grupo_diario where grupo_id = 1 order by posicao;
+
+create or replace view public.ranking_grupo_diario as
+select
+    m.grupo_id,
+    r.id,
+    r.nome,
+    r.consumo_hoje,
+    rank() over (
+        partition by m.grupo_id
+        order by coalesce(r.consumo_hoje, 0) desc
+    ) as posicao
+from public.membros_grupo m
+join public.ranking_diario r on r.id = m.usuario_id;
+
+grant select on public.ranking_grupo_diario to anon, authenticated;
@@ -0,0 +1,20 @@
+-- Publica as mudanças de consumo_diario no Supabase Realtime
+-- A tela de ranking aplica cada linha alterada em vez de buscar o ranking inteiro
+--
+-- REPLICA IDENTITY FULL: updates e deletes trazem a linha antiga completa,
+-- então o app consegue aplicar a diferença (total novo - total antigo) no ranking global
+
+alter table public.consumo_diario replica identity full;
+
+do $$
+begin
+    if not exists (
+        select 1 from pg_publication_tables
+        where pubname = 'supabase_realtime'
+          and schemaname = 'public'
+          and tablename = 'consumo_diario'
+    ) then
+        alter publication supabase_realtime add table public.consumo_diario;
+    end if;
+end;
+$$;
@@ -0,0 +1,35 @@
+-- get_grupos_usuario: data_criacao no formato ISO (2026-10-17T14:00:00)
+-- O cast ::text devolvia o formato do Postgres ("2026-10-17 14:00:00.123+00"),
+-- que o app (GrupoAdapter.formatDate) não reconhece e mostrava cru no card
+-- O tipo de retorno continua text, então o app não muda
+--
+-- Exemplo:
+-- select id, data_criacao from get_grupos_usuario(1);
+
+create or replace function public.get_grupos_usuario(
+    p_usuario_id integer
+)
+returns table (
+    id integer,
+    nome text,
+    descricao text,
+    criador_id integer,
+    data_criacao text,
+    total_membros integer
+)
+language sql
+stable
+as $$
+    select g.id,
+           g.nome::text,
+           g.descricao::text,
+           g.criador_id,
+           to_char(g.data_criacao, 'YYYY-MM-DD"T"HH24:MI:SS'),
+           (select count(*)::integer
+              from public.membros_grupo c
+             where c.grupo_id = g.id) as total_membros
+    from public.membros_grupo m
+    join public.grupos g on g.id = m.grupo_id
+    where m.usuario_id = p_usuario_id
+    order by g.id;
+$$;
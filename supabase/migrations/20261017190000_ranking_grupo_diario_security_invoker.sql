@@ -0,0 +1,23 @@
+-- ranking_grupo_diario com security_invoker: a view passa a ler membros_grupo e ranking_diario
+-- com as permissões (e políticas RLS) de quem consulta, e não do dono da view
+-- O app só consulta a view com sessão do Supabase Auth, então o acesso de anon é retirado
+--
+-- Exemplo:
+-- select reloptions from pg_class where relname = 'ranking_grupo_diario';
+
+create or replace view public.ranking_grupo_diario
+with (security_invoker = true) as
+select
+    m.grupo_id,
+    r.id,
+    r.nome,
+    r.consumo_hoje,
+    rank() over (
+        partition by m.grupo_id
+        order by coalesce(r.consumo_hoje, 0) desc
+    ) as posicao
+from public.membros_grupo m
+join public.ranking_diario r on r.id = m.usuario_id;
+
+revoke select on public.ranking_grupo_diario from anon;
+grant select on public.ranking_grupo_diario to authenticated;
@@ -0,0 +1,49 @@
+-- set_consumo_diario_lote: só o próprio usuário e sem falhar com datas repetidas no lote
+--
+-- A função aceitava qualquer p_usuario_id e era executável por anon, então quem tivesse a chave
+-- pública podia sobrescrever o histórico de qualquer usuário. Agora só authenticated executa,
+-- e p_usuario_id precisa ser o usuário da sessão. A tabela usuarios não guarda o id do
+-- Supabase Auth: o vínculo é o e-mail, o mesmo usado no login do app (auth.jwt() ->> 'email')
+--
+-- Um lote com a mesma data duas vezes falhava inteiro ("ON CONFLICT DO UPDATE command cannot
+-- affect row a second time") e o app descartava o lote todo. Agora vale a última ocorrência da data
+--
+-- Exemplo:
+-- select set_consumo_diario_lote(1, '[{"data": "2026-10-01", "total_ml": 2000}]'::jsonb);
+
+create or replace function public.set_consumo_diario_lote(
+    p_usuario_id integer,
+    p_dias jsonb
+)
+returns integer
+language plpgsql
+as $$
+declare
+    v_linhas integer;
+begin
+    if not exists (
+        select 1
+        from public.usuarios u
+        where u.id = p_usuario_id
+          and lower(u.email) = lower(auth.jwt() ->> 'email')
+    ) then
+        raise exception 'Usuário % não pertence à sessão atual', p_usuario_id
+            using errcode = '42501';
+    end if;
+
+    insert into public.consumo_diario (usuario_id, data, total_ml)
+    select distinct on (d.data) p_usuario_id, d.data, greatest(d.total_ml, 0)
+    from rows from (jsonb_to_recordset(p_dias) as (data date, total_ml integer))
+        with ordinality as d(data, total_ml, posicao)
+    order by d.data, d.posicao desc
+    on conflict (usuario_id, data)
+    do update set total_ml = excluded.total_ml;
+
+    get diagnostics v_linhas = row_count;
+    return v_linhas;
+end;
+$$;
+
+-- Funções novas são executáveis por public por padrão; anon herdava por aí também
+revoke execute on function public.set_consumo_diario_lote(integer, jsonb) from public, anon;
+grant execute on function public.set_consumo_diario_lote(integer, jsonb) to authenticated;
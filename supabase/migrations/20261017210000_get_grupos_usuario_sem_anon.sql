@@ -0,0 +1,10 @@
+-- get_grupos_usuario: retirar o acesso de anon
+-- A função aceita qualquer p_usuario_id, então sem sessão dava para listar os grupos de qualquer usuário
+-- O app só chama a função com sessão do Supabase Auth (mesmo caso de ranking_grupo_diario)
+--
+-- Exemplo:
+-- select has_function_privilege('anon', 'public.get_grupos_usuario(integer)', 'execute');
+
+-- Funções novas são executáveis por public por padrão; anon herdava por aí também
+revoke execute on function public.get_grupos_usuario(integer) from public, anon;
+grant execute on function public.get_grupos_usuario(integer) to authenticated;
@@ -0,0 +1,9 @@
+-- get_vizinhanca_ranking: retirar o acesso de anon
+-- O app só consulta o ranking com sessão do Supabase Auth (mesmo caso de ranking_grupo_diario)
+--
+-- Exemplo:
+-- select has_function_privilege('anon', 'public.get_vizinhanca_ranking(integer, text, integer)', 'execute');
+
+-- Funções novas são executáveis por public por padrão; anon herdava por aí também
+revoke execute on function public.get_vizinhanca_ranking(integer, text, integer) from public, anon;
+grant execute on function public.get_vizinhanca_ranking(integer, text, integer) to authenticated;
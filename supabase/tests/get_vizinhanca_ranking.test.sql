@@ -0,0 +1,133 @@
+-- Bordas da janela de get_vizinhanca_ranking: primeiro lugar, último lugar, empates e usuário fora do ranking
+-- As views ranking_diario/ranking_global são trocadas por tabelas com posições conhecidas
+-- dentro da transação (desfeito no rollback), então o resultado não depende dos dados do banco
+--
+-- Rodar: supabase test db
+
+begin;
+
+create extension if not exists pgtap with schema extensions;
+set local search_path = public, extensions;
+
+select plan(16);
+
+alter view public.ranking_diario rename to ranking_diario_original;
+alter view public.ranking_global rename to ranking_global_original;
+
+create table public.ranking_diario (id integer, nome text, consumo_hoje integer, posicao bigint);
+create table public.ranking_global (id integer, nome text, total_30_dias bigint, posicao bigint);
+
+-- 10 usuários; 4 e 5 empatados na 4ª posição (rank(): a próxima é a 6ª)
+insert into public.ranking_diario (id, nome, consumo_hoje, posicao) values
+    (101, 'A', 3000, 1), (102, 'B', 2800, 2), (103, 'C', 2500, 3),
+    (104, 'D', 2000, 4), (105, 'E', 2000, 4), (106, 'F', 1500, 6),
+    (107, 'G', 1200, 7), (108, 'H', 1000, 8), (109, 'I', 500, 9),
+    (110, 'J', 0, 10);
+
+insert into public.ranking_global (id, nome, total_30_dias, posicao)
+select id, nome, consumo_hoje * 30, posicao from public.ranking_diario;
+
+-- ============ Diário ============
+
+select results_eq(
+    $$ select id, posicao from get_vizinhanca_ranking(101, 'diario', 2) $$,
+    $$ values (101, 1::bigint), (102, 2::bigint), (103, 3::bigint) $$,
+    'Primeiro lugar: só vizinhos abaixo, sem posições negativas'
+);
+
+select results_eq(
+    $$ select id, posicao from get_vizinhanca_ranking(110, 'diario', 2) $$,
+    $$ values (108, 8::bigint), (109, 9::bigint), (110, 10::bigint) $$,
+    'Último lugar: só vizinhos acima'
+);
+
+select results_eq(
+    $$ select id, posicao from get_vizinhanca_ranking(106, 'diario', 2) $$,
+    $$ values (104, 4::bigint), (105, 4::bigint), (106, 6::bigint), (107, 7::bigint), (108, 8::bigint) $$,
+    'Meio da lista: janela por posição inclui os dois empatados na borda'
+);
+
+select results_eq(
+    $$ select id, posicao from get_vizinhanca_ranking(104, 'diario', 0) $$,
+    $$ values (104, 4::bigint), (105, 4::bigint) $$,
+    'Janela 0: o usuário e quem divide a posição com ele'
+);
+
+select results_eq(
+    $$ select id from get_vizinhanca_ranking(101, 'diario', 100) $$,
+    $$ select id from public.ranking_diario order by posicao, id $$,
+    'Janela maior que o ranking: lista inteira, ordenada por posição e ID'
+);
+
+select results_eq(
+    $$ select count(*)::integer from get_vizinhanca_ranking(103, 'diario', -3) $$,
+    $$ values (1) $$,
+    'Janela negativa vale como 0'
+);
+
+select results_eq(
+    $$ select count(*)::integer from get_vizinhanca_ranking(103, 'diario', null) $$,
+    $$ values (1) $$,
+    'Janela nula vale como 0'
+);
+
+select is_empty(
+    $$ select * from get_vizinhanca_ranking(999, 'diario', 5) $$,
+    'Usuário fora do ranking: nenhuma linha'
+);
+
+select results_eq(
+    $$ select consumo_hoje, total_30_dias from get_vizinhanca_ranking(101, 'diario', 0) $$,
+    $$ values (3000, null::bigint) $$,
+    'Diário preenche consumo_hoje e deixa total_30_dias nulo'
+);
+
+-- ============ Global ============
+
+select results_eq(
+    $$ select id, posicao from get_vizinhanca_ranking(101, 'global', 1) $$,
+    $$ values (101, 1::bigint), (102, 2::bigint) $$,
+    'Global, primeiro lugar'
+);
+
+select results_eq(
+    $$ select id, posicao from get_vizinhanca_ranking(110, 'global', 1) $$,
+    $$ values (109, 9::bigint), (110, 10::bigint) $$,
+    'Global, último lugar'
+);
+
+select is_empty(
+    $$ select * from get_vizinhanca_ranking(999, 'global', 5) $$,
+    'Global, usuário fora do ranking'
+);
+
+select results_eq(
+    $$ select consumo_hoje, total_30_dias from get_vizinhanca_ranking(110, 'global', 0) $$,
+    $$ values (null::integer, 0::bigint) $$,
+    'Global preenche total_30_dias e deixa consumo_hoje nulo'
+);
+
+-- ============ Ranking inválido ============
+
+select throws_ok(
+    $$ select * from get_vizinhanca_ranking(101, 'semanal', 5) $$,
+    'P0001',
+    'Ranking inválido: semanal',
+    'Nome de ranking desconhecido é rejeitado'
+);
+
+-- ============ Permissões ============
+
+select ok(
+    not has_function_privilege('anon', 'public.get_vizinhanca_ranking(integer, text, integer)', 'execute'),
+    'anon não executa a função'
+);
+
+select ok(
+    has_function_privilege('authenticated', 'public.get_vizinhanca_ranking(integer, text, integer)', 'execute'),
+    'authenticated executa a função'
+);
+
+select * from finish();
+
+rollback;
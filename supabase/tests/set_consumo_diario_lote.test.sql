@@ -0,0 +1,79 @@
+-- set_consumo_diario_lote: quem pode chamar, dono do usuario_id e datas repetidas no lote
+-- A sessão do Supabase Auth é simulada com request.jwt.claims (o que auth.jwt() lê)
+-- Usuários e dias de teste são desfeitos no rollback
+--
+-- Rodar: supabase test db
+
+begin;
+
+create extension if not exists pgtap with schema extensions;
+set local search_path = public, extensions;
+
+select plan(8);
+
+insert into public.usuarios (id, nome, email) values
+    (9001, 'Dono', 'dono-lote@example.invalid'),
+    (9002, 'Outro', 'outro-lote@example.invalid');
+
+select set_config('request.jwt.claims', '{"email": "Dono-Lote@example.invalid"}', true);
+
+-- ============ Permissões ============
+
+select ok(
+    not has_function_privilege('anon', 'public.set_consumo_diario_lote(integer, jsonb)', 'execute'),
+    'anon não executa a função'
+);
+
+select ok(
+    has_function_privilege('authenticated', 'public.set_consumo_diario_lote(integer, jsonb)', 'execute'),
+    'authenticated executa a função'
+);
+
+-- ============ Dono ============
+
+select throws_ok(
+    $$ select set_consumo_diario_lote(9002, '[{"data": "2026-10-01", "total_ml": 5000}]'::jsonb) $$,
+    '42501',
+    'Usuário 9002 não pertence à sessão atual',
+    'Outro usuário: recusado'
+);
+
+select is_empty(
+    $$ select 1 from public.consumo_diario where usuario_id = 9002 $$,
+    'Outro usuário: nada gravado'
+);
+
+select is(
+    set_consumo_diario_lote(9001, '[{"data": "2026-10-01", "total_ml": 1500}, {"data": "2026-10-02", "total_ml": 2000}]'::jsonb),
+    2,
+    'Próprio usuário: grava os dois dias (e-mail sem diferenciar maiúsculas)'
+);
+
+-- ============ Datas repetidas ============
+
+select is(
+    set_consumo_diario_lote(9001, '[{"data": "2026-10-02", "total_ml": 2100}, {"data": "2026-10-03", "total_ml": 900}, {"data": "2026-10-02", "total_ml": 2500}]'::jsonb),
+    2,
+    'Data repetida no lote: uma linha por dia, sem erro de ON CONFLICT'
+);
+
+select results_eq(
+    $$ select data, total_ml from public.consumo_diario where usuario_id = 9001 order by data $$,
+    $$ values ('2026-10-01'::date, 1500), ('2026-10-02'::date, 2500), ('2026-10-03'::date, 900) $$,
+    'Data repetida no lote: vale a última ocorrência'
+);
+
+-- ============ Sem sessão ============
+
+select set_config('request.jwt.claims', '', true);
+
+select throws_ok(
+    $$ select set_consumo_diario_lote(9001, '[{"data": "2026-10-04", "total_ml": 100}]'::jsonb) $$,
+    '42501',
+    'Usuário 9001 não pertence à sessão atual',
+    'Sem e-mail na sessão: recusado'
+);
+
+select * from finish();
+
+rollback;